@@ -0,0 +1,47 @@
+package se.l4.lect.benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.l4.lect.LanguageEncounter;
+import se.l4.lect.LanguageParser;
+import se.l4.lect.location.Location;
+import se.l4.lect.tokens.Token;
+
+/**
+ * {@link LanguageEncounter} that sends everything it receives to a
+ * {@link Blackhole}. Used to measure the cost of a {@link LanguageParser}.
+ * Tokens are consumed without reading their text, similar to a handler that
+ * only looks at the type of tokens.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class BlackholeLanguageEncounter
+	implements LanguageEncounter
+{
+	private Blackhole blackhole;
+
+	public void setBlackhole(Blackhole blackhole)
+	{
+		this.blackhole = blackhole;
+	}
+
+	@Override
+	public void startSentence(Location location)
+	{
+		blackhole.consume(location);
+	}
+
+	@Override
+	public void endSentence(Location location)
+	{
+		blackhole.consume(location);
+	}
+
+	@Override
+	public void token(Token token)
+	{
+		blackhole.consume(token.getType());
+		blackhole.consume(token.getEnd());
+	}
+}
@@ -0,0 +1,95 @@
+package se.l4.lect.benchmarks;
+
+import java.util.Locale;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.l4.lect.TextSource;
+import se.l4.lect.TextSourceEncounter;
+import se.l4.lect.location.Location;
+import se.l4.lect.tokens.TokenProperty;
+
+/**
+ * {@link TextSourceEncounter} that sends everything it receives to a
+ * {@link Blackhole}. Used to measure the cost of a {@link TextSource} without
+ * any language parsing.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class BlackholeSourceEncounter
+	implements TextSourceEncounter
+{
+	private final Blackhole blackhole;
+
+	private Location location;
+	private boolean inParagraph;
+
+	public BlackholeSourceEncounter(Blackhole blackhole)
+	{
+		this.blackhole = blackhole;
+	}
+
+	@Override
+	public Locale locale()
+	{
+		return Locale.ENGLISH;
+	}
+
+	@Override
+	public Location location()
+	{
+		return location;
+	}
+
+	@Override
+	public void location(Location location)
+	{
+		this.location = location;
+	}
+
+	@Override
+	public boolean inParagraph()
+	{
+		return inParagraph;
+	}
+
+	@Override
+	public void startParagraph()
+	{
+		inParagraph = true;
+		blackhole.consume(location);
+	}
+
+	@Override
+	public void endParagraph()
+	{
+		inParagraph = false;
+		blackhole.consume(location);
+	}
+
+	@Override
+	public void done()
+	{
+		inParagraph = false;
+	}
+
+	@Override
+	public void text(CharSequence text, Location end)
+	{
+		blackhole.consume(text.length());
+		blackhole.consume(end);
+	}
+
+	@Override
+	public <T> void setAttribute(TokenProperty<T> attribute, T value)
+	{
+		blackhole.consume(value);
+	}
+
+	@Override
+	public void clearAttribute(TokenProperty<?> attribute)
+	{
+		blackhole.consume(attribute);
+	}
+}
@@ -0,0 +1,332 @@
+package se.l4.lect.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generated text used by the benchmarks. The text is generated from a fixed
+ * seed so that every run of a benchmark sees the same content. Text can be
+ * rendered as plain text, HTML and Markdown.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class Corpus
+{
+	/**
+	 * The size of a corpus, as the number of paragraphs.
+	 */
+	public enum Size
+	{
+		/**
+		 * A handful of paragraphs, similar to a comment or a chat message.
+		 */
+		SMALL(4),
+
+		/**
+		 * Document sized content, roughly 50 KB of text.
+		 */
+		MEDIUM(256),
+
+		/**
+		 * Large documents, roughly 1 MB of text.
+		 */
+		LARGE(4096);
+
+		private final int paragraphs;
+
+		private Size(int paragraphs)
+		{
+			this.paragraphs = paragraphs;
+		}
+	}
+
+	/**
+	 * The language of a corpus, decides the words used and the locale given
+	 * to the language parsers.
+	 */
+	public enum Language
+	{
+		ENGLISH(Locale.ENGLISH,
+			"the", "of", "and", "a", "to", "in", "is", "you", "that", "it",
+			"he", "was", "for", "on", "are", "as", "with", "his", "they", "at",
+			"be", "this", "have", "from", "or", "one", "had", "by", "word", "but",
+			"not", "what", "all", "were", "we", "when", "your", "can", "said", "there",
+			"language", "pipeline", "paragraph", "sentence", "analysis", "document",
+			"processing", "tokenization", "information", "extraction", "Mrs", "Mr",
+			"don't", "it's", "e-mail", "3.14", "2017", "U.S."
+		),
+
+		SWEDISH(new Locale("sv", "SE"),
+			"och", "i", "att", "det", "som", "en", "på", "är", "av", "för",
+			"med", "till", "den", "har", "de", "inte", "om", "ett", "han", "men",
+			"var", "jag", "sig", "från", "vi", "så", "kan", "man", "när", "år",
+			"språk", "mening", "stycke", "ordbehandling", "dokument", "analys",
+			"självständigt", "sjuksköterska", "överenskommelse", "räksmörgås",
+			"t.ex.", "bl.a.", "2017", "3,14"
+		),
+
+		GERMAN(Locale.GERMAN,
+			"der", "die", "und", "in", "den", "von", "zu", "das", "mit", "sich",
+			"des", "auf", "für", "ist", "im", "dem", "nicht", "ein", "eine", "als",
+			"auch", "es", "an", "werden", "aus", "er", "hat", "dass", "sie", "nach",
+			"Sprache", "Absatz", "Satz", "Verarbeitung", "Dokument", "Straße",
+			"Donaudampfschifffahrt", "Rechtsschutzversicherung", "Größe", "z.B.",
+			"2017", "3,14"
+		);
+
+		private final Locale locale;
+		private final String[] words;
+
+		private Language(Locale locale, String... words)
+		{
+			this.locale = locale;
+			this.words = words;
+		}
+
+		/**
+		 * Get the locale of this language.
+		 *
+		 * @return
+		 */
+		public Locale getLocale()
+		{
+			return locale;
+		}
+	}
+
+	private static final String[] SENTENCE_ENDINGS = { ".", ".", ".", "!", "?" };
+	private static final String[] INNER_SYMBOLS = { ",", ",", ";", ":", " -" };
+
+	private final List<List<String>> paragraphs;
+
+	private Corpus(List<List<String>> paragraphs)
+	{
+		this.paragraphs = paragraphs;
+	}
+
+	/**
+	 * Generate a corpus for the given language and size.
+	 *
+	 * @param language
+	 * @param size
+	 * @return
+	 */
+	public static Corpus generate(Language language, Size size)
+	{
+		Random random = new Random(language.ordinal() * 31 + size.ordinal());
+
+		List<List<String>> paragraphs = new ArrayList<>(size.paragraphs);
+		for(int i=0; i<size.paragraphs; i++)
+		{
+			// Mix short paragraphs, such as headings, with longer ones
+			int sentenceCount = random.nextInt(8) == 0 ? 1 : 1 + random.nextInt(6);
+			List<String> sentences = new ArrayList<>(sentenceCount);
+			for(int j=0; j<sentenceCount; j++)
+			{
+				sentences.add(sentence(language, random));
+			}
+
+			paragraphs.add(sentences);
+		}
+
+		return new Corpus(paragraphs);
+	}
+
+	private static String sentence(Language language, Random random)
+	{
+		StringBuilder builder = new StringBuilder();
+		int words = 3 + random.nextInt(18);
+		for(int i=0; i<words; i++)
+		{
+			if(i > 0)
+			{
+				if(random.nextInt(12) == 0)
+				{
+					builder.append(INNER_SYMBOLS[random.nextInt(INNER_SYMBOLS.length)]);
+				}
+
+				builder.append(' ');
+			}
+
+			String word = language.words[random.nextInt(language.words.length)];
+			if(i == 0)
+			{
+				builder.append(Character.toUpperCase(word.charAt(0)))
+					.append(word, 1, word.length());
+			}
+			else
+			{
+				builder.append(word);
+			}
+		}
+
+		builder.append(SENTENCE_ENDINGS[random.nextInt(SENTENCE_ENDINGS.length)]);
+		return builder.toString();
+	}
+
+	/**
+	 * Get the paragraphs of this corpus as plain text without any markup.
+	 *
+	 * @return
+	 */
+	public List<String> paragraphs()
+	{
+		List<String> result = new ArrayList<>(paragraphs.size());
+		for(List<String> sentences : paragraphs)
+		{
+			result.add(String.join(" ", sentences));
+		}
+		return result;
+	}
+
+	/**
+	 * Render this corpus as plain text, with paragraphs separated by an empty
+	 * line and long paragraphs wrapped over several lines.
+	 *
+	 * @return
+	 */
+	public String toPlainText()
+	{
+		StringBuilder builder = new StringBuilder();
+		for(List<String> sentences : paragraphs)
+		{
+			if(builder.length() > 0)
+			{
+				builder.append("\n\n");
+			}
+
+			for(int i=0, n=sentences.size(); i<n; i++)
+			{
+				if(i > 0)
+				{
+					// Wrap every third sentence on a new line
+					builder.append(i % 3 == 0 ? '\n' : ' ');
+				}
+
+				builder.append(sentences.get(i));
+			}
+		}
+
+		builder.append('\n');
+		return builder.toString();
+	}
+
+	/**
+	 * Render this corpus as HTML with headings, paragraphs, inline markup
+	 * and entities.
+	 *
+	 * @return
+	 */
+	public String toHTML()
+	{
+		Random random = new Random(paragraphs.size());
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("<!DOCTYPE html>\n<html>\n<head><title>Corpus</title>\n<style>p { margin: 0; }</style>\n</head>\n<body>\n");
+		for(List<String> sentences : paragraphs)
+		{
+			String tag = sentences.size() == 1 ? "h2" : "p";
+			builder.append("<").append(tag).append(">");
+
+			for(int i=0, n=sentences.size(); i<n; i++)
+			{
+				if(i > 0) builder.append(i % 3 == 0 ? "\n" : " ");
+
+				String[] words = sentences.get(i).split(" ");
+				for(int j=0; j<words.length; j++)
+				{
+					if(j > 0) builder.append(' ');
+
+					String word = words[j].replace("&", "&amp;");
+					switch(random.nextInt(24))
+					{
+						case 0:
+							builder.append("<em>").append(word).append("</em>");
+							break;
+						case 1:
+							builder.append("<a href=\"https://example.com/").append(j).append("\" title=\"Link\">").append(word).append("</a>");
+							break;
+						case 2:
+							builder.append("<strong>").append(word).append("</strong>");
+							break;
+						case 3:
+							builder.append(word).append("&nbsp;&mdash;");
+							break;
+						default:
+							builder.append(word);
+					}
+				}
+			}
+
+			builder.append("</").append(tag).append(">\n");
+		}
+
+		builder.append("</body>\n</html>\n");
+		return builder.toString();
+	}
+
+	/**
+	 * Render this corpus as Markdown with headings, paragraphs, lists and
+	 * inline markup.
+	 *
+	 * @return
+	 */
+	public String toMarkdown()
+	{
+		Random random = new Random(paragraphs.size());
+
+		StringBuilder builder = new StringBuilder();
+		for(List<String> sentences : paragraphs)
+		{
+			boolean list = sentences.size() > 4;
+			if(sentences.size() == 1)
+			{
+				builder.append("## ");
+			}
+
+			for(int i=0, n=sentences.size(); i<n; i++)
+			{
+				if(list)
+				{
+					builder.append(i > 0 ? "\n" : "").append("* ");
+				}
+				else if(i > 0)
+				{
+					builder.append(i % 3 == 0 ? "\n" : " ");
+				}
+
+				String[] words = sentences.get(i).split(" ");
+				for(int j=0; j<words.length; j++)
+				{
+					if(j > 0) builder.append(' ');
+
+					String word = words[j];
+					switch(random.nextInt(24))
+					{
+						case 0:
+							builder.append('*').append(word).append('*');
+							break;
+						case 1:
+							builder.append('[').append(word).append("](https://example.com/").append(j).append(')');
+							break;
+						case 2:
+							builder.append("**").append(word).append("**");
+							break;
+						case 3:
+							builder.append('`').append(word).append('`');
+							break;
+						default:
+							builder.append(word);
+					}
+				}
+			}
+
+			builder.append("\n\n");
+		}
+
+		return builder.toString();
+	}
+}
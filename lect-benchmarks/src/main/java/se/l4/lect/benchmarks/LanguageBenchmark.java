@@ -0,0 +1,102 @@
+package se.l4.lect.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.l4.lect.ICULanguage;
+import se.l4.lect.LanguageParser;
+import se.l4.lect.TokenizingLanguage;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.MutableTextOffsetLocation;
+
+/**
+ * Benchmarks for {@link LanguageParser}s, feeding them paragraphs the same way
+ * a pipeline does.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LanguageBenchmark
+{
+	@Param({ "ENGLISH", "SWEDISH", "GERMAN" })
+	private Corpus.Language language;
+
+	@Param({ "SMALL", "MEDIUM" })
+	private Corpus.Size size;
+
+	private String[] paragraphs;
+	private Location[] starts;
+	private Location[] ends;
+
+	private BlackholeLanguageEncounter encounter;
+	private LanguageParser icu;
+	private LanguageParser tokenizing;
+
+	@Setup
+	public void setup()
+	{
+		List<String> list = Corpus.generate(language, size).paragraphs();
+		paragraphs = list.toArray(new String[list.size()]);
+
+		starts = new Location[paragraphs.length];
+		ends = new Location[paragraphs.length];
+		int offset = 0;
+		for(int i=0; i<paragraphs.length; i++)
+		{
+			starts[i] = new MutableTextOffsetLocation(offset, i * 2, 0);
+			offset += paragraphs[i].length();
+			ends[i] = new MutableTextOffsetLocation(offset, i * 2, paragraphs[i].length());
+			offset += 2;
+		}
+
+		encounter = new BlackholeLanguageEncounter();
+		icu = ICULanguage.forLocale(language.getLocale()).create(encounter);
+		tokenizing = TokenizingLanguage.create(
+			language.getLocale(),
+			SimpleSentenceTokenizer::new,
+			SimpleWordTokenizer::new
+		).create(encounter);
+	}
+
+	@Benchmark
+	public void icu(Blackhole blackhole)
+	{
+		encounter.setBlackhole(blackhole);
+		run(icu);
+	}
+
+	@Benchmark
+	public void tokenizing(Blackhole blackhole)
+	{
+		encounter.setBlackhole(blackhole);
+		run(tokenizing);
+	}
+
+	private void run(LanguageParser parser)
+	{
+		for(int i=0, n=paragraphs.length; i<n; i++)
+		{
+			parser.text(paragraphs[i], starts[i], ends[i]);
+			parser.flush();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package se.l4.lect.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.l4.lect.markdown.MarkdownFlavor;
+import se.l4.lect.markdown.MarkdownSource;
+
+/**
+ * Benchmark for parsing many short Markdown texts, such as comments, where
+ * the setup of a parse matters as much as the parsing itself.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownCommentBenchmark
+{
+	private static final String COMMENT = "Thanks, **this** fixes it for me. See ~~#12~~ #14 for the details.";
+
+	@Param({ "COMMONMARK", "GITHUB" })
+	private MarkdownFlavor flavor;
+
+	@Benchmark
+	public void parse(Blackhole blackhole)
+		throws IOException
+	{
+		MarkdownSource.forString(COMMENT).withFlavor(flavor).parse(new BlackholeSourceEncounter(blackhole));
+	}
+}
@@ -0,0 +1,121 @@
+package se.l4.lect.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.lect.ICULanguage;
+import se.l4.lect.Pipeline;
+import se.l4.lect.TextSource;
+import se.l4.lect.handlers.DefaultHandler;
+import se.l4.lect.html.HTMLSource;
+import se.l4.lect.markdown.MarkdownSource;
+import se.l4.lect.text.PlainTextSource;
+import se.l4.lect.tokens.Token;
+
+/**
+ * End-to-end benchmarks running a {@link Pipeline} that counts words over
+ * the different formats.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark
+{
+	public enum Format
+	{
+		PLAIN,
+		HTML,
+		MARKDOWN
+	}
+
+	@Param({ "PLAIN", "HTML", "MARKDOWN" })
+	private Format format;
+
+	@Param({ "ENGLISH", "SWEDISH", "GERMAN" })
+	private Corpus.Language language;
+
+	@Param({ "SMALL", "MEDIUM" })
+	private Corpus.Size size;
+
+	private String text;
+	private Pipeline<AtomicInteger> pipeline;
+
+	@Setup
+	public void setup()
+	{
+		Corpus corpus = Corpus.generate(language, size);
+		switch(format)
+		{
+			case PLAIN:
+				text = corpus.toPlainText();
+				break;
+			case HTML:
+				text = corpus.toHTML();
+				break;
+			case MARKDOWN:
+				text = corpus.toMarkdown();
+				break;
+		}
+
+		pipeline = Pipeline.<AtomicInteger>newBuilder()
+			.language(ICULanguage.forLocale(language.getLocale()))
+			.with(encounter -> new DefaultHandler()
+			{
+				private int count;
+
+				@Override
+				protected void word(Token token)
+				{
+					count++;
+				}
+
+				@Override
+				public void done()
+				{
+					encounter.collector().set(count);
+				}
+			})
+			.build();
+	}
+
+	private TextSource source()
+	{
+		switch(format)
+		{
+			case HTML:
+				return HTMLSource.forString(text);
+			case MARKDOWN:
+				return MarkdownSource.forString(text);
+			default:
+				return PlainTextSource.forString(text);
+		}
+	}
+
+	@Benchmark
+	public int run()
+		throws IOException
+	{
+		AtomicInteger collector = new AtomicInteger();
+		pipeline.run(source(), collector);
+		return collector.get();
+	}
+}
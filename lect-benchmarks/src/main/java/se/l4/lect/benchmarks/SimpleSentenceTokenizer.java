@@ -0,0 +1,50 @@
+package se.l4.lect.benchmarks;
+
+import se.l4.lect.TokenizingLanguage;
+import se.l4.lect.tokens.OffsetTokenizer;
+import se.l4.lect.tokens.TextTokenization;
+import se.l4.lect.tokens.TokenType;
+
+/**
+ * Naive sentence tokenizer used to benchmark {@link TokenizingLanguage}.
+ * Sentences end at periods, question marks and exclamation marks.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class SimpleSentenceTokenizer
+	extends OffsetTokenizer
+{
+	private final CharSequence text;
+
+	public SimpleSentenceTokenizer(CharSequence text)
+	{
+		this.text = text;
+	}
+
+	@Override
+	protected boolean findNextToken(int previousEnd)
+	{
+		if(previousEnd == text.length())
+		{
+			return false;
+		}
+
+		int start = TextTokenization.findNonWhitespace(text, previousEnd);
+		if(start == -1) return false;
+
+		int end = start;
+		for(int n=text.length(); end<n; end++)
+		{
+			char c = text.charAt(end);
+			if(c == '.' || c == '?' || c == '!')
+			{
+				end++;
+				break;
+			}
+		}
+
+		setNextToken(TokenType.SPECIAL, text, start, end);
+		return true;
+	}
+}
@@ -0,0 +1,45 @@
+package se.l4.lect.benchmarks;
+
+import se.l4.lect.TokenizingLanguage;
+import se.l4.lect.tokens.OffsetTokenizer;
+import se.l4.lect.tokens.TextTokenization;
+import se.l4.lect.tokens.TokenType;
+
+/**
+ * Naive word tokenizer used to benchmark {@link TokenizingLanguage}. Splits
+ * text on whitespace.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class SimpleWordTokenizer
+	extends OffsetTokenizer
+{
+	private final CharSequence text;
+
+	public SimpleWordTokenizer(CharSequence text)
+	{
+		this.text = text;
+	}
+
+	@Override
+	protected boolean findNextToken(int previousEnd)
+	{
+		if(previousEnd == text.length())
+		{
+			return false;
+		}
+
+		int start = TextTokenization.findNonWhitespace(text, previousEnd);
+		if(start == -1) return false;
+
+		int end = TextTokenization.findWhitespace(text, start);
+		if(end == -1)
+		{
+			end = text.length();
+		}
+
+		setNextToken(TokenType.WORD, text, start, end);
+		return true;
+	}
+}
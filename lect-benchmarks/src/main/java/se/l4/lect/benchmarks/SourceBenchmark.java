@@ -0,0 +1,113 @@
+package se.l4.lect.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.l4.lect.TextSource;
+import se.l4.lect.html.HTMLSource;
+import se.l4.lect.markdown.MarkdownSource;
+import se.l4.lect.text.PlainTextSource;
+
+/**
+ * Benchmarks for the different {@link TextSource}s without any language
+ * parsing.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceBenchmark
+{
+	@Param({ "SMALL", "MEDIUM", "LARGE" })
+	private Corpus.Size size;
+
+	private String plainText;
+	private String html;
+	private String markdown;
+
+	private Path plainTextFile;
+
+	@Setup
+	public void setup()
+		throws IOException
+	{
+		Corpus corpus = Corpus.generate(Corpus.Language.ENGLISH, size);
+		plainText = corpus.toPlainText();
+		html = corpus.toHTML();
+		markdown = corpus.toMarkdown();
+
+		plainTextFile = Files.createTempFile("lect-benchmark", ".txt");
+		Files.write(plainTextFile, plainText.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@TearDown
+	public void tearDown()
+		throws IOException
+	{
+		Files.deleteIfExists(plainTextFile);
+	}
+
+	@Benchmark
+	public void plainText(Blackhole blackhole)
+		throws IOException
+	{
+		PlainTextSource.forString(plainText).parse(new BlackholeSourceEncounter(blackhole));
+	}
+
+	@Benchmark
+	public void plainTextFile(Blackhole blackhole)
+		throws IOException
+	{
+		PlainTextSource.forPath(plainTextFile, StandardCharsets.UTF_8).parse(new BlackholeSourceEncounter(blackhole));
+	}
+
+	@Benchmark
+	public void html(Blackhole blackhole)
+		throws IOException
+	{
+		HTMLSource.forString(html).parse(new BlackholeSourceEncounter(blackhole));
+	}
+
+	@Benchmark
+	public void htmlStreamed(Blackhole blackhole)
+		throws IOException
+	{
+		HTMLSource.forString(html).withStreaming().parse(new BlackholeSourceEncounter(blackhole));
+	}
+
+	@Benchmark
+	public void markdown(Blackhole blackhole)
+		throws IOException
+	{
+		MarkdownSource.forString(markdown).parse(new BlackholeSourceEncounter(blackhole));
+	}
+
+	@Benchmark
+	public void markdownStreamed(Blackhole blackhole)
+		throws IOException
+	{
+		MarkdownSource.forString(markdown).withStreaming().parse(new BlackholeSourceEncounter(blackhole));
+	}
+}
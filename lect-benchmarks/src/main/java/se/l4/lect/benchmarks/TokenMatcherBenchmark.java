@@ -0,0 +1,121 @@
+package se.l4.lect.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.lect.ICULanguage;
+import se.l4.lect.LanguageEncounter;
+import se.l4.lect.LanguageParser;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.MutableTextOffsetLocation;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenMatcher;
+import se.l4.lect.tokens.TokenPattern;
+
+/**
+ * Benchmarks for {@link TokenMatcher#add(Token)} over tokens produced by
+ * {@link ICULanguage}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenMatcherBenchmark
+{
+	@Param({
+		"word",
+		"word symbol",
+		"'the' word",
+		"/th.*/i word",
+		"word? symbol",
+		"!symbol word",
+		"symbol (word word)+ symbol",
+		"[word='Mrs' word='Mr'] symbol"
+	})
+	private String pattern;
+
+	private Token[] tokens;
+	private TokenMatcher matcher;
+
+	@Setup
+	public void setup()
+	{
+		tokens = tokens(Corpus.Language.ENGLISH, Corpus.Size.MEDIUM);
+		matcher = TokenPattern.compile(pattern).matcher();
+	}
+
+	/**
+	 * Get copies of all the tokens {@link ICULanguage} finds in a generated
+	 * corpus.
+	 *
+	 * @param language
+	 * @param size
+	 * @return
+	 */
+	static Token[] tokens(Corpus.Language language, Corpus.Size size)
+	{
+		List<Token> result = new ArrayList<>();
+		LanguageParser parser = ICULanguage.forLocale(language.getLocale()).create(new LanguageEncounter()
+		{
+			@Override
+			public void token(Token token)
+			{
+				result.add(token.copy());
+			}
+
+			@Override
+			public void startSentence(Location location)
+			{
+			}
+
+			@Override
+			public void endSentence(Location location)
+			{
+			}
+		});
+
+		for(String paragraph : Corpus.generate(language, size).paragraphs())
+		{
+			parser.text(paragraph, new MutableTextOffsetLocation(0, 0, 0), new MutableTextOffsetLocation(paragraph.length(), 0, paragraph.length()));
+			parser.flush();
+		}
+
+		return result.toArray(new Token[result.size()]);
+	}
+
+	@Benchmark
+	public int add()
+	{
+		TokenMatcher matcher = this.matcher;
+		matcher.reset();
+
+		int matches = 0;
+		for(Token token : tokens)
+		{
+			if(matcher.add(token))
+			{
+				matches++;
+			}
+		}
+
+		return matches;
+	}
+}
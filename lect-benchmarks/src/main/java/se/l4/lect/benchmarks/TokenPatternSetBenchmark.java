@@ -0,0 +1,125 @@
+package se.l4.lect.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenMatcher;
+import se.l4.lect.tokens.TokenPattern;
+import se.l4.lect.tokens.TokenPatternSet;
+import se.l4.lect.tokens.TokenPatternSetMatcher;
+import se.l4.lect.tokens.TokenType;
+
+/**
+ * Benchmarks that compare a {@link TokenPatternSet} against using a separate
+ * {@link TokenMatcher} for every pattern.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenPatternSetBenchmark
+{
+	@Param({ "10", "100", "500" })
+	private int patterns;
+
+	private Token[] tokens;
+	private TokenPatternSetMatcher set;
+	private TokenMatcher[] separate;
+
+	@Setup
+	public void setup()
+	{
+		tokens = TokenMatcherBenchmark.tokens(Corpus.Language.ENGLISH, Corpus.Size.MEDIUM);
+
+		// Create patterns from the words in the corpus
+		Set<String> words = new LinkedHashSet<>();
+		for(Token token : tokens)
+		{
+			if(token.getType() == TokenType.WORD && token.getText().matches("[a-z]+"))
+			{
+				words.add(token.getText());
+			}
+		}
+
+		List<String> sources = new ArrayList<>();
+		while(sources.size() < patterns)
+		{
+			for(String word : words)
+			{
+				if(sources.size() == patterns) break;
+
+				sources.add(sources.size() % 2 == 0 ? "'" + word + "' word" : "word '" + word + "' symbol?");
+			}
+		}
+
+		set = TokenPatternSet.compile(sources, 0).matcher();
+
+		separate = new TokenMatcher[sources.size()];
+		for(int i=0; i<separate.length; i++)
+		{
+			separate[i] = TokenPattern.compile(sources.get(i)).matcher();
+		}
+	}
+
+	@Benchmark
+	public int set()
+	{
+		TokenPatternSetMatcher matcher = this.set;
+		matcher.reset();
+
+		int matches = 0;
+		for(Token token : tokens)
+		{
+			if(matcher.add(token))
+			{
+				matches += matcher.getMatchCount();
+			}
+		}
+
+		return matches;
+	}
+
+	@Benchmark
+	public int separate()
+	{
+		for(TokenMatcher matcher : this.separate)
+		{
+			matcher.reset();
+		}
+
+		int matches = 0;
+		for(Token token : tokens)
+		{
+			for(TokenMatcher matcher : this.separate)
+			{
+				if(matcher.add(token))
+				{
+					matches++;
+				}
+			}
+		}
+
+		return matches;
+	}
+}
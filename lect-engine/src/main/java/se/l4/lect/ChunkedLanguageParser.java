@@ -1,5 +1,6 @@
 package se.l4.lect;
 
+import java.util.Arrays;
 import java.util.Map;
 
 import se.l4.lect.location.Location;
@@ -21,30 +22,63 @@ public abstract class ChunkedLanguageParser
 	private final MutableToken token;
 
 	private int lastOffset;
-	private Node head;
+
+	/**
+	 * The text of the current paragraph-level content.
+	 */
+	private final StringBuilder text;
+
+	/**
+	 * Nodes describing where in the source the text comes from. Nodes are
+	 * reused between paragraphs.
+	 */
+	private Node[] nodes;
+	private int nodeCount;
+	private int currentNode;
 
 	private Location start;
 	private Location end;
 
-	private StringBuilder sourceScratch;
-	private StringBuilder scratch;
+	/*
+	 * Locations used when a node is only partially consumed. Reused via
+	 * Location#copyInto to avoid creating locations for every token.
+	 */
+	private Location partialStart;
+	private Location partialEnd;
 
 	public ChunkedLanguageParser(LanguageEncounter encounter)
 	{
 		this.encounter = encounter;
 
-		head = new Node(null, null, null);
 		token = new MutableToken();
 
-		scratch = new StringBuilder();
-		sourceScratch = new StringBuilder();
+		text = new StringBuilder();
+		nodes = new Node[16];
 	}
 
 	@Override
 	public void text(CharSequence text, Location start, Location end)
 	{
-		Node node = new Node(text.toString(), start.copy(), end.copy());
-		node.appendTo(head);
+		if(nodeCount == nodes.length)
+		{
+			nodes = Arrays.copyOf(nodes, nodeCount * 2);
+		}
+
+		Node node = nodes[nodeCount];
+		if(node == null)
+		{
+			node = nodes[nodeCount] = new Node();
+		}
+
+		nodeCount++;
+
+		node.offsetStart = this.text.length();
+		this.text.append(text);
+		node.offsetEnd = this.text.length();
+		node.consumed = 0;
+
+		node.start = start.copyInto(node.start);
+		node.end = end.copyInto(node.end);
 	}
 
 	public void text(String text, String original, Location start)
@@ -56,76 +90,62 @@ public abstract class ChunkedLanguageParser
 	public void flush()
 	{
 		lastOffset = 0;
+		currentNode = 0;
 
-		int offset = 0;
-		Node node = head.next;
-		StringBuilder builder = new StringBuilder();
-		while(node != head)
-		{
-			node.offsetStart = offset;
-			node.offsetEnd = offset + node.text.length();
-			builder.append(node.text);
-
-			offset = node.offsetEnd;
-			node = node.next;
-		}
-
-		handleChunk(builder);
+		handleChunk(text);
 
-		head.next = head;
-		head.prev = head;
+		// Release the nodes and the text so they can be reused
+		nodeCount = 0;
+		currentNode = 0;
+		text.setLength(0);
 	}
 
-	private String consume(int offset, TokenType eventType, Map<String, Object> properties)
+	private void consume(int offset, TokenType eventType, Map<String, Object> properties)
 	{
 		// Sanity check that we never go backwards
 		if(offset < lastOffset) throw new AssertionError("Going backwards in processing of paragraph-level content, language implementation probably broken");
 
 		// Update the start location if there are more nodes
-		if(head.next != head)
+		if(currentNode < nodeCount)
 		{
-			start = head.next.start;
-			if(head.next.consumed > 0)
+			Node node = nodes[currentNode];
+			start = node.start;
+			if(node.consumed > 0)
 			{
-				start = start.copy().moveTextIndex(head.next.text, 0, head.next.consumed);
+				partialStart = node.start.copyInto(partialStart);
+				start = partialStart.moveTextIndex(text, node.offsetStart, node.consumed);
 			}
 		}
 
 		// If we are the same offset nothing needs to be flushed
 		if(offset == lastOffset)
 		{
-			return null;
+			return;
 		}
 
-		sourceScratch.setLength(0);
-		scratch.setLength(0);
-
-		Node node = head.next;
-		while(node != head)
+		while(currentNode < nodeCount)
 		{
+			Node node = nodes[currentNode];
+
 			// If this node starts at or after the given offset we shouldn't remove it
 			if(node.offsetStart > offset) break;
 
 			if(node.offsetEnd >= offset)
 			{
 				// This node contains the offset so it's the last node to process
-				if(eventType != null)
-				{
-					scratch.append(node.text.substring(node.consumed, offset - node.offsetStart));
-				}
-
 				node.consumed = offset - node.offsetStart;
-				if(node.consumed == node.text.length())
+				if(offset == node.offsetEnd)
 				{
-					// Consumed all of the node, remove it
+					// Consumed all of the node, move on to the next one
 					end = node.end;
-					head.next = node.next;
+					currentNode++;
 				}
 				else
 				{
 					// Only consumed part of the node, guess the end of the node
 					// TODO: This should smooth out over the entire length and not just save the difference for the last token found
-					end = node.start.copy().moveTextIndex(node.text, 0, node.consumed);
+					partialEnd = node.start.copyInto(partialEnd);
+					end = partialEnd.moveTextIndex(text, node.offsetStart, node.consumed);
 				}
 
 				break;
@@ -133,31 +153,19 @@ public abstract class ChunkedLanguageParser
 			else
 			{
 				// This entire node should get consumed
-				if(eventType != null)
-				{
-					scratch.append(node.text.substring(node.consumed, node.text.length()));
-				}
-
-				node.consumed = node.text.length();
-
-				// Remove this node and process the next nod
-				head.next = node.next;
-				node = node.next;
+				node.consumed = node.offsetEnd - node.offsetStart;
+				currentNode++;
 			}
 		}
 
-		lastOffset = offset;
-
-		String source = sourceScratch.toString();
 		if(eventType != null)
 		{
-			token.update(eventType, start, end, scratch.toString(), properties);
+			token.update(eventType, start, end, text, lastOffset, offset - lastOffset, properties);
 			encounter.token(token);
 		}
 
+		lastOffset = offset;
 		start = end;
-
-		return source;
 	}
 
 	private void emitWhitespace(int offset)
@@ -211,40 +219,23 @@ public abstract class ChunkedLanguageParser
 	/**
 	 * Handle the given sequence of characters. This method should go through the sequence and in order emit events
 	 * via {@link #startSentence(int)}, {@link #emitToken(int, se.l4.lect.Token.TokenType, String)} and
-	 * {@link #endSentence(int)}.
+	 * {@link #endSentence(int)}. The sequence is reused between paragraphs and should not be kept after this
+	 * method returns.
 	 *
 	 * @param sequence
 	 */
 	protected abstract void handleChunk(CharSequence sequence);
 
+	/**
+	 * Part of the text together with where in the source it came from.
+	 */
 	private static class Node
 	{
-		private final Location start;
-		private final Location end;
-		private final String text;
+		private Location start;
+		private Location end;
 
 		private int offsetStart;
 		private int offsetEnd;
 		private int consumed;
-		private Node next;
-		private Node prev;
-
-		public Node(String text, Location start, Location end)
-		{
-			this.text = text;
-			this.start = start;
-			this.end = end;
-
-			next = prev = this;
-		}
-
-		public void appendTo(Node head)
-		{
-			Node tail = head.prev;
-			head.prev = this;
-			tail.next = this;
-			this.next = head;
-			this.prev = tail;
-		}
 	}
 }
@@ -1,6 +1,8 @@
 package se.l4.lect;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.icu.text.BreakIterator;
 
@@ -17,12 +19,33 @@ import se.l4.lect.tokens.TokenType;
 public class ICULanguage
 	extends ChunkedLanguageParser
 {
+	/**
+	 * Prototypes of sentence iterators per locale. Creating a new iterator
+	 * via ICU is expensive so iterators are cloned from these instead.
+	 */
+	private static final Map<Locale, BreakIterator> SENTENCE_PROTOTYPES = new ConcurrentHashMap<>();
+	/**
+	 * Prototypes of word iterators per locale.
+	 */
+	private static final Map<Locale, BreakIterator> WORD_PROTOTYPES = new ConcurrentHashMap<>();
+
 	private final Locale locale;
 
+	private final BreakIterator sentences;
+	private final BreakIterator words;
+
 	public ICULanguage(Locale locale, LanguageEncounter encounter)
 	{
 		super(encounter);
 		this.locale = locale;
+
+		sentences = (BreakIterator) SENTENCE_PROTOTYPES
+			.computeIfAbsent(locale, BreakIterator::getSentenceInstance)
+			.clone();
+
+		words = (BreakIterator) WORD_PROTOTYPES
+			.computeIfAbsent(locale, BreakIterator::getWordInstance)
+			.clone();
 	}
 
 	/**
@@ -45,9 +68,6 @@ public class ICULanguage
 	@Override
 	protected void handleChunk(CharSequence sequence)
 	{
-		BreakIterator sentences = BreakIterator.getSentenceInstance(locale);
-		BreakIterator words = BreakIterator.getWordInstance(locale);
-
 		String string = sequence.toString();
 		sentences.setText(string);
 		words.setText(string);
@@ -56,7 +76,7 @@ public class ICULanguage
 		if(lastOffset > 0)
 		{
 			// Emit whitespace between sentences
-			emitToken(0, TokenType.WHITESPACE, string.substring(0, lastOffset));
+			emitToken(0, TokenType.WHITESPACE, lastOffset);
 		}
 
 		while(sentences.next() != BreakIterator.DONE)
@@ -81,8 +101,16 @@ public class ICULanguage
 
 				boolean canMerge = false;
 
-				String value = string.substring(startOfWord, endOfWord);
-				TokenType type = TextTokenization.findBestTokenType(value);
+				TokenType type;
+				if(words.getRuleStatus() >= BreakIterator.WORD_NONE_LIMIT)
+				{
+					// ICU has found numbers, letters or ideographs, this is always a word
+					type = TokenType.WORD;
+				}
+				else
+				{
+					type = TextTokenization.findBestTokenType(string, startOfWord, endOfWord - startOfWord);
+				}
 				if(type == TokenType.WHITESPACE)
 				{
 					canMerge = previous == TokenType.WHITESPACE;
@@ -103,7 +131,7 @@ public class ICULanguage
 							}
 						}
 
-						emitToken(tokenStart, previous, string.substring(tokenStart, startOfWord));
+						emitToken(tokenStart, previous, startOfWord - tokenStart);
 					}
 
 					tokenStart = startOfWord;
@@ -125,7 +153,7 @@ public class ICULanguage
 					}
 				}
 
-				emitToken(tokenStart, previous, string.substring(tokenStart, startOfWord));
+				emitToken(tokenStart, previous, startOfWord - tokenStart);
 			}
 
 			if(! endedSentence)
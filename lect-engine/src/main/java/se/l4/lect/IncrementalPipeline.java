@@ -0,0 +1,60 @@
+package se.l4.lect;
+
+import java.io.IOException;
+
+import se.l4.lect.location.Location;
+
+/**
+ * Pipeline that keeps what the {@link LanguageParser} found for every
+ * paragraph between runs. When an edited version of a source is run only the
+ * paragraphs that have changed are parsed again, sentences and tokens of
+ * paragraphs with the same text are replayed from the cache and moved to
+ * where the paragraph is now, so edits do not cause later paragraphs to be
+ * parsed again. Handlers always receive the events of the entire source.
+ *
+ * <p>
+ * Paragraphs not seen during a run are removed from the cache when the run
+ * finishes, so the cache only keeps results for the latest version of the
+ * source. Runs are performed one at a time.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface IncrementalPipeline<Collector>
+{
+	/**
+	 * Run this pipeline on the given source.
+	 *
+	 * @param source
+	 * @throws IOException
+	 */
+	void run(TextSource source)
+		throws IOException;
+
+	/**
+	 * Run this pipeline on the given source and collect results using the
+	 * given collector.
+	 *
+	 * @param source
+	 * @param collector
+	 * @throws IOException
+	 */
+	void run(TextSource source, Collector collector)
+		throws IOException;
+
+	/**
+	 * Invalidate cached paragraphs that intersect the given range, forcing
+	 * them to be parsed again during the next run.
+	 *
+	 * @param start
+	 *   the start of the edited range
+	 * @param end
+	 *   the end of the edited range
+	 */
+	void invalidate(Location start, Location end);
+
+	/**
+	 * Invalidate all of the cached paragraphs.
+	 */
+	void invalidate();
+}
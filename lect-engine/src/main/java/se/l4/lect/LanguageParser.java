@@ -22,6 +22,12 @@ public interface LanguageParser
 	/**
 	 * Add some text that should be parsed.
 	 *
+	 * <p>
+	 * The text may be a view of a buffer owned by the source and is only
+	 * valid during the call, it may change once this method returns.
+	 * Parsers that need the text when {@link #flush()} is called must copy
+	 * it, for example by appending it to a {@link StringBuilder}.
+	 *
 	 * @param text
 	 *   the text that should be parsed
 	 * @param start
@@ -60,7 +60,7 @@ public class ParagraphLanguage
 			{
 				if(this.start == null) return;
 
-				token.update(TokenType.UNKNOWN, start, end, text);
+				token.update(TokenType.UNKNOWN, start, end, text, 0, text.length(), null);
 				encounter.token(token);
 
 				start = null;
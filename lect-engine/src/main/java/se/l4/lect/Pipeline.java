@@ -1,7 +1,14 @@
 package se.l4.lect;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
+import se.l4.lect.events.EventLog;
+import se.l4.lect.events.EventLogWriter;
 import se.l4.lect.internal.PipelineBuilderImpl;
 
 /**
@@ -32,6 +39,69 @@ public interface Pipeline<Collector>
 	void run(TextSource source, Collector collector)
 		throws IOException;
 
+	/**
+	 * Run the handlers of this pipeline on events recorded by an
+	 * {@link EventLogWriter}. The source is not parsed and the language of
+	 * this pipeline is not used, handlers receive the recorded paragraphs,
+	 * sentences and tokens.
+	 *
+	 * @param log
+	 *   the log to replay
+	 * @param collector
+	 *   the collector to use
+	 */
+	void replay(EventLog log, Collector collector);
+
+	/**
+	 * Run this pipeline on several sources in parallel using the
+	 * {@link ForkJoinPool#commonPool() common pool}. See
+	 * {@link #runAll(Collection, Function, Executor)} for details.
+	 *
+	 * @param sources
+	 *   the sources to process
+	 * @param collectors
+	 *   function used to create a collector for each source
+	 * @return
+	 *   the collectors, in the same order as the sources
+	 * @throws IOException
+	 *   if any of the sources could not be processed
+	 */
+	default List<Collector> runAll(
+			Collection<? extends TextSource> sources,
+			Function<TextSource, ? extends Collector> collectors)
+		throws IOException
+	{
+		return runAll(sources, collectors, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Run this pipeline on several sources in parallel using the given
+	 * {@link Executor}. Every source is processed separately with its own
+	 * {@link LanguageParser} and its own handlers created via the
+	 * {@link HandlerFactory factories} of this pipeline. Handlers added as
+	 * instances via {@link PipelineAssembly#with(Handler)} are shared between
+	 * all of the sources and need to be thread-safe.
+	 *
+	 * <p>
+	 * This method blocks until all of the sources have been processed.
+	 *
+	 * @param sources
+	 *   the sources to process
+	 * @param collectors
+	 *   function used to create a collector for each source
+	 * @param executor
+	 *   the executor to run the sources on
+	 * @return
+	 *   the collectors, in the same order as the sources
+	 * @throws IOException
+	 *   if any of the sources could not be processed
+	 */
+	List<Collector> runAll(
+			Collection<? extends TextSource> sources,
+			Function<TextSource, ? extends Collector> collectors,
+			Executor executor)
+		throws IOException;
+
 	/**
 	 * Start creating a reusable pipeline.
 	 *
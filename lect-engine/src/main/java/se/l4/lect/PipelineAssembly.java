@@ -1,5 +1,10 @@
 package se.l4.lect;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import se.l4.lect.metrics.PipelineMetrics;
+
 /**
  * Assembly interface for creating pipelines, used to support both
  * {@link PipelineBuilder} and {@link PipelineRunner}.
@@ -39,4 +44,54 @@ public interface PipelineAssembly<Collector, Self extends PipelineAssembly<Colle
 	 * @return
 	 */
 	Self with(HandlerFactory<Collector> handler);
+
+	/**
+	 * Parse the paragraphs of a source in parallel using the
+	 * {@link ForkJoinPool#commonPool() common pool}. See
+	 * {@link #parallel(Executor)} for details.
+	 *
+	 * @return
+	 */
+	default Self parallel()
+	{
+		return parallel(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Parse the paragraphs of a source in parallel using the given
+	 * {@link Executor}. The {@link LanguageParser} runs for several
+	 * paragraphs at once, each thread with its own parser, and the sentences
+	 * and tokens are passed to the handlers in the same order as when
+	 * processing serially. Useful for very large sources, such as books.
+	 *
+	 * <p>
+	 * The language must not keep any state between flushes.
+	 *
+	 * <p>
+	 * The thread running the pipeline waits for paragraphs to be parsed on
+	 * the executor, so a pipeline should not be run from a task on a bounded
+	 * executor that it also parses paragraphs on, as all of the threads may
+	 * end up waiting for paragraphs that can never be parsed.
+	 * {@link Pipeline#runAll(java.util.Collection, java.util.function.Function, Executor)}
+	 * parses paragraphs on the thread of each source if it is given the
+	 * same executor.
+	 *
+	 * @param executor
+	 *   the executor to parse paragraphs on
+	 * @return
+	 */
+	Self parallel(Executor executor);
+
+	/**
+	 * Report metrics about every run of the pipeline to the given receiver,
+	 * such as the time spent in the source, the language and each handler
+	 * and the number of paragraphs, sentences and tokens found. Pipelines
+	 * without metrics do not measure anything.
+	 *
+	 * @see se.l4.lect.metrics.MetricsRegistry
+	 * @param metrics
+	 *   the receiver of metrics
+	 * @return
+	 */
+	Self metrics(PipelineMetrics metrics);
 }
@@ -17,4 +17,13 @@ public interface PipelineBuilder<Collector>
 	 * @return
 	 */
 	Pipeline<Collector> build();
+
+	/**
+	 * Build an {@link IncrementalPipeline} that caches the results of the
+	 * language parser for every paragraph, for sources that are run again
+	 * after being edited.
+	 *
+	 * @return
+	 */
+	IncrementalPipeline<Collector> buildIncremental();
 }
@@ -1,6 +1,9 @@
 package se.l4.lect;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import se.l4.lect.metrics.PipelineMetrics;
 
 /**
  * {@link PipelineAssembly Assembly} for a {@link Pipeline} to run a set of
@@ -51,6 +54,20 @@ public class PipelineRunner<Collector>
 		return this;
 	}
 
+	@Override
+	public PipelineRunner<Collector> parallel(Executor executor)
+	{
+		builder.parallel(executor);
+		return this;
+	}
+
+	@Override
+	public PipelineRunner<Collector> metrics(PipelineMetrics metrics)
+	{
+		builder.metrics(metrics);
+		return this;
+	}
+
 	public Collector run()
 		throws IOException
 	{
@@ -73,6 +73,10 @@ public interface TextSourceEncounter
 	 * possible to add it in chunks. For example a HTML parser will decode
 	 * entities and will want update the source location as it does this.
 	 *
+	 * <p>
+	 * The text may be a view of a buffer owned by the source and is only
+	 * valid during the call, copy it if it needs to be kept.
+	 *
 	 * @param text
 	 *   the text to add
 	 * @param end
@@ -0,0 +1,488 @@
+package se.l4.lect.events;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.l4.lect.Handler;
+import se.l4.lect.handlers.PackedLocationHandler;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.tokens.MutableToken;
+import se.l4.lect.tokens.TokenProperty;
+import se.l4.lect.tokens.TokenType;
+
+/**
+ * Log of the events from a pass over a source, as written by
+ * {@link EventLogWriter}. A log can be replayed to handlers, usually via
+ * {@link se.l4.lect.Pipeline#replay(EventLog, Object)}, to process a source
+ * without parsing it or running a language parser.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class EventLog
+{
+	static final byte[] MAGIC = { 'L', 'E', 'C', 'T' };
+	static final int VERSION = 1;
+
+	static final int START_PARAGRAPH = 1;
+	static final int END_PARAGRAPH = 2;
+	static final int START_SENTENCE = 3;
+	static final int END_SENTENCE = 4;
+	static final int START_ATTRIBUTE = 5;
+	static final int END_ATTRIBUTE = 6;
+	static final int TOKEN = 7;
+	static final int DEFINE_PROPERTY = 8;
+	static final int DONE = 9;
+
+	static final int LOCATION_SAME = 0;
+	static final int LOCATION_TEXT_OFFSET = 1;
+	static final int LOCATION_OFFSET = 2;
+	static final int LOCATION_TEXT = 3;
+
+	static final int VALUE_NULL = 0;
+	static final int VALUE_STRING = 1;
+	static final int VALUE_TRUE = 2;
+	static final int VALUE_FALSE = 3;
+	static final int VALUE_INT = 4;
+	static final int VALUE_LONG = 5;
+	static final int VALUE_DOUBLE = 6;
+
+	private static final TokenType[] TYPES = TokenType.values();
+
+	private final ByteBuffer data;
+
+	private EventLog(ByteBuffer data)
+	{
+		this.data = data;
+	}
+
+	/**
+	 * Get a log for the given bytes.
+	 *
+	 * @param data
+	 * @return
+	 */
+	public static EventLog forBytes(byte[] data)
+	{
+		return new EventLog(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Get a log for the file at the given path. The file is memory-mapped
+	 * and read as it is replayed.
+	 *
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	public static EventLog forPath(Path path)
+		throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			return new EventLog(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Replay all of the events in this log to the given handlers, ending
+	 * with a call to {@link Handler#done()}. {@link Handler#start()} is not
+	 * called, as handlers are started by the pipeline running them. Handlers
+	 * that implement {@link PackedLocationHandler} receive locations in their
+	 * packed form.
+	 *
+	 * <p>
+	 * Locations and tokens are only valid during the call they are given to,
+	 * in the same way as for a regular pipeline.
+	 *
+	 * @param handlers
+	 */
+	public void replay(Handler... handlers)
+	{
+		new Reader(data.duplicate()).replay(handlers);
+	}
+
+	/**
+	 * Reader that keeps the state needed to decode a log.
+	 */
+	private static class Reader
+	{
+		private final ByteBuffer data;
+
+		private final List<TokenProperty<?>> properties;
+		private final MutableToken token;
+		private final Map<String, Object> tokenProperties;
+
+		private byte[] scratch;
+
+		/*
+		 * Locations of the current event, viewed via reused locations for
+		 * handlers that do not take packed locations.
+		 */
+		private final LocationBuffer locations;
+		private Location first;
+		private Location second;
+
+		private int lastKind;
+		private int lastOffset;
+		private int lastLine;
+		private int lastColumn;
+
+		public Reader(ByteBuffer data)
+		{
+			this.data = data;
+
+			properties = new ArrayList<>();
+			token = new MutableToken();
+			tokenProperties = new HashMap<>();
+
+			scratch = new byte[256];
+			locations = new LocationBuffer(2);
+		}
+
+		public void replay(Handler[] handlers)
+		{
+			for(byte b : MAGIC)
+			{
+				if(data.get() != b)
+				{
+					throw new IllegalArgumentException("Data is not an event log");
+				}
+			}
+
+			int version = data.get();
+			if(version != VERSION)
+			{
+				throw new IllegalArgumentException("Unsupported event log version " + version);
+			}
+
+			PackedLocationHandler[] packed = new PackedLocationHandler[handlers.length];
+			for(int i=0; i<handlers.length; i++)
+			{
+				if(handlers[i] instanceof PackedLocationHandler)
+				{
+					packed[i] = (PackedLocationHandler) handlers[i];
+				}
+			}
+
+			while(true)
+			{
+				locations.clear();
+
+				int op = data.get();
+				switch(op)
+				{
+					case START_PARAGRAPH:
+					{
+						int index = readLocation();
+						first = locations.view(index, first);
+						for(int i=0; i<handlers.length; i++)
+						{
+							if(packed[i] != null)
+							{
+								packed[i].startParagraph(locations, index);
+							}
+							else
+							{
+								handlers[i].startParagraph(first);
+							}
+						}
+						break;
+					}
+					case END_PARAGRAPH:
+					{
+						int index = readLocation();
+						first = locations.view(index, first);
+						for(int i=0; i<handlers.length; i++)
+						{
+							if(packed[i] != null)
+							{
+								packed[i].endParagraph(locations, index);
+							}
+							else
+							{
+								handlers[i].endParagraph(first);
+							}
+						}
+						break;
+					}
+					case START_SENTENCE:
+					{
+						int index = readLocation();
+						first = locations.view(index, first);
+						for(int i=0; i<handlers.length; i++)
+						{
+							if(packed[i] != null)
+							{
+								packed[i].startSentence(locations, index);
+							}
+							else
+							{
+								handlers[i].startSentence(first);
+							}
+						}
+						break;
+					}
+					case END_SENTENCE:
+					{
+						int index = readLocation();
+						first = locations.view(index, first);
+						for(int i=0; i<handlers.length; i++)
+						{
+							if(packed[i] != null)
+							{
+								packed[i].endSentence(locations, index);
+							}
+							else
+							{
+								handlers[i].endSentence(first);
+							}
+						}
+						break;
+					}
+					case START_ATTRIBUTE:
+					{
+						int index = readLocation();
+						first = locations.view(index, first);
+						TokenProperty<?> property = properties.get(readVarint());
+						Object value = readValue();
+						for(int i=0; i<handlers.length; i++)
+						{
+							if(packed[i] != null)
+							{
+								packed[i].startAttribute(locations, index, property, value);
+							}
+							else
+							{
+								handlers[i].startAttribute(first, property, value);
+							}
+						}
+						break;
+					}
+					case END_ATTRIBUTE:
+					{
+						int index = readLocation();
+						first = locations.view(index, first);
+						TokenProperty<?> property = properties.get(readVarint());
+						for(int i=0; i<handlers.length; i++)
+						{
+							if(packed[i] != null)
+							{
+								packed[i].endAttribute(locations, index, property);
+							}
+							else
+							{
+								handlers[i].endAttribute(first, property);
+							}
+						}
+						break;
+					}
+					case TOKEN:
+						readToken();
+						for(int i=0; i<handlers.length; i++)
+						{
+							if(packed[i] != null)
+							{
+								packed[i].token(token, locations, 0, 1);
+							}
+							else
+							{
+								handlers[i].token(token);
+							}
+						}
+						break;
+					case DEFINE_PROPERTY:
+						properties.add(property(readString()));
+						break;
+					case DONE:
+						for(Handler h : handlers)
+						{
+							h.done();
+						}
+						return;
+					default:
+						throw new IllegalArgumentException("Invalid event log, unknown event " + op + " at " + (data.position() - 1));
+				}
+			}
+		}
+
+		private void readToken()
+		{
+			TokenType type = TYPES[data.get()];
+			first = locations.view(readLocation(), first);
+			second = locations.view(readLocation(), second);
+			String text = readString();
+
+			int count = readVarint();
+			Map<String, Object> otherProperties = null;
+			if(count > 0)
+			{
+				tokenProperties.clear();
+				for(int i=0; i<count; i++)
+				{
+					TokenProperty<?> property = properties.get(readVarint());
+					tokenProperties.put(property.getId(), readValue());
+				}
+
+				otherProperties = tokenProperties;
+			}
+
+			token.update(type, first, second, text, otherProperties);
+		}
+
+		/**
+		 * Read a location into the buffer and return its index.
+		 */
+		private int readLocation()
+		{
+			int kind = data.get();
+			if(kind != LOCATION_SAME)
+			{
+				lastKind = kind;
+				lastOffset += unzigzag(readVarint());
+
+				int lineDelta = unzigzag(readVarint());
+				if(lineDelta == 0)
+				{
+					lastColumn += unzigzag(readVarint());
+				}
+				else
+				{
+					lastLine += lineDelta;
+					lastColumn = readVarint();
+				}
+			}
+
+			switch(lastKind)
+			{
+				case LOCATION_TEXT_OFFSET:
+					return locations.addTextOffset(lastOffset, lastLine, lastColumn);
+				case LOCATION_OFFSET:
+					return locations.addOffset(lastOffset);
+				case LOCATION_TEXT:
+					return locations.addText(lastLine, lastColumn);
+				default:
+					throw new IllegalArgumentException("Invalid event log, unknown location type " + lastKind);
+			}
+		}
+
+		private Object readValue()
+		{
+			int type = data.get();
+			switch(type)
+			{
+				case VALUE_NULL:
+					return null;
+				case VALUE_STRING:
+					return readString();
+				case VALUE_TRUE:
+					return Boolean.TRUE;
+				case VALUE_FALSE:
+					return Boolean.FALSE;
+				case VALUE_INT:
+					return unzigzag(readVarint());
+				case VALUE_LONG:
+				{
+					long v = readVarlong();
+					return (v >>> 1) ^ -(v & 1);
+				}
+				case VALUE_DOUBLE:
+					return Double.longBitsToDouble(readVarlong());
+				default:
+					throw new IllegalArgumentException("Invalid event log, unknown value type " + type);
+			}
+		}
+
+		private String readString()
+		{
+			int length = readVarint();
+			if(data.hasArray())
+			{
+				String result = new String(data.array(), data.arrayOffset() + data.position(), length, StandardCharsets.UTF_8);
+				data.position(data.position() + length);
+				return result;
+			}
+
+			if(scratch.length < length)
+			{
+				scratch = new byte[Math.max(length, scratch.length * 2)];
+			}
+
+			data.get(scratch, 0, length);
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+
+		private int readVarint()
+		{
+			int result = 0;
+			int shift = 0;
+			while(true)
+			{
+				byte b = data.get();
+				result |= (b & 0x7F) << shift;
+				if((b & 0x80) == 0)
+				{
+					return result;
+				}
+
+				shift += 7;
+			}
+		}
+
+		private long readVarlong()
+		{
+			long result = 0;
+			int shift = 0;
+			while(true)
+			{
+				byte b = data.get();
+				result |= (long) (b & 0x7F) << shift;
+				if((b & 0x80) == 0)
+				{
+					return result;
+				}
+
+				shift += 7;
+			}
+		}
+
+		private static int unzigzag(int value)
+		{
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		/**
+		 * Resolve a property, using the predefined instances if possible.
+		 */
+		private static TokenProperty<?> property(String id)
+		{
+			if(id.equals(TokenProperty.NORMALIZED.getId()))
+			{
+				return TokenProperty.NORMALIZED;
+			}
+			else if(id.equals(TokenProperty.LEMMA.getId()))
+			{
+				return TokenProperty.LEMMA;
+			}
+			else if(id.equals(TokenProperty.POS.getId()))
+			{
+				return TokenProperty.POS;
+			}
+			else if(id.equals(TokenProperty.EXTENDED_TYPE.getId()))
+			{
+				return TokenProperty.EXTENDED_TYPE;
+			}
+
+			return TokenProperty.define(id, Object.class);
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package se.l4.lect.events;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import se.l4.lect.Handler;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.OffsetLocation;
+import se.l4.lect.location.TextLocation;
+import se.l4.lect.location.TextOffsetLocation;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenProperty;
+
+/**
+ * {@link Handler} that writes all events it receives to an
+ * {@link OutputStream} in the binary format read by {@link EventLog}. Add it
+ * to a pipeline to store what the language parser found, and replay the log
+ * later via {@link se.l4.lect.Pipeline#replay(EventLog, Object)} without
+ * parsing the source again.
+ *
+ * <p>
+ * Locations are written as deltas from the previous location, property and
+ * attribute identifiers are only written the first time they are used. The
+ * writer records a single pass over a source and the stream is not closed
+ * when done.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class EventLogWriter
+	implements Handler
+{
+	private final OutputStream out;
+	private final Map<String, Integer> properties;
+
+	private byte[] buffer;
+	private int length;
+
+	private int lastKind;
+	private int lastOffset;
+	private int lastLine;
+	private int lastColumn;
+
+	public EventLogWriter(OutputStream out)
+	{
+		this.out = out;
+
+		properties = new HashMap<>();
+		buffer = new byte[8192];
+	}
+
+	@Override
+	public void start()
+	{
+		properties.clear();
+		lastKind = -1;
+		lastOffset = 0;
+		lastLine = 0;
+		lastColumn = 0;
+
+		for(byte b : EventLog.MAGIC)
+		{
+			writeByte(b);
+		}
+
+		writeByte(EventLog.VERSION);
+	}
+
+	@Override
+	public void startParagraph(Location location)
+	{
+		writeByte(EventLog.START_PARAGRAPH);
+		writeLocation(location);
+	}
+
+	@Override
+	public void endParagraph(Location location)
+	{
+		writeByte(EventLog.END_PARAGRAPH);
+		writeLocation(location);
+	}
+
+	@Override
+	public void startSentence(Location location)
+	{
+		writeByte(EventLog.START_SENTENCE);
+		writeLocation(location);
+	}
+
+	@Override
+	public void endSentence(Location location)
+	{
+		writeByte(EventLog.END_SENTENCE);
+		writeLocation(location);
+	}
+
+	@Override
+	public void startAttribute(Location location, TokenProperty<?> property, Object value)
+	{
+		int id = property(property.getId());
+
+		writeByte(EventLog.START_ATTRIBUTE);
+		writeLocation(location);
+		writeVarint(id);
+		writeValue(value);
+	}
+
+	@Override
+	public void endAttribute(Location location, TokenProperty<?> property)
+	{
+		int id = property(property.getId());
+
+		writeByte(EventLog.END_ATTRIBUTE);
+		writeLocation(location);
+		writeVarint(id);
+	}
+
+	@Override
+	public void token(Token token)
+	{
+		Map<String, Object> tokenProperties = token.getProperties();
+		int[] ids = null;
+		if(tokenProperties != null && ! tokenProperties.isEmpty())
+		{
+			// Define properties before the token so they can be resolved when reading
+			ids = new int[tokenProperties.size()];
+			int i = 0;
+			for(String key : tokenProperties.keySet())
+			{
+				ids[i++] = property(key);
+			}
+		}
+
+		writeByte(EventLog.TOKEN);
+		writeByte(token.getType().ordinal());
+		writeLocation(token.getStart());
+		writeLocation(token.getEnd());
+		writeString(token.getText());
+
+		if(ids == null)
+		{
+			writeVarint(0);
+		}
+		else
+		{
+			writeVarint(ids.length);
+			int i = 0;
+			for(Object value : tokenProperties.values())
+			{
+				writeVarint(ids[i++]);
+				writeValue(value);
+			}
+		}
+	}
+
+	@Override
+	public void done()
+	{
+		writeByte(EventLog.DONE);
+
+		try
+		{
+			out.write(buffer, 0, length);
+			out.flush();
+			length = 0;
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Get the identifier of a property, defining it if it has not been
+	 * used before.
+	 */
+	private int property(String name)
+	{
+		Integer id = properties.get(name);
+		if(id != null)
+		{
+			return id;
+		}
+
+		int newId = properties.size();
+		properties.put(name, newId);
+
+		writeByte(EventLog.DEFINE_PROPERTY);
+		writeString(name);
+
+		return newId;
+	}
+
+	private void writeLocation(Location location)
+	{
+		int kind;
+		int offset = lastOffset;
+		int line = lastLine;
+		int column = lastColumn;
+
+		if(location instanceof TextOffsetLocation)
+		{
+			kind = EventLog.LOCATION_TEXT_OFFSET;
+			offset = ((TextOffsetLocation) location).get();
+			line = ((TextOffsetLocation) location).getLine();
+			column = ((TextOffsetLocation) location).getColumn();
+		}
+		else if(location instanceof OffsetLocation)
+		{
+			kind = EventLog.LOCATION_OFFSET;
+			offset = ((OffsetLocation) location).get();
+		}
+		else if(location instanceof TextLocation)
+		{
+			kind = EventLog.LOCATION_TEXT;
+			line = ((TextLocation) location).getLine();
+			column = ((TextLocation) location).getColumn();
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unsupported location " + location + ", only offset and text locations can be written");
+		}
+
+		if(kind == lastKind && offset == lastOffset && line == lastLine && column == lastColumn)
+		{
+			// Same as the previous location, common for tokens following each other
+			writeByte(EventLog.LOCATION_SAME);
+			return;
+		}
+
+		writeByte(kind);
+		writeVarint(zigzag(offset - lastOffset));
+		writeVarint(zigzag(line - lastLine));
+		if(line == lastLine)
+		{
+			writeVarint(zigzag(column - lastColumn));
+		}
+		else
+		{
+			writeVarint(column);
+		}
+
+		lastKind = kind;
+		lastOffset = offset;
+		lastLine = line;
+		lastColumn = column;
+	}
+
+	private void writeValue(Object value)
+	{
+		if(value == null)
+		{
+			writeByte(EventLog.VALUE_NULL);
+		}
+		else if(value instanceof String)
+		{
+			writeByte(EventLog.VALUE_STRING);
+			writeString((String) value);
+		}
+		else if(value instanceof Boolean)
+		{
+			writeByte((Boolean) value ? EventLog.VALUE_TRUE : EventLog.VALUE_FALSE);
+		}
+		else if(value instanceof Integer)
+		{
+			writeByte(EventLog.VALUE_INT);
+			writeVarint(zigzag((Integer) value));
+		}
+		else if(value instanceof Long)
+		{
+			long v = (Long) value;
+			writeByte(EventLog.VALUE_LONG);
+			writeVarlong((v << 1) ^ (v >> 63));
+		}
+		else if(value instanceof Double)
+		{
+			writeByte(EventLog.VALUE_DOUBLE);
+			writeVarlong(Double.doubleToRawLongBits((Double) value));
+		}
+		else
+		{
+			throw new IllegalArgumentException("Unsupported value " + value + " of type " + value.getClass().getName() + ", only strings, booleans and numbers can be written");
+		}
+	}
+
+	private void writeString(String value)
+	{
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarint(bytes.length);
+
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+	}
+
+	private static int zigzag(int value)
+	{
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private void writeVarint(int value)
+	{
+		ensureCapacity(5);
+		while((value & ~0x7F) != 0)
+		{
+			buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		buffer[length++] = (byte) value;
+	}
+
+	private void writeVarlong(long value)
+	{
+		ensureCapacity(10);
+		while((value & ~0x7FL) != 0)
+		{
+			buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		buffer[length++] = (byte) value;
+	}
+
+	private void writeByte(int value)
+	{
+		ensureCapacity(1);
+		buffer[length++] = (byte) value;
+	}
+
+	/**
+	 * Make sure there is room for the given number of bytes, writing the
+	 * buffer to the stream if needed.
+	 */
+	private void ensureCapacity(int bytes)
+	{
+		if(length + bytes <= buffer.length)
+		{
+			return;
+		}
+
+		try
+		{
+			out.write(buffer, 0, length);
+			length = 0;
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		if(bytes > buffer.length)
+		{
+			buffer = Arrays.copyOf(buffer, bytes);
+		}
+	}
+}
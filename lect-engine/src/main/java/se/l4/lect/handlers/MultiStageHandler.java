@@ -7,6 +7,8 @@ import se.l4.lect.TextSource;
 
 /**
  * Extension to {@link Handler} for those handlers that need to run on {@link TextSource} more than once.
+ * The source is only parsed once, the events of the first pass are recorded
+ * and replayed for later stages.
  *
  * @author Andreas Holstenson
  *
@@ -0,0 +1,131 @@
+package se.l4.lect.handlers;
+
+import se.l4.lect.Handler;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenProperty;
+
+/**
+ * {@link Handler} that can receive locations in packed form, as an index into
+ * a {@link LocationBuffer}. Used when events are replayed from a recorded
+ * form, such as for later stages of a {@link MultiStageHandler} or when
+ * replaying an {@link se.l4.lect.events.EventLog}, to let handlers read the
+ * offset, line and column of locations without going through a
+ * {@link se.l4.lect.location.Location}.
+ *
+ * <p>
+ * When events are not replayed the regular methods of {@link Handler} are
+ * called. The default implementations of the packed methods delegate to the
+ * regular methods, so that only the methods a handler cares about need to be
+ * implemented.
+ *
+ * <p>
+ * Buffers are shared and only valid during the call they are given to.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface PackedLocationHandler
+	extends Handler
+{
+	/**
+	 * A new paragraph has been started.
+	 *
+	 * @param locations
+	 *   the buffer containing the location
+	 * @param location
+	 *   the index of the location of the paragraph
+	 */
+	default void startParagraph(LocationBuffer locations, int location)
+	{
+		startParagraph(locations.get(location));
+	}
+
+	/**
+	 * A paragraph has ended.
+	 *
+	 * @param locations
+	 *   the buffer containing the location
+	 * @param location
+	 *   the index of the location of the paragraph end
+	 */
+	default void endParagraph(LocationBuffer locations, int location)
+	{
+		endParagraph(locations.get(location));
+	}
+
+	/**
+	 * The start of a sentence has been found.
+	 *
+	 * @param locations
+	 *   the buffer containing the location
+	 * @param location
+	 *   the index of the location of the sentence
+	 */
+	default void startSentence(LocationBuffer locations, int location)
+	{
+		startSentence(locations.get(location));
+	}
+
+	/**
+	 * The end of a sentence has been found.
+	 *
+	 * @param locations
+	 *   the buffer containing the location
+	 * @param location
+	 *   the index of the location of the sentence end
+	 */
+	default void endSentence(LocationBuffer locations, int location)
+	{
+		endSentence(locations.get(location));
+	}
+
+	/**
+	 * An attribute has been set by the source.
+	 *
+	 * @param locations
+	 *   the buffer containing the location
+	 * @param location
+	 *   the index of the location where the property is started
+	 * @param property
+	 *   the property to set
+	 * @param value
+	 *   the value of the property
+	 */
+	default void startAttribute(LocationBuffer locations, int location, TokenProperty<?> property, Object value)
+	{
+		startAttribute(locations.get(location), property, value);
+	}
+
+	/**
+	 * An attribute has been cleared.
+	 *
+	 * @param locations
+	 *   the buffer containing the location
+	 * @param location
+	 *   the index of the location where the property is ended
+	 * @param property
+	 */
+	default void endAttribute(LocationBuffer locations, int location, TokenProperty<?> property)
+	{
+		endAttribute(locations.get(location), property);
+	}
+
+	/**
+	 * Token has been found.
+	 *
+	 * @param token
+	 *   the token that has been found, shared in the same way as for
+	 *   {@link Handler#token(Token)}
+	 * @param locations
+	 *   the buffer containing the locations
+	 * @param start
+	 *   the index of the start of the token
+	 * @param end
+	 *   the index of the end of the token
+	 */
+	default void token(Token token, LocationBuffer locations, int start, int end)
+	{
+		token(token);
+	}
+}
@@ -0,0 +1,105 @@
+package se.l4.lect.internal;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import se.l4.lect.LanguageEncounter;
+import se.l4.lect.LanguageFactory;
+import se.l4.lect.LanguageParser;
+import se.l4.lect.location.Location;
+import se.l4.lect.text.SubSequence;
+
+/**
+ * {@link LanguageParser} that looks up the text added since the last flush
+ * in a {@link ParagraphCache}. Cached events are replayed directly, moved to
+ * where the text is now if it has moved, otherwise the text is given to the
+ * actual parser and the events it emits are recorded before being replayed.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class CachingLanguageParser
+	implements LanguageParser
+{
+	private final ParagraphCache cache;
+	private final LanguageEncounter encounter;
+	private final LanguageParser parser;
+	private final LanguageEvents.Recorder recorder;
+
+	private final StringBuilder text;
+	private int[] offsets;
+	private Location[] locations;
+	private int chunks;
+
+	public CachingLanguageParser(ParagraphCache cache, LanguageFactory factory, LanguageEncounter encounter)
+	{
+		this.cache = cache;
+		this.encounter = encounter;
+		this.recorder = new LanguageEvents.Recorder();
+		this.parser = factory.create(recorder);
+
+		text = new StringBuilder();
+		offsets = new int[8];
+		locations = new Location[16];
+	}
+
+	@Override
+	public Locale locale()
+	{
+		return parser.locale();
+	}
+
+	@Override
+	public void text(CharSequence text, Location start, Location end)
+	{
+		if(chunks == offsets.length)
+		{
+			offsets = Arrays.copyOf(offsets, chunks * 2);
+			locations = Arrays.copyOf(locations, chunks * 4);
+		}
+
+		this.text.append(text);
+		offsets[chunks] = this.text.length();
+		locations[chunks * 2] = start.copy();
+		locations[chunks * 2 + 1] = end.copy();
+		chunks++;
+	}
+
+	@Override
+	public void flush()
+	{
+		if(chunks == 0)
+		{
+			parser.flush();
+			return;
+		}
+
+		ParagraphCache.Key key = new ParagraphCache.Key(
+			text.toString(),
+			Arrays.copyOf(offsets, chunks),
+			Arrays.copyOf(locations, chunks * 2)
+		);
+
+		if(! cache.replay(key, encounter))
+		{
+			// Not seen before, run the parser and record what it finds
+			SubSequence view = new SubSequence();
+			int offset = 0;
+			for(int i=0; i<chunks; i++)
+			{
+				parser.text(view.update(text, offset, offsets[i]), locations[i * 2], locations[i * 2 + 1]);
+				offset = offsets[i];
+			}
+
+			parser.flush();
+
+			LanguageEvents events = recorder.finish();
+			cache.put(key, events);
+			events.replay(encounter);
+		}
+
+		text.setLength(0);
+		Arrays.fill(locations, 0, chunks * 2, null);
+		chunks = 0;
+	}
+}
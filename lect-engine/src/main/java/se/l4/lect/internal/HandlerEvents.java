@@ -0,0 +1,312 @@
+package se.l4.lect.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import se.l4.lect.Handler;
+import se.l4.lect.handlers.PackedLocationHandler;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.tokens.MutableToken;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenProperty;
+import se.l4.lect.tokens.TokenType;
+
+/**
+ * {@link Handler} that records the events of a pass over a source so that
+ * they can be replayed to other handlers without parsing the source again.
+ * Used to run later stages of {@link se.l4.lect.handlers.MultiStageHandler}s.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class HandlerEvents
+	implements Handler
+{
+	private static final byte START_PARAGRAPH = 0;
+	private static final byte END_PARAGRAPH = 1;
+	private static final byte START_SENTENCE = 2;
+	private static final byte END_SENTENCE = 3;
+	private static final byte START_ATTRIBUTE = 4;
+	private static final byte END_ATTRIBUTE = 5;
+	private static final byte TOKEN = 6;
+
+	/*
+	 * Events are stored as their type and a variable number of values. The
+	 * locations of events are kept packed in a separate buffer, one for
+	 * every event except tokens which have two.
+	 */
+	private byte[] types;
+	private int events;
+
+	private Object[] values;
+	private int valueCount;
+
+	private final LocationBuffer locations;
+
+	public HandlerEvents()
+	{
+		types = new byte[1024];
+		values = new Object[1024];
+		locations = new LocationBuffer(1024);
+	}
+
+	/**
+	 * Replay all of the recorded events to the given handlers, ending with a
+	 * call to {@link Handler#done()}. Handlers that implement
+	 * {@link PackedLocationHandler} receive locations in their packed form.
+	 *
+	 * @param handlers
+	 */
+	public void replay(Handler[] handlers)
+	{
+		PackedLocationHandler[] packed = new PackedLocationHandler[handlers.length];
+		for(int i=0; i<handlers.length; i++)
+		{
+			if(handlers[i] instanceof PackedLocationHandler)
+			{
+				packed[i] = (PackedLocationHandler) handlers[i];
+			}
+		}
+
+		// Locations and the token are reused as handlers do not keep them
+		MutableToken token = new MutableToken();
+		Location first = null;
+		Location second = null;
+
+		int v = 0;
+		int l = 0;
+		for(int i=0; i<events; i++)
+		{
+			switch(types[i])
+			{
+				case START_PARAGRAPH:
+				{
+					int index = l++;
+					first = locations.view(index, first);
+					for(int j=0; j<handlers.length; j++)
+					{
+						if(packed[j] != null)
+						{
+							packed[j].startParagraph(locations, index);
+						}
+						else
+						{
+							handlers[j].startParagraph(first);
+						}
+					}
+					break;
+				}
+				case END_PARAGRAPH:
+				{
+					int index = l++;
+					first = locations.view(index, first);
+					for(int j=0; j<handlers.length; j++)
+					{
+						if(packed[j] != null)
+						{
+							packed[j].endParagraph(locations, index);
+						}
+						else
+						{
+							handlers[j].endParagraph(first);
+						}
+					}
+					break;
+				}
+				case START_SENTENCE:
+				{
+					int index = l++;
+					first = locations.view(index, first);
+					for(int j=0; j<handlers.length; j++)
+					{
+						if(packed[j] != null)
+						{
+							packed[j].startSentence(locations, index);
+						}
+						else
+						{
+							handlers[j].startSentence(first);
+						}
+					}
+					break;
+				}
+				case END_SENTENCE:
+				{
+					int index = l++;
+					first = locations.view(index, first);
+					for(int j=0; j<handlers.length; j++)
+					{
+						if(packed[j] != null)
+						{
+							packed[j].endSentence(locations, index);
+						}
+						else
+						{
+							handlers[j].endSentence(first);
+						}
+					}
+					break;
+				}
+				case START_ATTRIBUTE:
+				{
+					int index = l++;
+					first = locations.view(index, first);
+					TokenProperty<?> property = (TokenProperty<?>) values[v++];
+					Object value = values[v++];
+					for(int j=0; j<handlers.length; j++)
+					{
+						if(packed[j] != null)
+						{
+							packed[j].startAttribute(locations, index, property, value);
+						}
+						else
+						{
+							handlers[j].startAttribute(first, property, value);
+						}
+					}
+					break;
+				}
+				case END_ATTRIBUTE:
+				{
+					int index = l++;
+					first = locations.view(index, first);
+					TokenProperty<?> property = (TokenProperty<?>) values[v++];
+					for(int j=0; j<handlers.length; j++)
+					{
+						if(packed[j] != null)
+						{
+							packed[j].endAttribute(locations, index, property);
+						}
+						else
+						{
+							handlers[j].endAttribute(first, property);
+						}
+					}
+					break;
+				}
+				case TOKEN:
+				{
+					int start = l++;
+					int end = l++;
+					first = locations.view(start, first);
+					second = locations.view(end, second);
+
+					@SuppressWarnings("unchecked")
+					Map<String, Object> properties = (Map<String, Object>) values[v + 2];
+					token.update((TokenType) values[v], first, second, (String) values[v + 1], properties);
+					v += 3;
+
+					for(int j=0; j<handlers.length; j++)
+					{
+						if(packed[j] != null)
+						{
+							packed[j].token(token, locations, start, end);
+						}
+						else
+						{
+							handlers[j].token(token);
+						}
+					}
+					break;
+				}
+			}
+		}
+
+		for(Handler h : handlers)
+		{
+			h.done();
+		}
+	}
+
+	private void record(byte type)
+	{
+		if(events == types.length)
+		{
+			types = Arrays.copyOf(types, events * 2);
+		}
+
+		types[events++] = type;
+	}
+
+	private void value(Object value)
+	{
+		if(valueCount == values.length)
+		{
+			values = Arrays.copyOf(values, valueCount * 2);
+		}
+
+		values[valueCount++] = value;
+	}
+
+	@Override
+	public void start()
+	{
+		events = 0;
+		Arrays.fill(values, 0, valueCount, null);
+		valueCount = 0;
+		locations.clear();
+	}
+
+	@Override
+	public void startParagraph(Location location)
+	{
+		record(START_PARAGRAPH);
+		locations.add(location);
+	}
+
+	@Override
+	public void endParagraph(Location location)
+	{
+		record(END_PARAGRAPH);
+		locations.add(location);
+	}
+
+	@Override
+	public void startSentence(Location location)
+	{
+		record(START_SENTENCE);
+		locations.add(location);
+	}
+
+	@Override
+	public void endSentence(Location location)
+	{
+		record(END_SENTENCE);
+		locations.add(location);
+	}
+
+	@Override
+	public void startAttribute(Location location, TokenProperty<?> property, Object value)
+	{
+		record(START_ATTRIBUTE);
+		locations.add(location);
+		value(property);
+		value(value);
+	}
+
+	@Override
+	public void endAttribute(Location location, TokenProperty<?> property)
+	{
+		record(END_ATTRIBUTE);
+		locations.add(location);
+		value(property);
+	}
+
+	@Override
+	public void token(Token token)
+	{
+		record(TOKEN);
+		locations.add(token.getStart());
+		locations.add(token.getEnd());
+
+		value(token.getType());
+		value(token.getText());
+		value(token.getProperties());
+	}
+
+	@Override
+	public void done()
+	{
+	}
+}
@@ -0,0 +1,67 @@
+package se.l4.lect.internal;
+
+import java.io.IOException;
+import java.util.List;
+
+import se.l4.lect.HandlerFactory;
+import se.l4.lect.IncrementalPipeline;
+import se.l4.lect.LanguageFactory;
+import se.l4.lect.TextSource;
+import se.l4.lect.location.Location;
+import se.l4.lect.metrics.PipelineMetrics;
+
+/**
+ * Implementation of {@link IncrementalPipeline}. Runs a regular pipeline with
+ * a language that is wrapped in a {@link CachingLanguageParser}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class IncrementalPipelineImpl<Collector>
+	implements IncrementalPipeline<Collector>
+{
+	private final ParagraphCache cache;
+	private final PipelineImpl<Collector> pipeline;
+
+	public IncrementalPipelineImpl(
+			LanguageFactory languageFactory,
+			List<HandlerFactory<?>> handlers,
+			PipelineMetrics metrics)
+	{
+		cache = new ParagraphCache();
+		pipeline = new PipelineImpl<>(
+			encounter -> new CachingLanguageParser(cache, languageFactory, encounter),
+			handlers,
+			null,
+			metrics
+		);
+	}
+
+	@Override
+	public void run(TextSource source)
+		throws IOException
+	{
+		run(source, null);
+	}
+
+	@Override
+	public synchronized void run(TextSource source, Collector collector)
+		throws IOException
+	{
+		cache.startRun();
+		pipeline.run(source, collector);
+		cache.finishRun();
+	}
+
+	@Override
+	public synchronized void invalidate(Location start, Location end)
+	{
+		cache.invalidate(start, end);
+	}
+
+	@Override
+	public synchronized void invalidate()
+	{
+		cache.clear();
+	}
+}
@@ -0,0 +1,226 @@
+package se.l4.lect.internal;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import se.l4.lect.LanguageEncounter;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.tokens.MutableToken;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenType;
+
+/**
+ * Sentences and tokens emitted by a {@link se.l4.lect.LanguageParser},
+ * recorded via a {@link Recorder} so that they can be replayed later.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class LanguageEvents
+{
+	/**
+	 * Events for a flush where nothing was found.
+	 */
+	public static final LanguageEvents EMPTY = new LanguageEvents(new byte[0], new Object[0], new LocationBuffer(0));
+
+	private static final byte START_SENTENCE = 0;
+	private static final byte END_SENTENCE = 1;
+	private static final byte TOKEN = 2;
+
+	/*
+	 * Tokens are stored as three values, their type, text and properties.
+	 * Locations are packed, sentences have one location and tokens two.
+	 */
+	private final byte[] types;
+	private final Object[] values;
+	private final LocationBuffer locations;
+
+	private LanguageEvents(byte[] types, Object[] values, LocationBuffer locations)
+	{
+		this.types = types;
+		this.values = values;
+		this.locations = locations;
+	}
+
+	/**
+	 * Replay the events to the given encounter.
+	 *
+	 * @param encounter
+	 */
+	public void replay(LanguageEncounter encounter)
+	{
+		replay(encounter, null, null);
+	}
+
+	/**
+	 * Replay the events to the given encounter, moving the recorded locations
+	 * so that what was recorded relative to {@code from} is relative to
+	 * {@code to}. Used when the same text is found at a new location.
+	 *
+	 * @param encounter
+	 * @param from
+	 *   the location the events were recorded relative to, or {@code null}
+	 *   to replay the locations as they were recorded
+	 * @param to
+	 *   the location to move the events to
+	 */
+	public void replay(LanguageEncounter encounter, Location from, Location to)
+	{
+		// Locations and the token are reused as they are only valid during a call
+		MutableToken token = null;
+		Location first = null;
+		Location second = null;
+		Location movedFirst = null;
+		Location movedSecond = null;
+
+		int v = 0;
+		int l = 0;
+		for(int i=0, n=types.length; i<n; i++)
+		{
+			switch(types[i])
+			{
+				case START_SENTENCE:
+					first = locations.view(l++, first);
+					if(from != null)
+					{
+						movedFirst = RelativeLocations.rebase(first, from, to, movedFirst);
+					}
+
+					encounter.startSentence(from == null ? first : movedFirst);
+					break;
+				case END_SENTENCE:
+					first = locations.view(l++, first);
+					if(from != null)
+					{
+						movedFirst = RelativeLocations.rebase(first, from, to, movedFirst);
+					}
+
+					encounter.endSentence(from == null ? first : movedFirst);
+					break;
+				case TOKEN:
+					if(token == null)
+					{
+						token = new MutableToken();
+					}
+
+					first = locations.view(l++, first);
+					second = locations.view(l++, second);
+					if(from != null)
+					{
+						movedFirst = RelativeLocations.rebase(first, from, to, movedFirst);
+						movedSecond = RelativeLocations.rebase(second, from, to, movedSecond);
+					}
+
+					@SuppressWarnings("unchecked")
+					Map<String, Object> properties = (Map<String, Object>) values[v + 2];
+					token.update((TokenType) values[v],
+						from == null ? first : movedFirst,
+						from == null ? second : movedSecond,
+						(String) values[v + 1],
+						properties
+					);
+					v += 3;
+
+					encounter.token(token);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * {@link LanguageEncounter} that records events. Locations and tokens are
+	 * copied as they are shared by parsers.
+	 */
+	public static class Recorder
+		implements LanguageEncounter
+	{
+		private byte[] types;
+		private int events;
+
+		private Object[] values;
+		private int valueCount;
+
+		private final LocationBuffer locations;
+
+		public Recorder()
+		{
+			types = new byte[64];
+			values = new Object[64];
+			locations = new LocationBuffer(64);
+		}
+
+		/**
+		 * Get the events recorded since the last call and start recording
+		 * new events.
+		 *
+		 * @return
+		 */
+		public LanguageEvents finish()
+		{
+			if(events == 0)
+			{
+				return EMPTY;
+			}
+
+			LanguageEvents result = new LanguageEvents(
+				Arrays.copyOf(types, events),
+				Arrays.copyOf(values, valueCount),
+				locations.copy()
+			);
+
+			Arrays.fill(values, 0, valueCount, null);
+			events = 0;
+			valueCount = 0;
+			locations.clear();
+
+			return result;
+		}
+
+		private void record(byte type)
+		{
+			if(events == types.length)
+			{
+				types = Arrays.copyOf(types, events * 2);
+			}
+
+			types[events++] = type;
+		}
+
+		private void value(Object value)
+		{
+			if(valueCount == values.length)
+			{
+				values = Arrays.copyOf(values, valueCount * 2);
+			}
+
+			values[valueCount++] = value;
+		}
+
+		@Override
+		public void startSentence(Location location)
+		{
+			record(START_SENTENCE);
+			locations.add(location);
+		}
+
+		@Override
+		public void endSentence(Location location)
+		{
+			record(END_SENTENCE);
+			locations.add(location);
+		}
+
+		@Override
+		public void token(Token token)
+		{
+			record(TOKEN);
+			locations.add(token.getStart());
+			locations.add(token.getEnd());
+
+			value(token.getType());
+			value(token.getText());
+			value(token.getProperties());
+		}
+	}
+}
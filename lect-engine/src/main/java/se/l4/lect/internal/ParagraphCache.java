@@ -0,0 +1,256 @@
+package se.l4.lect.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import se.l4.lect.LanguageEncounter;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.OffsetLocation;
+
+/**
+ * Cache of the events a {@link se.l4.lect.LanguageParser} emitted for a
+ * paragraph. Paragraphs are keyed on their text and the locations of the text
+ * that was added to the parser relative to the start of the paragraph, so a
+ * paragraph that has moved is found and its events are moved to where the
+ * paragraph is now.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class ParagraphCache
+{
+	private final Map<Key, Entry> entries;
+	private int generation;
+
+	public ParagraphCache()
+	{
+		entries = new HashMap<>();
+	}
+
+	/**
+	 * Start a new run, paragraphs not used until {@link #finishRun()} is
+	 * called will be removed.
+	 */
+	public void startRun()
+	{
+		generation++;
+	}
+
+	/**
+	 * Finish a run and remove all paragraphs that were not used.
+	 */
+	public void finishRun()
+	{
+		Iterator<Entry> it = entries.values().iterator();
+		while(it.hasNext())
+		{
+			if(it.next().generation != generation)
+			{
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all paragraphs that intersect the given range.
+	 *
+	 * @param start
+	 * @param end
+	 */
+	public void invalidate(Location start, Location end)
+	{
+		Iterator<Entry> it = entries.values().iterator();
+		while(it.hasNext())
+		{
+			if(it.next().intersects(start, end))
+			{
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all paragraphs.
+	 */
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	/**
+	 * Get the number of paragraphs in the cache.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Replay the cached events for the given key to an encounter, marking
+	 * them as used.
+	 *
+	 * @return
+	 *   {@code true} if the events were cached
+	 */
+	boolean replay(Key key, LanguageEncounter encounter)
+	{
+		Entry entry = entries.get(key);
+		if(entry == null)
+		{
+			return false;
+		}
+
+		entry.use(generation, key);
+		entry.events.replay(encounter, entry.base, key.start());
+		return true;
+	}
+
+	void put(Key key, LanguageEvents events)
+	{
+		Entry entry = new Entry(events, key.start());
+		entry.use(generation, key);
+		entries.put(key, entry);
+	}
+
+	/**
+	 * Key of a paragraph, the text and the start and end of every chunk of
+	 * text added to the parser. Locations are compared relative to the start
+	 * of the paragraph if they can be moved, otherwise as they are.
+	 */
+	static class Key
+	{
+		private final String text;
+		private final int[] offsets;
+		private final Location[] locations;
+		private final Location start;
+		private final Location end;
+		private final int hashCode;
+
+		Key(String text, int[] offsets, Location[] locations)
+		{
+			this.text = text;
+			this.offsets = offsets;
+			this.locations = relativize(locations);
+
+			start = locations[0];
+			end = locations[locations.length - 1];
+
+			hashCode = text.hashCode() * 31 + Arrays.hashCode(this.locations);
+		}
+
+		private static Location[] relativize(Location[] locations)
+		{
+			Location[] result = new Location[locations.length];
+			for(int i=0, n=locations.length; i<n; i++)
+			{
+				result[i] = RelativeLocations.relativize(locations[i], locations[0]);
+				if(result[i] == null)
+				{
+					return locations;
+				}
+			}
+
+			return result;
+		}
+
+		Location start()
+		{
+			return start;
+		}
+
+		Location end()
+		{
+			return end;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj) return true;
+			if(! (obj instanceof Key)) return false;
+
+			Key other = (Key) obj;
+			return hashCode == other.hashCode
+				&& text.equals(other.text)
+				&& Arrays.equals(offsets, other.offsets)
+				&& sameLocations(locations, other.locations);
+		}
+
+		private static boolean sameLocations(Location[] a, Location[] b)
+		{
+			if(a.length != b.length) return false;
+
+			for(int i=0, n=a.length; i<n; i++)
+			{
+				if(! a[i].equals(b[i])) return false;
+
+				// Text locations are equal if their line and column are, compare the offset as well
+				if(a[i] instanceof OffsetLocation && b[i] instanceof OffsetLocation
+					&& ((OffsetLocation) a[i]).get() != ((OffsetLocation) b[i]).get())
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+
+	/**
+	 * Events recorded for a paragraph, the location they were recorded at
+	 * and where the paragraph was found during the run it was last used in.
+	 */
+	private static class Entry
+	{
+		private final LanguageEvents events;
+		private final Location base;
+		private final List<Location> ranges;
+		private int generation;
+
+		public Entry(LanguageEvents events, Location base)
+		{
+			this.events = events;
+			this.base = base;
+
+			ranges = new ArrayList<>(2);
+			generation = -1;
+		}
+
+		public void use(int generation, Key key)
+		{
+			if(this.generation != generation)
+			{
+				this.generation = generation;
+				ranges.clear();
+			}
+
+			ranges.add(key.start());
+			ranges.add(key.end());
+		}
+
+		public boolean intersects(Location start, Location end)
+		{
+			for(int i=0, n=ranges.size(); i<n; i+=2)
+			{
+				if(ranges.get(i).isSameOrBefore(end) && ranges.get(i + 1).isSameOrAfter(start))
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
+}
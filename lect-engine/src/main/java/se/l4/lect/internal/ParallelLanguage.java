@@ -0,0 +1,348 @@
+package se.l4.lect.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import se.l4.lect.LanguageEncounter;
+import se.l4.lect.LanguageFactory;
+import se.l4.lect.LanguageParser;
+import se.l4.lect.TextSourceEncounter;
+import se.l4.lect.location.Location;
+import se.l4.lect.tokens.TokenProperty;
+
+/**
+ * Runs the {@link LanguageParser} for the paragraphs of a single source in
+ * parallel.
+ *
+ * <p>
+ * The source is parsed into an encounter returned by
+ * {@link #wrap(TextSourceEncounter)}, which queues the events of the source
+ * and starts parsing the text added between every flush of the language as
+ * soon as it is known. Queued events are then passed on to the actual
+ * encounter in order, and the parser created via {@link #create(LanguageEncounter)}
+ * replays the sentences and tokens found for each flush. Handlers see the
+ * same events in the same order as when parsing serially.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class ParallelLanguage
+	implements LanguageFactory
+{
+	/**
+	 * The number of flushes that may be parsed ahead of the handlers.
+	 */
+	private static final int WINDOW = 128;
+
+	private final LanguageFactory factory;
+	private final Executor executor;
+
+	private final ConcurrentLinkedQueue<Worker> workers;
+	private volatile Locale locale;
+
+	private final ArrayDeque<Consumer<TextSourceEncounter>> events;
+	private final ArrayDeque<CompletableFuture<LanguageEvents>> results;
+
+	public ParallelLanguage(LanguageFactory factory, Executor executor)
+	{
+		this.factory = factory;
+		this.executor = executor;
+
+		workers = new ConcurrentLinkedQueue<>();
+
+		events = new ArrayDeque<>();
+		results = new ArrayDeque<>();
+	}
+
+	@Override
+	public LanguageParser create(LanguageEncounter encounter)
+	{
+		return new LanguageParser()
+		{
+			@Override
+			public Locale locale()
+			{
+				return ParallelLanguage.this.locale();
+			}
+
+			@Override
+			public void text(CharSequence text, Location start, Location end)
+			{
+				// Text has already been given to a worker
+			}
+
+			@Override
+			public void flush()
+			{
+				next().replay(encounter);
+			}
+		};
+	}
+
+	/**
+	 * Wrap the given encounter so that the source parsed into it has its
+	 * paragraphs parsed in parallel.
+	 *
+	 * @param encounter
+	 * @return
+	 */
+	public TextSourceEncounter wrap(TextSourceEncounter encounter)
+	{
+		return new QueueingEncounter(encounter);
+	}
+
+	/**
+	 * Get the locale of the language, asking the first worker for it. The
+	 * worker is kept so that it is used for parsing.
+	 */
+	private Locale locale()
+	{
+		Locale result = locale;
+		if(result == null)
+		{
+			Worker worker = poll();
+			try
+			{
+				locale = result = worker.parser.locale();
+			}
+			finally
+			{
+				workers.add(worker);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get a worker that is not in use, creating one if needed.
+	 */
+	private Worker poll()
+	{
+		Worker worker = workers.poll();
+		return worker == null ? new Worker(factory) : worker;
+	}
+
+	/**
+	 * Get the result of the oldest flush, waiting for it if needed.
+	 */
+	private LanguageEvents next()
+	{
+		try
+		{
+			return results.removeFirst().join();
+		}
+		catch(CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			else if(cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Start parsing the given chunks of text.
+	 */
+	private void submit(List<Chunk> chunks)
+	{
+		if(chunks.isEmpty())
+		{
+			results.add(CompletableFuture.completedFuture(LanguageEvents.EMPTY));
+			return;
+		}
+
+		results.add(CompletableFuture.supplyAsync(() -> {
+			Worker worker = poll();
+			try
+			{
+				return worker.parse(chunks);
+			}
+			finally
+			{
+				workers.add(worker);
+			}
+		}, executor));
+	}
+
+	/**
+	 * Pass queued events on to the given encounter until at most the given
+	 * number of flushes are waiting.
+	 */
+	private void drain(TextSourceEncounter encounter, int pending)
+	{
+		while(results.size() > pending && ! events.isEmpty())
+		{
+			events.removeFirst().accept(encounter);
+		}
+	}
+
+	/**
+	 * Encounter that queues events from the source.
+	 */
+	private class QueueingEncounter
+		implements TextSourceEncounter
+	{
+		private final TextSourceEncounter encounter;
+
+		private Location location;
+		private boolean inParagraph;
+		private List<Chunk> chunks;
+
+		public QueueingEncounter(TextSourceEncounter encounter)
+		{
+			this.encounter = encounter;
+
+			chunks = new ArrayList<>();
+		}
+
+		/**
+		 * The language will be flushed by the encounter, start parsing the
+		 * text added since the last flush.
+		 */
+		private void flush()
+		{
+			submit(chunks);
+			chunks = new ArrayList<>();
+
+			if(results.size() >= WINDOW)
+			{
+				drain(encounter, WINDOW / 2);
+			}
+		}
+
+		@Override
+		public Locale locale()
+		{
+			return ParallelLanguage.this.locale();
+		}
+
+		@Override
+		public Location location()
+		{
+			return location;
+		}
+
+		@Override
+		public void location(Location location)
+		{
+			Location copy = location.copy();
+			this.location = copy;
+			events.add(e -> e.location(copy));
+		}
+
+		@Override
+		public boolean inParagraph()
+		{
+			return inParagraph;
+		}
+
+		@Override
+		public void startParagraph()
+		{
+			inParagraph = true;
+			events.add(TextSourceEncounter::startParagraph);
+			flush();
+		}
+
+		@Override
+		public void endParagraph()
+		{
+			inParagraph = false;
+			events.add(TextSourceEncounter::endParagraph);
+			flush();
+		}
+
+		@Override
+		public void done()
+		{
+			events.add(TextSourceEncounter::done);
+			flush();
+
+			// Pass on everything that is left
+			while(! events.isEmpty())
+			{
+				events.removeFirst().accept(encounter);
+			}
+		}
+
+		@Override
+		public void text(CharSequence text, Location end)
+		{
+			String copy = text.toString();
+			Location endCopy = end.copy();
+
+			chunks.add(new Chunk(copy, location, endCopy));
+			events.add(e -> e.text(copy, endCopy));
+		}
+
+		@Override
+		public <T> void setAttribute(TokenProperty<T> attribute, T value)
+		{
+			events.add(e -> e.setAttribute(attribute, value));
+		}
+
+		@Override
+		public void clearAttribute(TokenProperty<?> attribute)
+		{
+			events.add(e -> e.clearAttribute(attribute));
+		}
+	}
+
+	/**
+	 * Text added to the language together with its location.
+	 */
+	private static class Chunk
+	{
+		private final String text;
+		private final Location start;
+		private final Location end;
+
+		public Chunk(String text, Location start, Location end)
+		{
+			this.text = text;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Parser used by a single thread at a time to parse chunks of text.
+	 */
+	private static class Worker
+	{
+		private final LanguageEvents.Recorder recorder;
+		private final LanguageParser parser;
+
+		public Worker(LanguageFactory factory)
+		{
+			recorder = new LanguageEvents.Recorder();
+			parser = factory.create(recorder);
+		}
+
+		public LanguageEvents parse(List<Chunk> chunks)
+		{
+			for(Chunk chunk : chunks)
+			{
+				parser.text(chunk.text, chunk.start, chunk.end);
+			}
+
+			parser.flush();
+			return recorder.finish();
+		}
+	}
+}
@@ -3,12 +3,15 @@ package se.l4.lect.internal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 import se.l4.lect.Handler;
 import se.l4.lect.HandlerFactory;
+import se.l4.lect.IncrementalPipeline;
 import se.l4.lect.LanguageFactory;
 import se.l4.lect.Pipeline;
 import se.l4.lect.PipelineBuilder;
+import se.l4.lect.metrics.PipelineMetrics;
 
 /**
  * Implementation of {@link PipelineBuilder}.
@@ -21,6 +24,8 @@ public class PipelineBuilderImpl<Collector>
 {
 	private final List<HandlerFactory<?>> handlers;
 	private LanguageFactory languageCreator;
+	private Executor paragraphExecutor;
+	private PipelineMetrics metrics;
 
 	public PipelineBuilderImpl()
 	{
@@ -47,11 +52,32 @@ public class PipelineBuilderImpl<Collector>
 		return this;
 	}
 
+	@Override
+	public PipelineBuilder<Collector> parallel(Executor executor)
+	{
+		this.paragraphExecutor = Objects.requireNonNull(executor, "Executor must be provided");
+		return this;
+	}
+
+	@Override
+	public PipelineBuilder<Collector> metrics(PipelineMetrics metrics)
+	{
+		this.metrics = Objects.requireNonNull(metrics, "Metrics must be provided");
+		return this;
+	}
+
 	@Override
 	public Pipeline<Collector> build()
 	{
 		Objects.requireNonNull(languageCreator, "Factory for language must be provided");
-		return new PipelineImpl<>(languageCreator, handlers);
+		return new PipelineImpl<>(languageCreator, handlers, paragraphExecutor, metrics);
+	}
+
+	@Override
+	public IncrementalPipeline<Collector> buildIncremental()
+	{
+		Objects.requireNonNull(languageCreator, "Factory for language must be provided");
+		return new IncrementalPipelineImpl<>(languageCreator, handlers, metrics);
 	}
 
 }
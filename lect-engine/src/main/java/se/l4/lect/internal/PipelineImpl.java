@@ -1,12 +1,20 @@
 package se.l4.lect.internal;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import se.l4.lect.Encounter;
 import se.l4.lect.Handler;
@@ -17,8 +25,10 @@ import se.l4.lect.LanguageParser;
 import se.l4.lect.Pipeline;
 import se.l4.lect.TextSource;
 import se.l4.lect.TextSourceEncounter;
+import se.l4.lect.events.EventLog;
 import se.l4.lect.handlers.MultiStageHandler;
 import se.l4.lect.location.Location;
+import se.l4.lect.metrics.PipelineMetrics;
 import se.l4.lect.tokens.Token;
 import se.l4.lect.tokens.TokenProperty;
 
@@ -33,13 +43,26 @@ public class PipelineImpl<Collector>
 {
 	private final LanguageFactory languageFactory;
 	private final List<HandlerFactory<?>> handlers;
+	private final Executor paragraphExecutor;
+	private final PipelineMetrics metrics;
 
 	public PipelineImpl(
 			LanguageFactory languageFactory,
 			List<HandlerFactory<?>> handlers)
+	{
+		this(languageFactory, handlers, null, null);
+	}
+
+	public PipelineImpl(
+			LanguageFactory languageFactory,
+			List<HandlerFactory<?>> handlers,
+			Executor paragraphExecutor,
+			PipelineMetrics metrics)
 	{
 		this.languageFactory = languageFactory;
 		this.handlers = handlers;
+		this.paragraphExecutor = paragraphExecutor;
+		this.metrics = metrics;
 	}
 
 	@Override
@@ -53,12 +76,123 @@ public class PipelineImpl<Collector>
 	public void run(TextSource source, Collector collector)
 		throws IOException
 	{
-		Runner runner = new Runner(handlers, collector);
+		run(source, collector, paragraphExecutor);
+	}
+
+	private void run(TextSource source, Collector collector, Executor paragraphExecutor)
+		throws IOException
+	{
+		// Parse paragraphs in parallel and replay the results to the runner if requested
+		ParallelLanguage parallel = paragraphExecutor == null ? null : new ParallelLanguage(languageFactory, paragraphExecutor);
+		Runner runner = new Runner(parallel == null ? languageFactory : parallel, handlers, collector, metrics != null);
+
+		/*
+		 * Record the events of the first pass if any handler might need
+		 * several passes, later passes replay the events instead of parsing
+		 * the source again.
+		 */
+		HandlerEvents events = null;
+		if(runner.hasMultiStageHandlers())
+		{
+			events = new HandlerEvents();
+			runner.record(events);
+		}
+
+		runner.start();
+		source.parse(parallel == null ? runner : parallel.wrap(runner));
+		runner.endFirstStage();
+
+		while(runner.hasMore())
+		{
+			runner.start();
+			runner.replay(events::replay);
+		}
+
+		runner.finish();
+	}
+
+	@Override
+	public void replay(EventLog log, Collector collector)
+	{
+		Runner runner = new Runner(languageFactory, handlers, collector, metrics != null);
+		boolean first = true;
 		while(runner.hasMore())
 		{
 			runner.start();
-			source.parse(runner);
+			runner.replay(log::replay);
+
+			if(first)
+			{
+				runner.endFirstStage();
+				first = false;
+			}
 		}
+
+		runner.finish();
+	}
+
+	@Override
+	public List<Collector> runAll(
+			Collection<? extends TextSource> sources,
+			Function<TextSource, ? extends Collector> collectors,
+			Executor executor)
+		throws IOException
+	{
+		/*
+		 * Sources waiting for their paragraphs would take up the threads
+		 * needed to parse them if they share the executor, so paragraphs are
+		 * parsed on the thread of the source in that case.
+		 */
+		Executor paragraphs = paragraphExecutor == executor ? null : paragraphExecutor;
+
+		List<CompletableFuture<Collector>> futures = new ArrayList<>(sources.size());
+		for(TextSource source : sources)
+		{
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				Collector collector = collectors.apply(source);
+				try
+				{
+					run(source, collector, paragraphs);
+				}
+				catch(IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+				return collector;
+			}, executor));
+		}
+
+		List<Collector> result = new ArrayList<>(futures.size());
+		try
+		{
+			// Wait for all sources to finish before collecting the results
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+			for(CompletableFuture<Collector> future : futures)
+			{
+				result.add(future.join());
+			}
+		}
+		catch(CompletionException e)
+		{
+			Throwable cause = e.getCause();
+			if(cause instanceof UncheckedIOException)
+			{
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			else if(cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			else if(cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+
+			throw e;
+		}
+
+		return result;
 	}
 
 	/**
@@ -73,6 +207,13 @@ public class PipelineImpl<Collector>
 		private final LanguageParser language;
 		private final List<Handler> handlers;
 
+		/**
+		 * The handlers that events are sent to, same as handlers unless
+		 * metrics are collected in which case they are measured.
+		 */
+		private final Handler[] dispatch;
+		private final RunStatistics stats;
+
 		private LinkedList<AttributeDeclaration> attributes;
 		private List<AttributeDeclaration> activeAttributes;
 
@@ -82,7 +223,7 @@ public class PipelineImpl<Collector>
 		private boolean inParagraph;
 
 		@SuppressWarnings({ "unchecked", "rawtypes" })
-		public Runner(List<HandlerFactory<?>> handlers, Collector collector)
+		public Runner(LanguageFactory languageFactory, List<HandlerFactory<?>> handlers, Collector collector, boolean measure)
 		{
 			this.collector = collector;
 
@@ -96,8 +237,28 @@ public class PipelineImpl<Collector>
 			}
 			this.handlers = instances;
 
+			dispatch = instances.toArray(new Handler[instances.size()]);
+			if(measure)
+			{
+				stats = new RunStatistics(instances);
+				for(int i=0; i<dispatch.length; i++)
+				{
+					dispatch[i] = stats.wrap(i, dispatch[i]);
+				}
+			}
+			else
+			{
+				stats = null;
+			}
+
 			// Turn the active handlers into an array to make iteration of them a bit faster
-			this.activeHandlers = instances.toArray(new Handler[instances.size()]);
+			this.activeHandlers = dispatch.clone();
+
+			if(stats != null)
+			{
+				// Count the events of the first pass
+				record(stats);
+			}
 		}
 
 		/**
@@ -107,8 +268,9 @@ public class PipelineImpl<Collector>
 		private void resolveActive()
 		{
 			List<Handler> active = new ArrayList<>();
-			for(Handler h : handlers)
+			for(int i=0, n=handlers.size(); i<n; i++)
 			{
+				Handler h = handlers.get(i);
 				if(h instanceof MultiStageHandler)
 				{
 					/*
@@ -117,7 +279,7 @@ public class PipelineImpl<Collector>
 					 */
 					if(((MultiStageHandler) h).hasMoreStages())
 					{
-						active.add(h);
+						active.add(dispatch[i]);
 					}
 				}
 			}
@@ -126,6 +288,45 @@ public class PipelineImpl<Collector>
 			this.activeHandlers = active.isEmpty() ? null : active.toArray(new Handler[active.size()]);
 		}
 
+		/**
+		 * Get if any of the handlers is a {@link MultiStageHandler}.
+		 *
+		 * @return
+		 */
+		private boolean hasMultiStageHandlers()
+		{
+			for(Handler h : handlers)
+			{
+				if(h instanceof MultiStageHandler)
+				{
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Record the events of the next pass into the given handler.
+		 */
+		private void record(Handler events)
+		{
+			activeHandlers = Arrays.copyOf(activeHandlers, activeHandlers.length + 1);
+			activeHandlers[activeHandlers.length - 1] = events;
+		}
+
+		/**
+		 * Replay recorded events to the active handlers instead of parsing
+		 * the source.
+		 */
+		private void replay(Consumer<Handler[]> events)
+		{
+			events.accept(activeHandlers);
+
+			// Resolve the handlers to run in the next step
+			resolveActive();
+		}
+
 		/**
 		 * Get if there any more handlers that need to run.
 		 * 
@@ -142,12 +343,55 @@ public class PipelineImpl<Collector>
 		 */
 		private void start()
 		{
+			if(stats != null)
+			{
+				stats.startStage();
+			}
+
 			for(int i=0, n=activeHandlers.length; i<n; i++)
 			{
 				activeHandlers[i].start();
 			}
 		}
 
+		/**
+		 * The first pass over the source has finished.
+		 */
+		private void endFirstStage()
+		{
+			if(stats != null)
+			{
+				stats.endFirstStage();
+			}
+		}
+
+		/**
+		 * All passes are done, report the metrics of the run.
+		 */
+		private void finish()
+		{
+			if(stats != null)
+			{
+				metrics.record(stats.finish());
+			}
+		}
+
+		/**
+		 * Flush the language, measuring the time it takes if needed.
+		 */
+		private void flushLanguage()
+		{
+			if(stats == null)
+			{
+				language.flush();
+				return;
+			}
+
+			long start = stats.startLanguage();
+			language.flush();
+			stats.endLanguage(start);
+		}
+
 		@Override
 		public Locale locale()
 		{
@@ -185,7 +429,7 @@ public class PipelineImpl<Collector>
 			 * Flush the language parser so it can output tokens between
 			 * paragraphs such as whitespace.
 			 */
-			language.flush();
+			flushLanguage();
 
 			// Indicate that we are within a paragraph
 			inParagraph = true;
@@ -204,7 +448,7 @@ public class PipelineImpl<Collector>
 			 * Flush the language parser so it can output the tokens within
 			 * the paragraph.
 			 */
-			language.flush();
+			flushLanguage();
 
 			// End all attributes started within the paragraph
 			endAttributes(location, true);
@@ -227,7 +471,7 @@ public class PipelineImpl<Collector>
 			 * Flush the language parser to output the last few tokens. This
 			 * may emit some extra whitespace tokens.
 			 */
-			language.flush();
+			flushLanguage();
 
 			// Tell all the handlers that we are done
 			for(int i=0, n=activeHandlers.length; i<n; i++)
@@ -0,0 +1,124 @@
+package se.l4.lect.internal;
+
+import se.l4.lect.location.Location;
+import se.l4.lect.location.MutableOffsetLocation;
+import se.l4.lect.location.MutableTextLocation;
+import se.l4.lect.location.MutableTextOffsetLocation;
+import se.l4.lect.location.OffsetLocation;
+import se.l4.lect.location.TextLocation;
+import se.l4.lect.location.TextOffsetLocation;
+
+/**
+ * Utilities for moving locations that were found relative to one location
+ * so that they are relative to another location. Supports
+ * {@link TextOffsetLocation}, {@link TextLocation} and
+ * {@link OffsetLocation}.
+ *
+ * <p>
+ * Lines and offsets are moved by the difference between the locations.
+ * Columns are only moved for locations on the same line as the location
+ * they are moved from, as columns on later lines do not depend on where the
+ * text started.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class RelativeLocations
+{
+	private RelativeLocations()
+	{
+	}
+
+	/**
+	 * Get the given location relative to a base, or {@code null} if the
+	 * locations are not of a supported type. Locations relative to the same
+	 * base are equal if they were found the same way from the base.
+	 *
+	 * @param location
+	 * @param base
+	 * @return
+	 */
+	public static Location relativize(Location location, Location base)
+	{
+		if(location instanceof TextOffsetLocation && base instanceof TextOffsetLocation)
+		{
+			return rebase(location, base, new MutableTextOffsetLocation(0, 0, 0), null);
+		}
+		else if(location instanceof TextLocation && base instanceof TextLocation)
+		{
+			return rebase(location, base, new MutableTextLocation(0, 0), null);
+		}
+		else if(location instanceof OffsetLocation && base instanceof OffsetLocation)
+		{
+			return rebase(location, base, new MutableOffsetLocation(0), null);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Move a location found relative to one location so that it is relative
+	 * to another location. Locations of unsupported types are returned as is.
+	 *
+	 * @param location
+	 *   the location to move
+	 * @param from
+	 *   the location the location was found relative to
+	 * @param to
+	 *   the location to move to
+	 * @param reuse
+	 *   location to reuse for the result, may be {@code null}
+	 * @return
+	 *   the moved location, the reused location if it was of the right type
+	 */
+	public static Location rebase(Location location, Location from, Location to, Location reuse)
+	{
+		if(location instanceof TextOffsetLocation && from instanceof TextOffsetLocation && to instanceof TextOffsetLocation)
+		{
+			TextOffsetLocation l = (TextOffsetLocation) location;
+			TextOffsetLocation f = (TextOffsetLocation) from;
+			TextOffsetLocation t = (TextOffsetLocation) to;
+
+			int offset = l.get() - f.get() + t.get();
+			int line = l.getLine() - f.getLine() + t.getLine();
+			int column = l.getLine() == f.getLine() ? l.getColumn() - f.getColumn() + t.getColumn() : l.getColumn();
+
+			if(reuse instanceof MutableTextOffsetLocation)
+			{
+				return ((MutableTextOffsetLocation) reuse).moveTo(offset, line, column);
+			}
+
+			return new MutableTextOffsetLocation(offset, line, column);
+		}
+		else if(location instanceof TextLocation && from instanceof TextLocation && to instanceof TextLocation)
+		{
+			TextLocation l = (TextLocation) location;
+			TextLocation f = (TextLocation) from;
+			TextLocation t = (TextLocation) to;
+
+			int line = l.getLine() - f.getLine() + t.getLine();
+			int column = l.getLine() == f.getLine() ? l.getColumn() - f.getColumn() + t.getColumn() : l.getColumn();
+
+			if(reuse instanceof MutableTextLocation)
+			{
+				return ((MutableTextLocation) reuse).moveTo(line, column);
+			}
+
+			return new MutableTextLocation(line, column);
+		}
+		else if(location instanceof OffsetLocation && from instanceof OffsetLocation && to instanceof OffsetLocation)
+		{
+			int offset = ((OffsetLocation) location).get() - ((OffsetLocation) from).get() + ((OffsetLocation) to).get();
+
+			if(reuse instanceof MutableOffsetLocation)
+			{
+				((MutableOffsetLocation) reuse).set(offset);
+				return reuse;
+			}
+
+			return new MutableOffsetLocation(offset);
+		}
+
+		return location;
+	}
+}
@@ -0,0 +1,352 @@
+package se.l4.lect.internal;
+
+import java.util.List;
+
+import se.l4.lect.Handler;
+import se.l4.lect.handlers.PackedLocationHandler;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.metrics.PipelineRun;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenProperty;
+
+/**
+ * Statistics collected during a single run of a pipeline when metrics have
+ * been requested. Counts events by acting as a {@link Handler} during the
+ * first stage and measures the time of the actual handlers via
+ * {@link #wrap(int, Handler)}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class RunStatistics
+	implements Handler
+{
+	private final long started;
+
+	private final String[] names;
+	private final long[] handlerNanos;
+	private long totalHandlerNanos;
+
+	private long languageNanos;
+	private long sourceNanos;
+	private int stages;
+
+	private long paragraphs;
+	private long sentences;
+	private long tokens;
+	private long characters;
+
+	public RunStatistics(List<Handler> handlers)
+	{
+		started = System.nanoTime();
+
+		names = new String[handlers.size()];
+		for(int i=0; i<names.length; i++)
+		{
+			names[i] = handlers.get(i).getClass().getName();
+		}
+
+		handlerNanos = new long[names.length];
+	}
+
+	/**
+	 * Wrap the handler at the given index so that the time spent in it is
+	 * measured. Handlers that receive packed locations are wrapped so that
+	 * they still receive them.
+	 *
+	 * @param index
+	 * @param handler
+	 * @return
+	 */
+	public Handler wrap(int index, Handler handler)
+	{
+		if(handler instanceof PackedLocationHandler)
+		{
+			return new TimedPackedHandler(index, (PackedLocationHandler) handler);
+		}
+
+		return new TimedHandler(index, handler);
+	}
+
+	/**
+	 * A new pass over the source is starting.
+	 */
+	public void startStage()
+	{
+		stages++;
+	}
+
+	/**
+	 * The first pass over the source has finished, everything that is not
+	 * spent in the language or in handlers is counted as time in the source.
+	 */
+	public void endFirstStage()
+	{
+		sourceNanos = System.nanoTime() - started - languageNanos - totalHandlerNanos;
+	}
+
+	/**
+	 * Get the current time if the language is about to be flushed.
+	 *
+	 * @return
+	 */
+	public long startLanguage()
+	{
+		return System.nanoTime() - totalHandlerNanos;
+	}
+
+	/**
+	 * The language has been flushed, count the time not spent in handlers.
+	 *
+	 * @param start
+	 *   value returned by {@link #startLanguage()}
+	 */
+	public void endLanguage(long start)
+	{
+		languageNanos += System.nanoTime() - totalHandlerNanos - start;
+	}
+
+	/**
+	 * Finish the run and create the metrics for it.
+	 *
+	 * @return
+	 */
+	public PipelineRun finish()
+	{
+		return new PipelineRun(
+			System.nanoTime() - started,
+			sourceNanos,
+			languageNanos,
+			names,
+			handlerNanos,
+			stages,
+			paragraphs,
+			sentences,
+			tokens,
+			characters
+		);
+	}
+
+	private void add(int index, long nanos)
+	{
+		handlerNanos[index] += nanos;
+		totalHandlerNanos += nanos;
+	}
+
+	@Override
+	public void start()
+	{
+	}
+
+	@Override
+	public void startParagraph(Location location)
+	{
+		paragraphs++;
+	}
+
+	@Override
+	public void endParagraph(Location location)
+	{
+	}
+
+	@Override
+	public void startSentence(Location location)
+	{
+		sentences++;
+	}
+
+	@Override
+	public void endSentence(Location location)
+	{
+	}
+
+	@Override
+	public void startAttribute(Location location, TokenProperty<?> property, Object value)
+	{
+	}
+
+	@Override
+	public void endAttribute(Location location, TokenProperty<?> property)
+	{
+	}
+
+	@Override
+	public void token(Token token)
+	{
+		tokens++;
+
+		CharSequence text = token.getTextSequence();
+		if(text != null)
+		{
+			characters += text.length();
+		}
+	}
+
+	@Override
+	public void done()
+	{
+	}
+
+	/**
+	 * Handler that measures the time spent in another handler.
+	 */
+	private class TimedHandler
+		implements Handler
+	{
+		protected final int index;
+		private final Handler handler;
+
+		public TimedHandler(int index, Handler handler)
+		{
+			this.index = index;
+			this.handler = handler;
+		}
+
+		@Override
+		public void start()
+		{
+			long t = System.nanoTime();
+			handler.start();
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void startParagraph(Location location)
+		{
+			long t = System.nanoTime();
+			handler.startParagraph(location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void endParagraph(Location location)
+		{
+			long t = System.nanoTime();
+			handler.endParagraph(location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void startSentence(Location location)
+		{
+			long t = System.nanoTime();
+			handler.startSentence(location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void endSentence(Location location)
+		{
+			long t = System.nanoTime();
+			handler.endSentence(location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void startAttribute(Location location, TokenProperty<?> property, Object value)
+		{
+			long t = System.nanoTime();
+			handler.startAttribute(location, property, value);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void endAttribute(Location location, TokenProperty<?> property)
+		{
+			long t = System.nanoTime();
+			handler.endAttribute(location, property);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void token(Token token)
+		{
+			long t = System.nanoTime();
+			handler.token(token);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void done()
+		{
+			long t = System.nanoTime();
+			handler.done();
+			add(index, System.nanoTime() - t);
+		}
+	}
+
+	/**
+	 * Handler that measures the time spent in a handler that receives packed
+	 * locations, forwarding them as they are.
+	 */
+	private class TimedPackedHandler
+		extends TimedHandler
+		implements PackedLocationHandler
+	{
+		private final PackedLocationHandler handler;
+
+		public TimedPackedHandler(int index, PackedLocationHandler handler)
+		{
+			super(index, handler);
+
+			this.handler = handler;
+		}
+
+		@Override
+		public void startParagraph(LocationBuffer locations, int location)
+		{
+			long t = System.nanoTime();
+			handler.startParagraph(locations, location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void endParagraph(LocationBuffer locations, int location)
+		{
+			long t = System.nanoTime();
+			handler.endParagraph(locations, location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void startSentence(LocationBuffer locations, int location)
+		{
+			long t = System.nanoTime();
+			handler.startSentence(locations, location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void endSentence(LocationBuffer locations, int location)
+		{
+			long t = System.nanoTime();
+			handler.endSentence(locations, location);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void startAttribute(LocationBuffer locations, int location, TokenProperty<?> property, Object value)
+		{
+			long t = System.nanoTime();
+			handler.startAttribute(locations, location, property, value);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void endAttribute(LocationBuffer locations, int location, TokenProperty<?> property)
+		{
+			long t = System.nanoTime();
+			handler.endAttribute(locations, location, property);
+			add(index, System.nanoTime() - t);
+		}
+
+		@Override
+		public void token(Token token, LocationBuffer locations, int start, int end)
+		{
+			long t = System.nanoTime();
+			handler.token(token, locations, start, end);
+			add(index, System.nanoTime() - t);
+		}
+	}
+}
@@ -0,0 +1,828 @@
+package se.l4.lect.internal.tokens;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import se.l4.lect.tokens.Token;
+
+/**
+ * Compiled form of one or more patterns. The patterns are compiled into
+ * a non-deterministic automaton where every state is identified by an
+ * {@code int}. States that consume tokens are either token states that test
+ * a single token or negation states, all other states are resolved ahead of
+ * time via {@link #getClosure(int)}.
+ *
+ * <p>
+ * Every state belongs to one of the patterns, but predicates that are equal
+ * are shared between all states so that they only need to be evaluated once
+ * per token. Predicates that require an exact text are also indexed on that
+ * text, so they can be found via the text of a token instead of being
+ * evaluated one by one.
+ *
+ * <p>
+ * Instances are immutable and shared between all matchers of a pattern.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class Automaton
+{
+	/** State that consumes a single token if its predicate matches. */
+	static final int TOKEN = 0;
+	/** State that continues in several other states without consuming. */
+	static final int SPLIT = 1;
+	/** State that consumes tokens for as long as its inner states match. */
+	static final int NEGATE = 2;
+	/** State reached when the pattern, or the inner part of a negation, matched. */
+	static final int ACCEPT = 3;
+	/** State that marks the start or end of a group without consuming. */
+	static final int GROUP = 4;
+
+	private final int[] kinds;
+	private final int[] owners;
+	private final int[] predicateIds;
+	private final Predicate<Token>[] predicates;
+	private final boolean[] literals;
+	private final String[] literalTexts;
+	private final int[][] literalPredicates;
+	private final int[] next;
+	private final int[] inner;
+	private final int[] accepts;
+	private final int[][] closures;
+	private final int[][] closureMarkers;
+	private final int[][] markers;
+
+	private final int start;
+	private final int[] patternAccepts;
+
+	private final String[] groupNames;
+	private final int[] groupOffsets;
+
+	private Automaton(Builder builder, int start, int[] patternAccepts, int[] groupOffsets)
+	{
+		int size = builder.kinds.size();
+
+		this.kinds = new int[size];
+		this.owners = new int[size];
+		this.predicateIds = new int[size];
+		this.predicates = toArray(builder.predicates);
+		this.next = new int[size];
+		this.inner = new int[size];
+		this.accepts = new int[size];
+
+		for(int i=0; i<size; i++)
+		{
+			kinds[i] = builder.kinds.get(i);
+			owners[i] = builder.owners.get(i);
+			predicateIds[i] = builder.predicateIds.get(i);
+			next[i] = builder.next.get(i);
+			inner[i] = builder.inner.get(i);
+			accepts[i] = builder.accepts.get(i);
+		}
+
+		this.literals = new boolean[predicates.length];
+		Map<String, List<Integer>> byText = new HashMap<>();
+		for(int i=0; i<predicates.length; i++)
+		{
+			String text = predicates[i] instanceof TokenNode ? ((TokenNode) predicates[i]).getLiteralText() : null;
+			if(text != null)
+			{
+				literals[i] = true;
+				byText.computeIfAbsent(text, k -> new ArrayList<>()).add(i);
+			}
+		}
+
+		// Open addressing table with at most half of the slots used
+		int slots = Integer.highestOneBit(Math.max(1, byText.size()) * 4);
+		this.literalTexts = new String[slots];
+		this.literalPredicates = new int[slots][];
+		for(Map.Entry<String, List<Integer>> e : byText.entrySet())
+		{
+			int slot = e.getKey().hashCode() & (slots - 1);
+			while(literalTexts[slot] != null)
+			{
+				slot = (slot + 1) & (slots - 1);
+			}
+
+			literalTexts[slot] = e.getKey();
+			literalPredicates[slot] = e.getValue().stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		IntSequenceTable markerTable = new IntSequenceTable();
+		this.closures = new int[size][];
+		this.closureMarkers = new int[size][];
+
+		ClosureResolver resolver = new ClosureResolver(builder, markerTable);
+		for(int i=0; i<size; i++)
+		{
+			resolver.resolve(i);
+			closures[i] = resolver.getStates();
+			closureMarkers[i] = resolver.getMarkers();
+		}
+
+		this.markers = new int[markerTable.size()][];
+		for(int i=0; i<markers.length; i++)
+		{
+			markers[i] = markerTable.get(i);
+		}
+
+		this.start = start;
+		this.patternAccepts = patternAccepts;
+		this.groupNames = builder.groupNames.toArray(new String[builder.groupNames.size()]);
+		this.groupOffsets = groupOffsets;
+	}
+
+	/**
+	 * Get the number of states in this automaton.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return kinds.length;
+	}
+
+	/**
+	 * Get the state where matching starts.
+	 *
+	 * @return
+	 */
+	public int getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * Get the number of patterns in this automaton.
+	 *
+	 * @return
+	 */
+	public int getPatternCount()
+	{
+		return patternAccepts.length;
+	}
+
+	/**
+	 * Get the total number of groups in this automaton. Groups are numbered
+	 * so that groups of the same pattern follow each other.
+	 *
+	 * @return
+	 */
+	public int getGroupCount()
+	{
+		return groupNames.length;
+	}
+
+	/**
+	 * Get the first group that belongs to the given pattern.
+	 *
+	 * @param pattern
+	 * @return
+	 */
+	int getGroupOffset(int pattern)
+	{
+		return groupOffsets[pattern];
+	}
+
+	/**
+	 * Get the number of groups in the given pattern.
+	 *
+	 * @param pattern
+	 * @return
+	 */
+	int getGroupCount(int pattern)
+	{
+		return groupOffsets[pattern + 1] - groupOffsets[pattern];
+	}
+
+	/**
+	 * Find a group in a pattern by its name.
+	 *
+	 * @param pattern
+	 * @param name
+	 * @return
+	 *   the group, or {@code -1} if the pattern has no such group
+	 */
+	int findGroup(int pattern, String name)
+	{
+		for(int i=groupOffsets[pattern], n=groupOffsets[pattern + 1]; i<n; i++)
+		{
+			if(groupNames[i].equals(name))
+			{
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Predicate<Token>[] toArray(List<Predicate<Token>> predicates)
+	{
+		// Arrays of a generic type can not be created, but only predicates of tokens are ever added
+		return (Predicate<Token>[]) predicates.toArray(new Predicate<?>[predicates.size()]);
+	}
+
+	/**
+	 * Get the number of distinct predicates in this automaton.
+	 *
+	 * @return
+	 */
+	public int getPredicateCount()
+	{
+		return predicates.length;
+	}
+
+	/**
+	 * Get if the given predicate requires an exact text and can be found via
+	 * {@link #findLiteralPredicates(CharSequence)}.
+	 *
+	 * @param predicate
+	 * @return
+	 */
+	boolean isLiteral(int predicate)
+	{
+		return literals[predicate];
+	}
+
+	/**
+	 * Find the predicates that require exactly the given text. Other
+	 * predicates that require an exact text will never match a token with
+	 * the text.
+	 *
+	 * @param text
+	 * @return
+	 *   sorted identifiers of the predicates, or {@code null} if there are
+	 *   none. The returned array must not be modified.
+	 */
+	int[] findLiteralPredicates(CharSequence text)
+	{
+		if(text == null) return null;
+
+		// Same hash as String, so the texts in the table can use their own
+		int hash = 0;
+		for(int i=0, n=text.length(); i<n; i++)
+		{
+			hash = 31 * hash + text.charAt(i);
+		}
+
+		int mask = literalTexts.length - 1;
+		int slot = hash & mask;
+		while(literalTexts[slot] != null)
+		{
+			String literal = literalTexts[slot];
+			if(literal.length() == text.length() && literal.contentEquals(text))
+			{
+				return literalPredicates[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the pattern that the given state belongs to.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int getOwner(int state)
+	{
+		return owners[state];
+	}
+
+	/**
+	 * Get if the given state is reached when its pattern has matched.
+	 *
+	 * @param state
+	 * @return
+	 */
+	boolean isPatternAccept(int state)
+	{
+		return patternAccepts[owners[state]] == state;
+	}
+
+	/**
+	 * Get the kind of the given state.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int getKind(int state)
+	{
+		return kinds[state];
+	}
+
+	/**
+	 * Get the identifier of the predicate used by the given token state.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int getPredicateId(int state)
+	{
+		return predicateIds[state];
+	}
+
+	/**
+	 * Test if the predicate with the given identifier matches a token.
+	 *
+	 * @param predicate
+	 * @param token
+	 * @return
+	 */
+	boolean test(int predicate, Token token)
+	{
+		return predicates[predicate].test(token);
+	}
+
+	/**
+	 * Get the state that follows a token or negation state.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int getNext(int state)
+	{
+		return next[state];
+	}
+
+	/**
+	 * Get the entry state of the negated part of a negation state.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int getInner(int state)
+	{
+		return inner[state];
+	}
+
+	/**
+	 * Get the state that is reached if the negated part of a negation state
+	 * matches.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int getInnerAccept(int state)
+	{
+		return accepts[state];
+	}
+
+	/**
+	 * Get all of the non-split states that can be reached from the given
+	 * state without consuming a token. The returned array is sorted and must
+	 * not be modified. A state that can be reached while passing different
+	 * group markers is included once for every set of markers, in the order
+	 * the paths are preferred.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int[] getClosure(int state)
+	{
+		return closures[state];
+	}
+
+	/**
+	 * Get the markers passed when reaching the states in the closure of a
+	 * state. The returned array is aligned with {@link #getClosure(int)} and
+	 * contains identifiers for {@link #getMarkers(int)} or {@code -1} if no
+	 * group was started or ended.
+	 *
+	 * @param state
+	 * @return
+	 */
+	int[] getClosureMarkers(int state)
+	{
+		return closureMarkers[state];
+	}
+
+	/**
+	 * Get a list of markers. Every marker is a group multiplied by two, plus
+	 * one if the group ended.
+	 *
+	 * @param id
+	 * @return
+	 */
+	int[] getMarkers(int id)
+	{
+		return markers[id];
+	}
+
+	/**
+	 * Compile the given node into an automaton.
+	 *
+	 * @param node
+	 * @return
+	 */
+	public static Automaton compile(MatcherNode node)
+	{
+		return compile(Collections.singletonList(node));
+	}
+
+	/**
+	 * Compile several nodes into a single automaton. Each node is a pattern
+	 * identified by its index in the list.
+	 *
+	 * @param nodes
+	 * @return
+	 */
+	public static Automaton compile(List<MatcherNode> nodes)
+	{
+		Builder builder = new Builder();
+
+		int[] accepts = new int[nodes.size()];
+		int[] entries = new int[nodes.size()];
+		int[] groupOffsets = new int[nodes.size() + 1];
+		for(int i=0; i<entries.length; i++)
+		{
+			builder.owner = i;
+			builder.groupStart = groupOffsets[i] = builder.groupNames.size();
+			accepts[i] = builder.add(ACCEPT, null, -1, -1, -1);
+			entries[i] = nodes.get(i).compile(builder, accepts[i]);
+		}
+
+		groupOffsets[entries.length] = builder.groupNames.size();
+
+		int start = entries.length == 1 ? entries[0] : builder.split(entries);
+		return new Automaton(builder, start, accepts, groupOffsets);
+	}
+
+	/**
+	 * Resolver for the closures of states. The arrays used while resolving
+	 * are shared between all states and only the entries touched by a
+	 * closure are reset. States are visited once for every set of markers
+	 * they are reached with, so that no path loses its markers.
+	 */
+	private static class ClosureResolver
+	{
+		private static final int[] NO_MARKERS = new int[0];
+
+		private final Builder builder;
+		private final IntSequenceTable markerTable;
+
+		/** Stamp of the closure that last visited a state. */
+		private final int[] stamps;
+		/** The markers a state was first visited with in the current closure. */
+		private final int[] visitedMarkers;
+		/** Visits of states with other markers, combined state and markers. */
+		private Set<Long> otherVisits;
+		private int stamp;
+
+		/** Found states in the high bits and the order they were found in the low bits. */
+		private long[] found;
+		private int[] foundMarkers;
+		private int count;
+
+		private int[] path;
+
+		public ClosureResolver(Builder builder, IntSequenceTable markerTable)
+		{
+			this.builder = builder;
+			this.markerTable = markerTable;
+
+			int size = builder.kinds.size();
+			stamps = new int[size];
+			visitedMarkers = new int[size];
+
+			found = new long[16];
+			foundMarkers = new int[16];
+			path = new int[8];
+		}
+
+		/**
+		 * Resolve the closure of the given state.
+		 *
+		 * @param state
+		 */
+		public void resolve(int state)
+		{
+			stamp++;
+			otherVisits = null;
+			count = 0;
+
+			visit(state, -1);
+
+			// Sort on the state, keeping the order the paths were found in
+			Arrays.sort(found, 0, count);
+		}
+
+		/**
+		 * Get the states of the last resolved closure.
+		 *
+		 * @return
+		 */
+		public int[] getStates()
+		{
+			int[] result = new int[count];
+			for(int i=0; i<count; i++)
+			{
+				result[i] = (int) (found[i] >>> 32);
+			}
+
+			return result;
+		}
+
+		/**
+		 * Get the markers of the last resolved closure, aligned with
+		 * {@link #getStates()}.
+		 *
+		 * @return
+		 */
+		public int[] getMarkers()
+		{
+			int[] result = new int[count];
+			for(int i=0; i<count; i++)
+			{
+				result[i] = foundMarkers[(int) found[i]];
+			}
+
+			return result;
+		}
+
+		private void visit(int state, int markers)
+		{
+			if(! markVisited(state, markers)) return;
+
+			switch(builder.kinds.get(state))
+			{
+				case SPLIT:
+					for(int out : builder.splits.get(state))
+					{
+						visit(out, markers);
+					}
+					break;
+				case GROUP:
+					visit(builder.next.get(state), push(markers, builder.events.get(state)));
+					break;
+				default:
+					if(count == found.length)
+					{
+						found = Arrays.copyOf(found, count * 2);
+						foundMarkers = Arrays.copyOf(foundMarkers, count * 2);
+					}
+
+					found[count] = ((long) state << 32) | count;
+					foundMarkers[count] = markers;
+					count++;
+			}
+		}
+
+		private boolean markVisited(int state, int markers)
+		{
+			if(stamps[state] != stamp)
+			{
+				stamps[state] = stamp;
+				visitedMarkers[state] = markers;
+				return true;
+			}
+
+			if(visitedMarkers[state] == markers)
+			{
+				return false;
+			}
+
+			if(otherVisits == null)
+			{
+				otherVisits = new HashSet<>();
+			}
+
+			return otherVisits.add(((long) state << 32) | (markers & 0xffffffffL));
+		}
+
+		/**
+		 * Get the markers that result from passing a marker. Only the last
+		 * start and end of every group has an effect, so the markers are kept
+		 * sorted with at most a start and an end per group. This keeps the
+		 * number of marker sets finite even if a group is passed in a loop.
+		 */
+		private int push(int markers, int marker)
+		{
+			int[] current = markers < 0 ? NO_MARKERS : markerTable.get(markers);
+			if(path.length < current.length + 2)
+			{
+				path = new int[current.length + 2];
+			}
+
+			int group = marker >>> 1;
+			boolean end = (marker & 1) == 1;
+			boolean started = false;
+
+			int length = 0;
+			for(int m : current)
+			{
+				if((m >>> 1) == group)
+				{
+					started |= (m & 1) == 0;
+				}
+				else
+				{
+					path[length++] = m;
+				}
+			}
+
+			if(! end || started)
+			{
+				// Group starts here, or started earlier and ends here
+				path[length++] = group * 2;
+			}
+
+			if(end)
+			{
+				path[length++] = marker;
+			}
+
+			Arrays.sort(path, 0, length);
+			return markerTable.intern(path, 0, length);
+		}
+	}
+
+	/**
+	 * Builder used by {@link MatcherNode}s to create their states.
+	 */
+	public static class Builder
+	{
+		private final List<Integer> kinds;
+		private final List<Integer> owners;
+		private final List<Integer> predicateIds;
+		private final List<Predicate<Token>> predicates;
+		private final Map<Predicate<Token>, Integer> predicateLookup;
+		private final List<Integer> next;
+		private final List<Integer> inner;
+		private final List<Integer> accepts;
+		private final List<int[]> splits;
+		private final List<Integer> events;
+		private final List<String> groupNames;
+		private final Map<MatcherNode, Integer> groups;
+
+		private int owner;
+		private int groupStart;
+
+		private Builder()
+		{
+			kinds = new ArrayList<>();
+			owners = new ArrayList<>();
+			predicateIds = new ArrayList<>();
+			predicates = new ArrayList<>();
+			predicateLookup = new HashMap<>();
+			next = new ArrayList<>();
+			inner = new ArrayList<>();
+			accepts = new ArrayList<>();
+			splits = new ArrayList<>();
+			events = new ArrayList<>();
+			groupNames = new ArrayList<>();
+			groups = new IdentityHashMap<>();
+		}
+
+		private int add(int kind, Predicate<Token> predicate, int next, int inner, int accept)
+		{
+			kinds.add(kind);
+			owners.add(owner);
+
+			if(predicate == null)
+			{
+				predicateIds.add(-1);
+			}
+			else
+			{
+				// Share equal predicates so that they are only evaluated once
+				Integer id = predicateLookup.get(predicate);
+				if(id == null)
+				{
+					id = predicates.size();
+					predicates.add(predicate);
+					predicateLookup.put(predicate, id);
+				}
+
+				predicateIds.add(id);
+			}
+
+			this.next.add(next);
+			this.inner.add(inner);
+			accepts.add(accept);
+			splits.add(null);
+			events.add(-1);
+			return kinds.size() - 1;
+		}
+
+		/**
+		 * Add a state that consumes a token if the predicate matches.
+		 *
+		 * @param predicate
+		 * @param next
+		 * @return
+		 */
+		public int token(Predicate<Token> predicate, int next)
+		{
+			return add(TOKEN, predicate, next, -1, -1);
+		}
+
+		/**
+		 * Add a state that continues in all of the given states.
+		 *
+		 * @param states
+		 * @return
+		 */
+		public int split(int... states)
+		{
+			int state = reserveSplit();
+			setSplit(state, states);
+			return state;
+		}
+
+		/**
+		 * Add a split state whose outgoing states will be set later via
+		 * {@link #setSplit(int, int...)}. Used to build loops.
+		 *
+		 * @return
+		 */
+		public int reserveSplit()
+		{
+			return add(SPLIT, null, -1, -1, -1);
+		}
+
+		/**
+		 * Set the outgoing states of a split state.
+		 *
+		 * @param split
+		 * @param states
+		 */
+		public void setSplit(int split, int... states)
+		{
+			splits.set(split, states.clone());
+		}
+
+		/**
+		 * Get the group for a node in the pattern currently being compiled.
+		 * Nodes may be compiled several times, such as when repeated, and will
+		 * then get the same group every time.
+		 *
+		 * @param node
+		 * @param name
+		 * @return
+		 *   the group
+		 */
+		public int group(MatcherNode node, String name)
+		{
+			Integer existing = groups.get(node);
+			if(existing != null)
+			{
+				return existing;
+			}
+
+			for(int i=groupStart; i<groupNames.size(); i++)
+			{
+				if(groupNames.get(i).equals(name))
+				{
+					throw new IllegalArgumentException("Group " + name + " is defined more than once");
+				}
+			}
+
+			groupNames.add(name);
+			groups.put(node, groupNames.size() - 1);
+			return groupNames.size() - 1;
+		}
+
+		/**
+		 * Add a state that marks the start or end of a group.
+		 *
+		 * @param group
+		 * @param end
+		 *   if the group ends at this state
+		 * @param next
+		 * @return
+		 */
+		public int marker(int group, boolean end, int next)
+		{
+			int state = add(GROUP, null, next, -1, -1);
+			events.set(state, group * 2 + (end ? 1 : 0));
+			return state;
+		}
+
+		/**
+		 * Add a state that negates the given node.
+		 *
+		 * @param node
+		 * @param next
+		 * @return
+		 */
+		public int negate(MatcherNode node, int next)
+		{
+			int accept = add(ACCEPT, null, -1, -1, -1);
+			int inner = node.compile(this, accept);
+			return add(NEGATE, null, next, inner, accept);
+		}
+	}
+}
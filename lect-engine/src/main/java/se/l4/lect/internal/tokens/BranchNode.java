@@ -1,9 +1,6 @@
 package se.l4.lect.internal.tokens;
 
 import java.util.List;
-import java.util.function.Consumer;
-
-import se.l4.lect.tokens.Token;
 
 /**
  * Node that branches out and allows matches to be done in several branches.
@@ -22,27 +19,15 @@ public class BranchNode
 	}
 
 	@Override
-	public void setNext(MatcherNode next)
+	int compile(Automaton.Builder builder, int next)
 	{
-		for(MatcherNode node : branches)
-		{
-			node.getTail().setNext(next);
-		}
-	}
-
-	@Override
-	boolean match(Token token, Consumer<MatcherNode> branchReceiver)
-	{
-		boolean matched = true;
-		for(MatcherNode node : branches)
+		int[] states = new int[branches.length];
+		for(int i=0; i<branches.length; i++)
 		{
-			if(! node.match(token, branchReceiver))
-			{
-				matched = false;
-			}
+			states[i] = branches[i].compile(builder, next);
 		}
 
-		return matched;
+		return builder.split(states);
 	}
 
 	@Override
@@ -56,7 +41,6 @@ public class BranchNode
 			if(b.length() > 1) b.append(' ');
 
 			b.append(node.toString());
-			node = node.next;
 		}
 
 		b.append(']');
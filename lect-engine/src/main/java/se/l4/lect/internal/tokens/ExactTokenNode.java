@@ -1,6 +1,6 @@
 package se.l4.lect.internal.tokens;
 
-import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import se.l4.lect.tokens.Token;
 
@@ -12,6 +12,7 @@ import se.l4.lect.tokens.Token;
  */
 public class ExactTokenNode
 	extends MatcherNode
+	implements Predicate<Token>
 {
 	private final Token token;
 
@@ -21,14 +22,32 @@ public class ExactTokenNode
 	}
 
 	@Override
-	boolean match(Token token, Consumer<MatcherNode> branchReceiver)
+	int compile(Automaton.Builder builder, int next)
 	{
-		if(token == this.token)
-		{
-			branchReceiver.accept(next);
-			return true;
-		}
+		return builder.token(this, next);
+	}
+
+	@Override
+	public boolean test(Token token)
+	{
+		return token == this.token;
+	}
 
-		return false;
+	@Override
+	public int hashCode()
+	{
+		return System.identityHashCode(token);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		return obj instanceof ExactTokenNode && ((ExactTokenNode) obj).token == token;
+	}
+
+	@Override
+	public String toString()
+	{
+		return token == TokenMatcherImpl.END ? "$" : "Exact[" + token + "]";
 	}
 }
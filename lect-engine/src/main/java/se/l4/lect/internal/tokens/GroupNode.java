@@ -0,0 +1,34 @@
+package se.l4.lect.internal.tokens;
+
+/**
+ * Node that captures the tokens matched by another node as a named group.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class GroupNode
+	extends MatcherNode
+{
+	private final String name;
+	private final MatcherNode node;
+
+	public GroupNode(String name, MatcherNode node)
+	{
+		this.name = name;
+		this.node = node;
+	}
+
+	@Override
+	int compile(Automaton.Builder builder, int next)
+	{
+		int group = builder.group(this, name);
+		int end = builder.marker(group, true, next);
+		return builder.marker(group, false, node.compile(builder, end));
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Group[" + name + ", " + node + "]";
+	}
+}
@@ -0,0 +1,135 @@
+package se.l4.lect.internal.tokens;
+
+import java.util.Arrays;
+
+/**
+ * Table that assigns a stable identifier to every unique sequence of
+ * {@code int}s added to it. Lookups of sequences that have already been
+ * added do not allocate.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class IntSequenceTable
+{
+	private int[][] values;
+	private int[] hashes;
+	private int size;
+
+	private int[] slots;
+
+	public IntSequenceTable()
+	{
+		values = new int[8][];
+		hashes = new int[8];
+		slots = new int[16];
+	}
+
+	/**
+	 * Get the number of sequences in this table.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Get the sequence with the given identifier. The returned array must not
+	 * be modified.
+	 *
+	 * @param id
+	 * @return
+	 */
+	public int[] get(int id)
+	{
+		return values[id];
+	}
+
+	/**
+	 * Get the identifier of the given sequence, adding it if it is not
+	 * already in this table.
+	 *
+	 * @param data
+	 *   array containing the sequence
+	 * @param offset
+	 *   the index of the first item in the sequence
+	 * @param length
+	 *   the number of items in the sequence
+	 * @return
+	 *   identifier of the sequence
+	 */
+	public int intern(int[] data, int offset, int length)
+	{
+		int hash = 1;
+		for(int i=offset, n=offset+length; i<n; i++)
+		{
+			hash = 31 * hash + data[i];
+		}
+
+		int mask = slots.length - 1;
+		int slot = mix(hash) & mask;
+		while(slots[slot] != 0)
+		{
+			int id = slots[slot] - 1;
+			if(hashes[id] == hash && isEqual(values[id], data, offset, length))
+			{
+				return id;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		if(size == values.length)
+		{
+			values = Arrays.copyOf(values, size * 2);
+			hashes = Arrays.copyOf(hashes, size * 2);
+		}
+
+		int id = size++;
+		values[id] = Arrays.copyOfRange(data, offset, offset + length);
+		hashes[id] = hash;
+		slots[slot] = id + 1;
+
+		if(size * 2 > slots.length)
+		{
+			rehash();
+		}
+
+		return id;
+	}
+
+	private void rehash()
+	{
+		slots = new int[slots.length * 2];
+		int mask = slots.length - 1;
+		for(int id=0; id<size; id++)
+		{
+			int slot = mix(hashes[id]) & mask;
+			while(slots[slot] != 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+
+			slots[slot] = id + 1;
+		}
+	}
+
+	private static int mix(int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean isEqual(int[] value, int[] data, int offset, int length)
+	{
+		if(value.length != length) return false;
+
+		for(int i=0; i<length; i++)
+		{
+			if(value[i] != data[offset + i]) return false;
+		}
+
+		return true;
+	}
+}
@@ -1,61 +1,32 @@
 package se.l4.lect.internal.tokens;
 
 import java.util.List;
-import java.util.function.Consumer;
-
-import se.l4.lect.tokens.Token;
 
 /**
- * Abstract base class for anything used with a {@link TokenPatternImpl} for matching via {@link TokenMatcherImpl}.
+ * Abstract base class for the nodes a {@link TokenPatternImpl} is parsed into.
+ * Nodes are compiled into an {@link Automaton} that is used by
+ * {@link TokenMatcherImpl} for the actual matching.
  *
  * @author Andreas Holstenson
  *
  */
 public abstract class MatcherNode
 {
-	protected MatcherNode next;
-
 	public MatcherNode()
 	{
 	}
 
 	/**
-	 * Set the node to evaluate after this one.
+	 * Compile this node into the given builder.
 	 *
+	 * @param builder
+	 *   the builder used to create states
 	 * @param next
-	 */
-	public void setNext(MatcherNode next)
-	{
-		this.next = next;
-	}
-
-	/**
-	 * Get the tail of this node.
-	 *
+	 *   the state that should be entered after this node has matched
 	 * @return
+	 *   the state that is the entry to this node
 	 */
-	public MatcherNode getTail()
-	{
-		MatcherNode tail = this;
-		while(tail.next != null)
-		{
-			tail = tail.next;
-		}
-		return tail;
-	}
-
-	/**
-	 * Match the node against the given token. Any branch that should be evaluated should be given to the branch
-	 * receiver.
-	 *
-	 * @param token
-	 *   the token to match
-	 * @param branchReceiver
-	 *   receiver for any branches that this node wants to evaluate after itself
-	 * @return
-	 *   if this node matched
-	 */
-	abstract boolean match(Token token, Consumer<MatcherNode> branchReceiver);
+	abstract int compile(Automaton.Builder builder, int next);
 
 	/**
 	 * Create a {@link SequenceNode} for the given nodes.
@@ -65,21 +36,6 @@ public abstract class MatcherNode
 	 */
 	public static MatcherNode createSequence(List<MatcherNode> nodes)
 	{
-		MatcherNode root = null;
-		MatcherNode parent = null;
-		for(MatcherNode node : nodes)
-		{
-			if(parent != null)
-			{
-				parent.setNext(node);
-			}
-			else
-			{
-				root = node;
-			}
-
-			parent = node;
-		}
-		return new SequenceNode(root);
+		return new SequenceNode(nodes);
 	}
 }
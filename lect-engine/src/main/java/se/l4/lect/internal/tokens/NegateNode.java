@@ -1,13 +1,10 @@
 package se.l4.lect.internal.tokens;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Consumer;
-
-import se.l4.lect.tokens.Token;
-
 /**
- * Node for negating the result of another node.
+ * Node for negating the result of another node. A negation consumes tokens
+ * for as long as they match the start of the negated node and continues when
+ * a token no longer matches it. If the negated node matches completely the
+ * negation fails.
  *
  * @author Andreas Holstenson
  *
@@ -23,10 +20,9 @@ public class NegateNode
 	}
 
 	@Override
-	boolean match(Token token, Consumer<MatcherNode> branchReceiver)
+	int compile(Automaton.Builder builder, int next)
 	{
-		Sub sub = new Sub();
-		return sub.match(token, branchReceiver);
+		return builder.negate(node, next);
 	}
 
 	@Override
@@ -34,65 +30,4 @@ public class NegateNode
 	{
 		return "Negate[" + node + "]";
 	}
-
-	private class Sub
-		extends MatcherNode
-	{
-		private List<MatcherNode> branches;
-		private MatcherNode[] tempBranches;
-
-		public Sub()
-		{
-			branches = new ArrayList<>();
-			branches.add(node);
-		}
-
-		@Override
-		boolean match(Token token, Consumer<MatcherNode> branchReceiver)
-		{
-			// Create or resize tempBranches if needed
-			if(tempBranches == null || tempBranches.length < branches.size())
-			{
-				tempBranches = new MatcherNode[Math.max(4, branches.size() * 2)];
-			}
-
-			// Copy branches into tempBranches to prepare for receiving next branches
-			branches.toArray(tempBranches);
-
-			// Match all of the current branches
-			branches.clear();
-
-			boolean somethingMatched = false;
-			for(MatcherNode n : tempBranches)
-			{
-				if(n == null) break;
-
-				somethingMatched |= n.match(token, node -> {
-					if(node != null)
-					{
-						branches.add(node);
-					}
-				});
-			}
-
-			if(somethingMatched)
-			{
-				// Need to keep on going down the branches
-				branchReceiver.accept(this);
-			}
-			else
-			{
-				// Nothing matched
-				branchReceiver.accept(NegateNode.this.next);
-			}
-
-			return true;
-		}
-
-		@Override
-		public String toString()
-		{
-			return "Negate[Sub, " + node + "]";
-		}
-	}
 }
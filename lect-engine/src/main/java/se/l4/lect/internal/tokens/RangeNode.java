@@ -1,11 +1,5 @@
 package se.l4.lect.internal.tokens;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Consumer;
-
-import se.l4.lect.tokens.Token;
-
 /**
  * Node that checks that another node matches a number of times.
  *
@@ -27,108 +21,38 @@ public class RangeNode
 	}
 
 	@Override
-	boolean match(Token token, Consumer<MatcherNode> branchReceiver)
-	{
-		Sub sub = new Sub();
-		return sub.match(token, branchReceiver);
-	}
-
-	@Override
-	public String toString()
-	{
-		return "Range[" + min + ".." + max + ", " + node + "]";
-	}
-
-	private class Sub
-		extends MatcherNode
+	int compile(Automaton.Builder builder, int next)
 	{
-		private List<MatcherNode> branches;
-		private MatcherNode[] tempBranches;
-
-		private int count;
-		private boolean lastMatched;
-		private boolean nextMatched;
-
-		public Sub()
+		int state;
+		if(max == Integer.MAX_VALUE)
 		{
-			branches = new ArrayList<>();
-			branches.add(node);
-
-			if(min == 0 && RangeNode.this.next != null)
-			{
-				branches.add(RangeNode.this.next);
-			}
+			// Unbounded, loop back to a split that either repeats or continues
+			int loop = builder.reserveSplit();
+			builder.setSplit(loop, node.compile(builder, loop), next);
+			state = loop;
 		}
-
-		@Override
-		boolean match(Token token, Consumer<MatcherNode> branchReceiver)
+		else
 		{
-			lastMatched = false;
-
-			// Create or resize tempBranches if needed
-			if(tempBranches == null || tempBranches.length < branches.size())
+			// Bounded, chain optional copies of the node
+			state = next;
+			for(int i=min; i<max; i++)
 			{
-				tempBranches = new MatcherNode[Math.max(4, branches.size() * 2)];
+				state = builder.split(node.compile(builder, state), next);
 			}
-
-			// Copy branches into tempBranches to prepare for receiving next branches
-			branches.toArray(tempBranches);
-
-			// Match all of the current branches
-			branches.clear();
-
-			boolean somethingMatched = false;
-			for(MatcherNode n : tempBranches)
-			{
-				if(n == null) break;
-
-				somethingMatched |= n.match(token, node -> {
-					if(node == null)
-					{
-						// This fully matched, increase count
-						count++;
-						lastMatched = true;
-
-						nextMatched = n == RangeNode.this.next;
-					}
-					else
-					{
-						branches.add(node);
-					}
-				});
-			}
-
-			branchReceiver.accept(this);
-
-			if(lastMatched)
-			{
-				if(count < max)
-				{
-					branches.add(node);
-				}
-
-				if(count >= min)
-				{
-					branches.add(RangeNode.this.next);
-
-					if(nextMatched)
-					{
-						branchReceiver.accept(RangeNode.this.next.next);
-					}
-					else
-					{
-						branchReceiver.accept(RangeNode.this.next);
-					}
-				}
-			}
-
-			return somethingMatched;
 		}
 
-		@Override
-		public String toString()
+		// Mandatory copies of the node
+		for(int i=0; i<min; i++)
 		{
-			return "Range[" + min + ".." + max + " @" + count + ", " + node + "]";
+			state = node.compile(builder, state);
 		}
+
+		return state;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Range[" + min + ".." + max + ", " + node + "]";
 	}
 }
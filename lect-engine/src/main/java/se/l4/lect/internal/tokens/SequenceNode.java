@@ -1,8 +1,6 @@
 package se.l4.lect.internal.tokens;
 
-import java.util.function.Consumer;
-
-import se.l4.lect.tokens.Token;
+import java.util.List;
 
 /**
  * Node that checks that an entire sequence of nodes matches.
@@ -13,23 +11,23 @@ import se.l4.lect.tokens.Token;
 public class SequenceNode
 	extends MatcherNode
 {
-	private MatcherNode root;
+	private final MatcherNode[] nodes;
 
-	public SequenceNode(MatcherNode root)
+	public SequenceNode(List<MatcherNode> nodes)
 	{
-		this.root = root;
+		this.nodes = nodes.toArray(new MatcherNode[nodes.size()]);
 	}
 
 	@Override
-	public void setNext(MatcherNode next)
+	int compile(Automaton.Builder builder, int next)
 	{
-		root.getTail().setNext(next);
-	}
-
-	@Override
-	boolean match(Token token, Consumer<MatcherNode> branchReceiver)
-	{
-		return root.match(token, branchReceiver);
+		// Compile from the last node so every node knows where to continue
+		int state = next;
+		for(int i=nodes.length-1; i>=0; i--)
+		{
+			state = nodes[i].compile(builder, state);
+		}
+		return state;
 	}
 
 	@Override
@@ -38,13 +36,11 @@ public class SequenceNode
 		StringBuilder b = new StringBuilder();
 		b.append('(');
 
-		MatcherNode node = root;
-		while(node != null)
+		for(MatcherNode node : nodes)
 		{
 			if(b.length() > 1) b.append(' ');
 
 			b.append(node.toString());
-			node = node.next;
 		}
 
 		b.append(')');
@@ -1,38 +1,176 @@
 package se.l4.lect.internal.tokens;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import se.l4.lect.tokens.ImmutableToken;
 import se.l4.lect.tokens.Token;
 import se.l4.lect.tokens.TokenMatcher;
 import se.l4.lect.tokens.TokenPattern;
+import se.l4.lect.tokens.TokenPatternSetMatcher;
 import se.l4.lect.tokens.TokenType;
 
 /**
- * Implementation of {@link TokenMatcher} that runs on top of {@link MatcherNode}s.
+ * Implementation of {@link TokenMatcher} and {@link TokenPatternSetMatcher}
+ * that runs on top of a compiled {@link Automaton}.
+ *
+ * <p>
+ * The matcher keeps a sorted set of active items. Items below the size of
+ * the automaton are states in it, items above refer to an active negation
+ * together with the set of states active within the negated part. Such sets
+ * are interned so that every combination only needs to be created once.
+ *
+ * <p>
+ * Sets of active items are in turn used as states of a deterministic
+ * automaton that is built while matching. A transition is looked up using
+ * the result of the predicates the active items need, so after warm-up
+ * adding a token evaluates every distinct predicate at most once and does
+ * not allocate. Predicates that require an exact text are looked up using
+ * the text of the token, so only those that can match are evaluated.
+ *
+ * <p>
+ * To report where matches and groups start every transition also records
+ * which items in the previous set that an item was reached from. Items
+ * keep the index of the token their match started at, and the boundaries of
+ * their groups, in arrays indexed by their position in the set. Items that
+ * have just been started do not need any data, which keeps the work per
+ * token proportional to the number of partial matches.
  *
  * @author Andreas Holstenson
  *
  */
 public class TokenMatcherImpl
-	implements TokenMatcher
+	implements TokenPatternSetMatcher
 {
 	public static final Token START = new ImmutableToken(null, null, null, null, null);
 	public static final Token END = new ImmutableToken(null, null, null, null, null);
 
-	private final MatcherNode root;
+	private static final int[] NO_MATCHES = new int[0];
+
+	/** The number of cached transitions before the cache is cleared. */
+	private static final int MAX_TRANSITIONS = 10000;
+
+	/** Group boundary that will be set to the index of the next token. */
+	private static final int PENDING = -2;
+
+	private final Automaton automaton;
 	private final boolean ignoreWhitespace;
+	private final int base;
+
+	/** Sets of items active within negations. */
+	private final IntSequenceTable configurations;
+	/** Pairs of negation state and the configuration active within it. */
+	private final IntSequenceTable negations;
+	/** Configuration a negation state starts in, or -1 if not resolved yet. */
+	private final int[] negationStarts;
+	private final int[] pair;
+
+	private final int[] startItems;
+	private final int[] startMarkers;
+
+	/** Sets of active items, each one a state in the deterministic automaton. */
+	private IntSequenceTable states;
+	private int[][] statePredicates;
+	/** Positions of the predicates of a state that are not found via their text. */
+	private int[][] stateTested;
+	/** Transitions keyed on state and the result of its predicates. */
+	private IntSequenceTable transitions;
+	private int transitionCount;
+	private int[] transitionTargets;
+	private int[][] transitionMatches;
+	private int[][] transitionEdges;
+	private int[] key;
 
-	private final List<MatcherNode> branches;
+	private final int[] predicateStamps;
+	private final boolean[] predicateResults;
+	private int stamp;
 
-	private MatcherNode[] tempBranches;
-	private boolean matched;
+	private final boolean[] patternMatched;
 
-	public TokenMatcherImpl(int flags, MatcherNode root)
+	private int startState;
+	private int current;
+	private int[] matches;
+
+	/** Index of the next token added. */
+	private int index;
+
+	/** Data about the items in the current set, valid if stamped with the generation. */
+	private int generation;
+	private int[] itemStamps;
+	private int[] itemStarts;
+	private int[] itemCaptures;
+	private int[] nextStamps;
+	private int[] nextStarts;
+	private int[] nextCaptures;
+	private final int captureStride;
+
+	private int[] matchStarts;
+	private int matchEnd;
+	private final int[] matchCaptures;
+
+	private int[][] buffers;
+
+	/** Where items found during a transition came from. */
+	private int[] foundItems;
+	private int[] foundSources;
+	private int[] foundMarkers;
+	private int foundCount;
+
+	public TokenMatcherImpl(int flags, Automaton automaton)
 	{
-		this.root = root;
-		branches = new ArrayList<>();
+		this.automaton = automaton;
+		base = automaton.size();
+
+		configurations = new IntSequenceTable();
+		negations = new IntSequenceTable();
+		negationStarts = new int[base];
+		Arrays.fill(negationStarts, -1);
+		pair = new int[2];
+
+		startItems = resolveItems(automaton.getStart());
+		startMarkers = new int[startItems.length];
+		int[] closure = automaton.getClosure(automaton.getStart());
+		int[] closureMarkers = automaton.getClosureMarkers(automaton.getStart());
+		for(int i=0; i<closure.length; i++)
+		{
+			// States reached with several sets of markers use the preferred one
+			if(i > 0 && closure[i] == closure[i - 1]) continue;
+
+			int idx = Arrays.binarySearch(startItems, item(closure[i]));
+			startMarkers[idx] = closureMarkers[i];
+		}
+
+		predicateStamps = new int[automaton.getPredicateCount()];
+		predicateResults = new boolean[automaton.getPredicateCount()];
+		patternMatched = new boolean[automaton.getPatternCount()];
+
+		int maxGroups = 0;
+		for(int i=0; i<automaton.getPatternCount(); i++)
+		{
+			maxGroups = Math.max(maxGroups, automaton.getGroupCount(i));
+		}
+		captureStride = maxGroups * 2;
+
+		itemStamps = new int[0];
+		itemStarts = new int[0];
+		itemCaptures = new int[0];
+		nextStamps = new int[0];
+		nextStarts = new int[0];
+		nextCaptures = new int[0];
+
+		matchStarts = new int[automaton.getPatternCount()];
+		matchCaptures = new int[automaton.getGroupCount() * 2];
+
+		buffers = new int[4][];
+		key = new int[8];
+
+		foundItems = new int[16];
+		foundSources = new int[16];
+		foundMarkers = new int[16];
+
+		clearCache();
+		current = startState;
+		matches = NO_MATCHES;
+		generation = 1;
 
 		ignoreWhitespace = (flags & TokenPattern.WITH_WHITESPACE) != TokenPattern.WITH_WHITESPACE;
 	}
@@ -42,47 +180,653 @@ public class TokenMatcherImpl
 	{
 		if(ignoreWhitespace && token.getType() == TokenType.WHITESPACE)
 		{
+			index++;
 			return false;
 		}
 
-		// Reset matched and add root to the active branches as it should always be matched
-		matched = false;
-		branches.add(root);
+		if(transitionCount >= MAX_TRANSITIONS)
+		{
+			// Keep memory bounded for patterns that create many combinations
+			int[] items = states.get(current);
+			clearCache();
+			current = state(items, items.length);
+		}
+
+		if(++stamp == 0)
+		{
+			Arrays.fill(predicateStamps, 0);
+			stamp = 1;
+		}
+
+		// Build a key from the state and the result of the predicates it needs
+		int[] predicates = statePredicates[current];
+		int length = 1 + ((predicates.length + 31) >>> 5);
+		if(key.length < length)
+		{
+			key = new int[length * 2];
+		}
+
+		key[0] = current;
+		Arrays.fill(key, 1, length, 0);
+
+		int[] tested = stateTested[current];
+		for(int i : tested)
+		{
+			if(test(predicates[i], token))
+			{
+				key[1 + (i >>> 5)] |= 1 << (i & 31);
+			}
+		}
+
+		if(tested.length < predicates.length)
+		{
+			// Predicates of exact texts can only match if found via the text
+			int[] literals = automaton.findLiteralPredicates(token.getTextSequence());
+			if(literals != null)
+			{
+				for(int predicate : literals)
+				{
+					int i = Arrays.binarySearch(predicates, predicate);
+					if(i >= 0 && test(predicate, token))
+					{
+						key[1 + (i >>> 5)] |= 1 << (i & 31);
+					}
+				}
+			}
+		}
+
+		int transition = transitions.intern(key, 0, length);
+		if(transition == transitionCount)
+		{
+			resolveTransition(transition, token);
+			transitionCount++;
+		}
+
+		matches = transitionMatches[transition];
+		follow(transitionEdges[transition]);
+
+		current = transitionTargets[transition];
+		index++;
+
+		return matches.length > 0;
+	}
+
+	/**
+	 * Update the starts and groups of items by following the edges of a
+	 * transition.
+	 */
+	private void follow(int[] edges)
+	{
+		int[] sourceItems = states.get(current);
+		int nextGeneration = generation + 1;
+
+		int p = 0;
+		int explicit = edges[p++];
+		for(int i=0; i<explicit; i++)
+		{
+			int slot = edges[p++];
+			int count = edges[p++];
+
+			int source = edges[p];
+			int marker = edges[p + 1];
+			int start = startOf(source);
+			for(int j=1; j<count; j++)
+			{
+				// The earliest start gives the longest match
+				int s = startOf(edges[p + j * 2]);
+				if(s < start)
+				{
+					start = s;
+					source = edges[p + j * 2];
+					marker = edges[p + j * 2 + 1];
+				}
+			}
+			p += count * 2;
+
+			nextStamps[slot] = nextGeneration;
+			nextStarts[slot] = start;
+
+			if(captureStride > 0)
+			{
+				int owner = getOwner(sourceItems[source]);
+				copyCaptures(source, sourceItems, nextCaptures, slot * captureStride, owner);
+				applyMarkers(marker, nextCaptures, slot * captureStride, automaton.getGroupOffset(owner), PENDING, index + 1);
+			}
+		}
+
+		matchEnd = index + 1;
+		for(int i=0; i<matches.length; i++)
+		{
+			int count = edges[p++];
+
+			int source = edges[p];
+			int marker = edges[p + 1];
+			int start = startOf(source);
+			for(int j=1; j<count; j++)
+			{
+				int s = startOf(edges[p + j * 2]);
+				if(s < start)
+				{
+					start = s;
+					source = edges[p + j * 2];
+					marker = edges[p + j * 2 + 1];
+				}
+			}
+			p += count * 2;
+
+			matchStarts[i] = start;
+
+			int pattern = matches[i];
+			if(automaton.getGroupCount(pattern) > 0)
+			{
+				int offset = automaton.getGroupOffset(pattern) * 2;
+				copyCaptures(source, sourceItems, matchCaptures, offset, pattern);
+				applyMarkers(marker, matchCaptures, offset, automaton.getGroupOffset(pattern), PENDING, index + 1);
+			}
+		}
+
+		// Swap in the data for the new set of items
+		int[] temp = itemStamps;
+		itemStamps = nextStamps;
+		nextStamps = temp;
+
+		temp = itemStarts;
+		itemStarts = nextStarts;
+		nextStarts = temp;
+
+		temp = itemCaptures;
+		itemCaptures = nextCaptures;
+		nextCaptures = temp;
+
+		generation = nextGeneration;
+	}
+
+	/**
+	 * Get the index of the token that the match of an item in the current set
+	 * started at. Items without data have just been started.
+	 */
+	private int startOf(int slot)
+	{
+		return itemStamps[slot] == generation ? itemStarts[slot] : index;
+	}
+
+	private void copyCaptures(int slot, int[] items, int[] target, int offset, int pattern)
+	{
+		int n = automaton.getGroupCount(pattern) * 2;
+		if(itemStamps[slot] == generation)
+		{
+			int sourceOffset = slot * captureStride;
+			for(int i=0; i<n; i++)
+			{
+				int value = itemCaptures[sourceOffset + i];
+				target[offset + i] = value == PENDING ? index : value;
+			}
+		}
+		else
+		{
+			// Item was just started, only the groups it started with apply
+			Arrays.fill(target, offset, offset + n, -1);
+
+			int idx = Arrays.binarySearch(startItems, items[slot]);
+			if(idx >= 0)
+			{
+				applyMarkers(startMarkers[idx], target, offset, automaton.getGroupOffset(pattern), index, index);
+			}
+		}
+	}
+
+	private void applyMarkers(int marker, int[] target, int offset, int groupOffset, int startValue, int endValue)
+	{
+		if(marker < 0) return;
+
+		for(int m : automaton.getMarkers(marker))
+		{
+			int i = offset + ((m >>> 1) - groupOffset) * 2;
+			if((m & 1) == 0)
+			{
+				target[i] = startValue;
+				target[i + 1] = -1;
+			}
+			else
+			{
+				if(target[i] == PENDING)
+				{
+					// Group ended without any tokens
+					target[i] = endValue;
+				}
+
+				target[i + 1] = endValue;
+			}
+		}
+	}
+
+	private void clearCache()
+	{
+		states = new IntSequenceTable();
+		statePredicates = new int[16][];
+		stateTested = new int[16][];
+		transitions = new IntSequenceTable();
+		transitionCount = 0;
+		transitionTargets = new int[16];
+		transitionMatches = new int[16][];
+		transitionEdges = new int[16][];
+
+		startState = state(startItems, startItems.length);
+	}
+
+	/**
+	 * Resolve the transition from the current state by moving all of its
+	 * items forward with the given token.
+	 */
+	private void resolveTransition(int transition, Token token)
+	{
+		int[] items = states.get(current);
+
+		foundCount = 0;
+		int count = step(items, items.length, token, 0);
+		int[] buffer = buffers[0];
+
+		int matchCount = 0;
+		for(int i=0; i<count; i++)
+		{
+			int item = buffer[i];
+			if(isPatternAccept(item))
+			{
+				patternMatched[automaton.getOwner(item)] = true;
+				matchCount++;
+			}
+		}
+
+		int[] result = NO_MATCHES;
+		if(matchCount > 0)
+		{
+			// Accept states are created in pattern order, so the result is sorted
+			result = new int[matchCount];
+			int idx = 0;
+			for(int i=0; i<count; i++)
+			{
+				int item = buffer[i];
+				if(isPatternAccept(item))
+				{
+					result[idx++] = automaton.getOwner(item);
+				}
+			}
+
+			// Patterns reset when they match, so drop their active items
+			int kept = 0;
+			for(int i=0; i<count; i++)
+			{
+				int item = buffer[i];
+				if(! patternMatched[getOwner(item)])
+				{
+					buffer[kept++] = item;
+				}
+			}
+			count = kept;
+
+			for(int pattern : result)
+			{
+				patternMatched[pattern] = false;
+			}
+		}
+
+		// Add the start items as a match can begin at any token
+		for(int item : startItems)
+		{
+			count = append(0, count, item);
+		}
+		count = sortUnique(buffers[0], count);
+
+		if(transition == transitionTargets.length)
+		{
+			transitionTargets = Arrays.copyOf(transitionTargets, transition * 2);
+			transitionMatches = Arrays.copyOf(transitionMatches, transition * 2);
+			transitionEdges = Arrays.copyOf(transitionEdges, transition * 2);
+		}
+
+		int target = state(buffers[0], count);
+		transitionTargets[transition] = target;
+		transitionMatches[transition] = result;
+		transitionEdges[transition] = resolveEdges(states.get(target), result);
+	}
+
+	/**
+	 * Resolve the edges of a transition. The edges are stored as the number
+	 * of items reached from an item in the previous set, followed by the
+	 * position of each such item in the new set, how many items it was
+	 * reached from and pairs of previous position and markers. After this
+	 * the same follows for each match, but without the position.
+	 */
+	private int[] resolveEdges(int[] targetItems, int[] result)
+	{
+		// Sort what was found on where it ended up, keeping the order it was found in
+		long[] keys = new long[foundCount];
+		int keyCount = 0;
+		for(int i=0; i<foundCount; i++)
+		{
+			int item = foundItems[i];
+			int position;
+			if(isPatternAccept(item))
+			{
+				position = targetItems.length + Arrays.binarySearch(result, automaton.getOwner(item));
+			}
+			else if(Arrays.binarySearch(result, getOwner(item)) >= 0)
+			{
+				// The pattern matched and was reset, start items of it begin at the next token
+				continue;
+			}
+			else
+			{
+				position = Arrays.binarySearch(targetItems, item);
+			}
+
+			keys[keyCount++] = ((long) position << 32) | i;
+		}
+
+		Arrays.sort(keys, 0, keyCount);
+
+		int[] edges = new int[1 + keyCount * 4];
+		int p = 1;
+		int explicit = 0;
+		for(int i=0; i<keyCount; )
+		{
+			int position = (int) (keys[i] >>> 32);
+			int end = i;
+			while(end < keyCount && (int) (keys[end] >>> 32) == position)
+			{
+				end++;
+			}
+
+			if(position < targetItems.length)
+			{
+				edges[p++] = position;
+				explicit++;
+			}
+
+			edges[p++] = end - i;
+			for(; i<end; i++)
+			{
+				int found = (int) keys[i];
+				edges[p++] = foundSources[found];
+				edges[p++] = foundMarkers[found];
+			}
+		}
+
+		edges[0] = explicit;
+		return Arrays.copyOf(edges, p);
+	}
+
+	private boolean isPatternAccept(int item)
+	{
+		return item < base && automaton.getKind(item) == Automaton.ACCEPT && automaton.isPatternAccept(item);
+	}
+
+	/**
+	 * Get the state for the given set of items, resolving the predicates it
+	 * needs if it is new.
+	 */
+	private int state(int[] items, int count)
+	{
+		int state = states.intern(items, 0, count);
+		if(state == statePredicates.length)
+		{
+			statePredicates = Arrays.copyOf(statePredicates, state * 2);
+			stateTested = Arrays.copyOf(stateTested, state * 2);
+		}
+
+		if(statePredicates[state] == null)
+		{
+			boolean[] used = new boolean[automaton.getPredicateCount()];
+			markPredicates(states.get(state), used);
+
+			int total = 0;
+			for(boolean u : used)
+			{
+				if(u) total++;
+			}
+
+			int[] predicates = new int[total];
+			int idx = 0;
+			int tested = 0;
+			for(int i=0; i<used.length; i++)
+			{
+				if(used[i])
+				{
+					if(! automaton.isLiteral(i)) tested++;
+					predicates[idx++] = i;
+				}
+			}
+
+			int[] positions = new int[tested];
+			idx = 0;
+			for(int i=0; i<predicates.length; i++)
+			{
+				if(! automaton.isLiteral(predicates[i])) positions[idx++] = i;
+			}
+
+			statePredicates[state] = predicates;
+			stateTested[state] = positions;
+
+			if(count > itemStamps.length)
+			{
+				// Make room for data about every item in the set
+				itemStamps = Arrays.copyOf(itemStamps, count);
+				itemStarts = Arrays.copyOf(itemStarts, count);
+				itemCaptures = Arrays.copyOf(itemCaptures, count * captureStride);
+				nextStamps = Arrays.copyOf(nextStamps, count);
+				nextStarts = Arrays.copyOf(nextStarts, count);
+				nextCaptures = Arrays.copyOf(nextCaptures, count * captureStride);
+			}
+		}
+
+		return state;
+	}
 
-		// Create or resize tempBranches if needed
-		if(tempBranches == null || tempBranches.length < branches.size())
+	private void markPredicates(int[] items, boolean[] used)
+	{
+		for(int item : items)
 		{
-			tempBranches = new MatcherNode[Math.max(4, branches.size() * 2)];
+			if(item < base)
+			{
+				if(automaton.getKind(item) == Automaton.TOKEN)
+				{
+					used[automaton.getPredicateId(item)] = true;
+				}
+			}
+			else
+			{
+				markPredicates(configurations.get(negations.get(item - base)[1]), used);
+			}
 		}
+	}
 
-		// Copy branches into tempBranches to prepare for receiving next branches
-		branches.toArray(tempBranches);
+	private boolean test(int predicate, Token token)
+	{
+		if(predicateStamps[predicate] != stamp)
+		{
+			predicateResults[predicate] = automaton.test(predicate, token);
+			predicateStamps[predicate] = stamp;
+		}
+
+		return predicateResults[predicate];
+	}
 
-		// Match all of the current branches
-		branches.clear();
-		for(MatcherNode n : tempBranches)
+	private int getOwner(int item)
+	{
+		return automaton.getOwner(item < base ? item : negations.get(item - base)[0]);
+	}
+
+	/**
+	 * Move the given items forward with a token, placing the resulting items
+	 * in the buffer for the given depth. For the top level set it is also
+	 * recorded which item every new item was found from.
+	 *
+	 * @return
+	 *   the number of resulting items
+	 */
+	private int step(int[] items, int size, Token token, int depth)
+	{
+		if(depth >= buffers.length)
+		{
+			buffers = Arrays.copyOf(buffers, depth * 2);
+		}
+
+		int count = 0;
+		for(int i=0; i<size; i++)
 		{
-			if(n == null) break;
+			int item = items[i];
+			int source = depth == 0 ? i : -1;
+			if(item < base)
+			{
+				if(automaton.getKind(item) == Automaton.TOKEN && test(automaton.getPredicateId(item), token))
+				{
+					count = expand(automaton.getNext(item), depth, count, source);
+				}
+			}
+			else
+			{
+				int[] negation = negations.get(item - base);
+				int state = negation[0];
+				int[] inner = configurations.get(negation[1]);
 
-			n.match(token, node -> {
-				if(node == null)
+				int innerCount = step(inner, inner.length, token, depth + 1);
+				int[] innerItems = buffers[depth + 1];
+				if(contains(innerItems, innerCount, automaton.getInnerAccept(state)))
 				{
-					matched = true;
+					// The negated part matched, so the negation fails
+					continue;
+				}
+				else if(innerCount == 0)
+				{
+					// The negated part no longer matches, continue after the negation
+					count = expand(automaton.getNext(state), depth, count, source);
 				}
 				else
 				{
-					branches.add(node);
+					int configuration = configurations.intern(innerItems, 0, innerCount);
+					int next = negationItem(state, configuration);
+					count = append(depth, count, next);
+					found(next, source, -1);
 				}
-			});
+			}
+		}
+
+		if(count == 0) return 0;
+
+		return sortUnique(buffers[depth], count);
+	}
+
+	/**
+	 * Sort and remove duplicates to keep a set of items canonical.
+	 */
+	private static int sortUnique(int[] buffer, int count)
+	{
+		if(count == 0) return 0;
+
+		Arrays.sort(buffer, 0, count);
+		int unique = 1;
+		for(int i=1; i<count; i++)
+		{
+			if(buffer[i] != buffer[unique - 1])
+			{
+				buffer[unique++] = buffer[i];
+			}
+		}
+
+		return unique;
+	}
+
+	private int expand(int state, int depth, int count, int source)
+	{
+		int[] closure = automaton.getClosure(state);
+		int[] markers = automaton.getClosureMarkers(state);
+		for(int i=0; i<closure.length; i++)
+		{
+			int item = item(closure[i]);
+			count = append(depth, count, item);
+			found(item, source, markers[i]);
+		}
+
+		return count;
+	}
+
+	private void found(int item, int source, int marker)
+	{
+		if(source < 0) return;
+
+		if(foundCount == foundItems.length)
+		{
+			foundItems = Arrays.copyOf(foundItems, foundCount * 2);
+			foundSources = Arrays.copyOf(foundSources, foundCount * 2);
+			foundMarkers = Arrays.copyOf(foundMarkers, foundCount * 2);
+		}
+
+		foundItems[foundCount] = item;
+		foundSources[foundCount] = source;
+		foundMarkers[foundCount] = marker;
+		foundCount++;
+	}
+
+	private int append(int depth, int count, int item)
+	{
+		int[] buffer = buffers[depth];
+		if(buffer == null)
+		{
+			buffer = buffers[depth] = new int[Math.max(8, startItems.length * 2)];
+		}
+		else if(count == buffer.length)
+		{
+			buffer = buffers[depth] = Arrays.copyOf(buffer, count * 2);
+		}
+
+		buffer[count] = item;
+		return count + 1;
+	}
+
+	private int item(int state)
+	{
+		if(automaton.getKind(state) == Automaton.NEGATE)
+		{
+			return negationItem(state, negationStart(state));
+		}
+
+		return state;
+	}
+
+	private int negationItem(int state, int configuration)
+	{
+		pair[0] = state;
+		pair[1] = configuration;
+		return base + negations.intern(pair, 0, 2);
+	}
+
+	private int negationStart(int state)
+	{
+		int configuration = negationStarts[state];
+		if(configuration < 0)
+		{
+			int[] items = resolveItems(automaton.getInner(state));
+			configuration = negationStarts[state] = configurations.intern(items, 0, items.length);
 		}
 
-		if(matched)
+		return configuration;
+	}
+
+	private int[] resolveItems(int state)
+	{
+		int[] closure = automaton.getClosure(state);
+		int[] items = new int[closure.length];
+		for(int i=0; i<closure.length; i++)
 		{
-			// The matcher should reset if it matched
-			branches.clear();
+			items[i] = item(closure[i]);
 		}
 
-		return matched;
+		return Arrays.copyOf(items, sortUnique(items, items.length));
+	}
+
+	private static boolean contains(int[] items, int size, int item)
+	{
+		return size > 0 && Arrays.binarySearch(items, 0, size, item) >= 0;
 	}
 
 	@Override
@@ -94,14 +838,99 @@ public class TokenMatcherImpl
 	@Override
 	public void reset()
 	{
-		branches.clear();
-		matched = false;
+		current = startState;
+		matches = NO_MATCHES;
+		index = 0;
+		generation++;
 	}
 
 	@Override
 	public boolean isMatch()
 	{
-		return matched;
+		return matches.length > 0;
 	}
 
+	@Override
+	public int getMatchCount()
+	{
+		return matches.length;
+	}
+
+	@Override
+	public int getMatch(int index)
+	{
+		checkMatch(index);
+		return matches[index];
+	}
+
+	@Override
+	public int getMatchStart()
+	{
+		return getMatchStart(0);
+	}
+
+	@Override
+	public int getMatchEnd()
+	{
+		return getMatchEnd(0);
+	}
+
+	@Override
+	public int getGroupStart(String group)
+	{
+		return getGroupStart(0, group);
+	}
+
+	@Override
+	public int getGroupEnd(String group)
+	{
+		return getGroupEnd(0, group);
+	}
+
+	@Override
+	public int getMatchStart(int index)
+	{
+		checkMatch(index);
+		return matchStarts[index];
+	}
+
+	@Override
+	public int getMatchEnd(int index)
+	{
+		checkMatch(index);
+		return matchEnd;
+	}
+
+	@Override
+	public int getGroupStart(int index, String group)
+	{
+		return matchCaptures[findGroup(index, group) * 2];
+	}
+
+	@Override
+	public int getGroupEnd(int index, String group)
+	{
+		return matchCaptures[findGroup(index, group) * 2 + 1];
+	}
+
+	private int findGroup(int index, String group)
+	{
+		checkMatch(index);
+
+		int result = automaton.findGroup(matches[index], group);
+		if(result < 0)
+		{
+			throw new IllegalArgumentException("Pattern does not have a group named " + group);
+		}
+
+		return result;
+	}
+
+	private void checkMatch(int index)
+	{
+		if(index < 0 || index >= matches.length)
+		{
+			throw new IndexOutOfBoundsException("No match at index " + index);
+		}
+	}
 }
@@ -1,11 +1,15 @@
 package se.l4.lect.internal.tokens;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenProperty;
 import se.l4.lect.tokens.TokenType;
 
 /**
@@ -16,18 +20,42 @@ import se.l4.lect.tokens.TokenType;
  */
 public class TokenNode
 	extends MatcherNode
+	implements Predicate<Token>
 {
 	private final TokenType type;
 	private final Map<String, Object> properties;
+	private final Check[] checks;
+	private final String literalText;
 
 	public TokenNode(TokenType type, Map<String, Object> properties)
 	{
 		this.type = type;
 		this.properties = properties;
+		this.checks = compileChecks(properties);
+
+		Object text = properties == null ? null : properties.get("text");
+		this.literalText = text == null || text instanceof Pattern ? null : text.toString();
+	}
+
+	/**
+	 * Get the exact text a token must have to match this node.
+	 *
+	 * @return
+	 *   the text, or {@code null} if this node does not require an exact text
+	 */
+	public String getLiteralText()
+	{
+		return literalText;
+	}
+
+	@Override
+	int compile(Automaton.Builder builder, int next)
+	{
+		return builder.token(this, next);
 	}
 
 	@Override
-	boolean match(Token token, Consumer<MatcherNode> branchReceiver)
+	public boolean test(Token token)
 	{
 		if(token == TokenMatcherImpl.START || token == TokenMatcherImpl.END)
 		{
@@ -39,47 +67,189 @@ public class TokenNode
 			return false;
 		}
 
-		if(properties != null)
+		for(Check check : checks)
 		{
-			for(Map.Entry<String, Object> e : properties.entrySet())
+			if(! check.test(token))
 			{
-				if("text".equals(e.getKey()))
-				{
-					// Check the text of the token
-					if(! isEqual(token.getText(), e.getValue()))
-					{
-						return false;
-					}
-				}
-				else
-				{
-					// TODO: Check the actual property
-				}
+				return false;
 			}
 		}
 
-		branchReceiver.accept(next);
-
 		return true;
 	}
 
-	private boolean isEqual(Object value, Object expected)
+	/**
+	 * Compile the properties of a token into checks. Properties are resolved
+	 * once so matching does not need to look at the property names. Checks
+	 * for exact values are placed before regular expressions as they are
+	 * cheaper.
+	 */
+	private static Check[] compileChecks(Map<String, Object> properties)
 	{
-		if(expected instanceof Pattern)
+		if(properties == null) return new Check[0];
+
+		List<Check> exact = new ArrayList<>();
+		List<Check> patterns = new ArrayList<>();
+		for(Map.Entry<String, Object> e : properties.entrySet())
 		{
-			if(value instanceof CharSequence)
+			Object value = e.getValue();
+			Check check = "text".equals(e.getKey())
+				? textCheck(value)
+				: propertyCheck(resolveProperty(e.getKey()), value);
+
+			if(value instanceof Pattern)
 			{
-				return ((Pattern) expected).matcher((CharSequence) value).matches();
+				patterns.add(check);
 			}
 			else
 			{
-				return false;
+				exact.add(check);
 			}
 		}
+
+		exact.addAll(patterns);
+		return exact.toArray(new Check[exact.size()]);
+	}
+
+	private static Check textCheck(Object value)
+	{
+		if(value instanceof Pattern)
+		{
+			Pattern pattern = (Pattern) value;
+			return token -> {
+				CharSequence text = token.getTextSequence();
+				return text != null && pattern.matcher(text).matches();
+			};
+		}
+		else if(value == null)
+		{
+			return token -> token.getTextSequence() == null;
+		}
 		else
 		{
-			return Objects.equals(value, expected);
+			String expected = value.toString();
+			return token -> {
+				CharSequence text = token.getTextSequence();
+				return text != null && text.length() == expected.length() && expected.contentEquals(text);
+			};
+		}
+	}
+
+	private static Check propertyCheck(TokenProperty<?> property, Object value)
+	{
+		if(value instanceof Pattern)
+		{
+			Pattern pattern = (Pattern) value;
+			return token -> {
+				CharSequence data = asSequence(token.get(property));
+				return data != null && pattern.matcher(data).matches();
+			};
+		}
+		else if(value == null)
+		{
+			// Properties without a value only need to be set, such as flags
+			return token -> {
+				Object data = token.get(property);
+				return data != null && ! Boolean.FALSE.equals(data);
+			};
+		}
+		else
+		{
+			String expected = value.toString();
+			return token -> {
+				CharSequence data = asSequence(token.get(property));
+				return data != null && data.length() == expected.length() && expected.contentEquals(data);
+			};
+		}
+	}
+
+	private static CharSequence asSequence(Object value)
+	{
+		if(value == null || value instanceof CharSequence)
+		{
+			return (CharSequence) value;
+		}
+
+		return value.toString();
+	}
+
+	private static TokenProperty<?> resolveProperty(String name)
+	{
+		switch(name)
+		{
+			case "normalized":
+				return TokenProperty.NORMALIZED;
+			case "lemma":
+				return TokenProperty.LEMMA;
+			case "pos":
+				return TokenProperty.POS;
+			case "extendedType":
+				return TokenProperty.EXTENDED_TYPE;
+			default:
+				// Properties are looked up using their id, so define one for custom properties
+				return TokenProperty.define(name, Object.class);
+		}
+	}
+
+	/**
+	 * Check of a single property of a token.
+	 */
+	private interface Check
+	{
+		boolean test(Token token);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int result = Objects.hashCode(type);
+		if(properties != null)
+		{
+			for(Map.Entry<String, Object> e : properties.entrySet())
+			{
+				Object value = e.getValue();
+				result += e.getKey().hashCode() ^ (value instanceof Pattern ? ((Pattern) value).pattern().hashCode() : Objects.hashCode(value));
+			}
 		}
+
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if(this == obj) return true;
+		if(obj == null || getClass() != obj.getClass()) return false;
+
+		TokenNode other = (TokenNode) obj;
+		if(type != other.type) return false;
+
+		Map<String, Object> a = properties == null ? Collections.emptyMap() : properties;
+		Map<String, Object> b = other.properties == null ? Collections.emptyMap() : other.properties;
+		if(! a.keySet().equals(b.keySet())) return false;
+
+		for(Map.Entry<String, Object> e : a.entrySet())
+		{
+			if(! isSameValue(e.getValue(), b.get(e.getKey())))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isSameValue(Object a, Object b)
+	{
+		if(a instanceof Pattern && b instanceof Pattern)
+		{
+			// Patterns do not implement equals, compare their source and flags
+			Pattern pa = (Pattern) a;
+			Pattern pb = (Pattern) b;
+			return pa.pattern().equals(pb.pattern()) && pa.flags() == pb.flags();
+		}
+
+		return Objects.equals(a, b);
 	}
 
 	@Override
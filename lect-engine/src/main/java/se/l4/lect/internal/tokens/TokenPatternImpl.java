@@ -13,18 +13,18 @@ public class TokenPatternImpl
 	implements TokenPattern
 {
 	private final int flags;
-	private final MatcherNode node;
+	private final Automaton automaton;
 
 	public TokenPatternImpl(int flags, MatcherNode node)
 	{
 		this.flags = flags;
-		this.node = node;
+		this.automaton = Automaton.compile(node);
 	}
 
 	@Override
 	public TokenMatcher matcher()
 	{
-		return new TokenMatcherImpl(flags, node);
+		return new TokenMatcherImpl(flags, automaton);
 	}
 
 
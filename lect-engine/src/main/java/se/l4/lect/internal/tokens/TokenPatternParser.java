@@ -369,12 +369,29 @@ public class TokenPatternParser
 	private MatcherNode parseSequence()
 	{
 		consume('(');
+
+		String name = null;
+		if(peek() == '?')
+		{
+			// Named group in the form (?<name> ...)
+			consume('?');
+			consume('<');
+			name = consumeUntil(c -> c == '>' || isBoundary(c));
+			if(name.isEmpty())
+			{
+				throw raiseError("Group name was empty");
+			}
+			consume('>');
+		}
+
 		List<MatcherNode> nodes = parseSeveral(')');
 		if(nodes.isEmpty())
 		{
 			throw raiseError("Group in pattern was empty");
 		}
-		return MatcherNode.createSequence(nodes);
+
+		MatcherNode node = MatcherNode.createSequence(nodes);
+		return name == null ? node : new GroupNode(name, node);
 	}
 
 
@@ -0,0 +1,49 @@
+package se.l4.lect.internal.tokens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.l4.lect.tokens.TokenPatternSet;
+import se.l4.lect.tokens.TokenPatternSetMatcher;
+
+/**
+ * Implementation of {@link TokenPatternSet}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class TokenPatternSetImpl
+	implements TokenPatternSet
+{
+	private final int flags;
+	private final Automaton automaton;
+
+	public TokenPatternSetImpl(int flags, List<MatcherNode> nodes)
+	{
+		this.flags = flags;
+		this.automaton = Automaton.compile(nodes);
+	}
+
+	@Override
+	public int size()
+	{
+		return automaton.getPatternCount();
+	}
+
+	@Override
+	public TokenPatternSetMatcher matcher()
+	{
+		return new TokenMatcherImpl(flags, automaton);
+	}
+
+	public static TokenPatternSet compile(List<String> patterns, int flags)
+	{
+		List<MatcherNode> nodes = new ArrayList<>(patterns.size());
+		for(String pattern : patterns)
+		{
+			nodes.add(new TokenPatternParser(pattern).parse());
+		}
+
+		return new TokenPatternSetImpl(flags, nodes);
+	}
+}
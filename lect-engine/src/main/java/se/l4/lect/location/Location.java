@@ -29,6 +29,22 @@ public interface Location
 	 */
 	Location copy();
 
+	/**
+	 * Copy this location into the given target. Mutable locations will
+	 * reuse the target if it is of the same type, otherwise a new copy is
+	 * returned. Used to avoid creating new instances in places where a
+	 * location needs to be copied often.
+	 *
+	 * @param target
+	 *   the location to reuse, may be {@code null}
+	 * @return
+	 *   the target if it was reused, or a new copy of this location
+	 */
+	default Location copyInto(Location target)
+	{
+		return copy();
+	}
+
 	/**
 	 * Get if this location comes after another location.
 	 *
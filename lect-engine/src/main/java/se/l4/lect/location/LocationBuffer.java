@@ -0,0 +1,355 @@
+package se.l4.lect.location;
+
+import java.util.Arrays;
+
+/**
+ * Buffer of locations stored in packed form, as parallel columns of offsets,
+ * lines and columns. Used to keep many locations around without creating and
+ * copying a {@link Location} for every one of them, a {@link Location} is
+ * only created when requested via {@link #get(int)} or
+ * {@link #view(int, Location)}.
+ *
+ * <p>
+ * Offset and text locations are packed, other types of locations are copied
+ * and kept as is.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class LocationBuffer
+{
+	private static final byte OTHER = 0;
+	private static final byte TEXT_OFFSET = 1;
+	private static final byte OFFSET = 2;
+	private static final byte TEXT = 3;
+
+	private byte[] kinds;
+	private int[] offsets;
+	private int[] lines;
+	private int[] columns;
+	private Location[] others;
+
+	private int size;
+
+	public LocationBuffer()
+	{
+		this(16);
+	}
+
+	public LocationBuffer(int capacity)
+	{
+		kinds = new byte[capacity];
+		offsets = new int[capacity];
+		lines = new int[capacity];
+		columns = new int[capacity];
+	}
+
+	/**
+	 * Get the number of locations in this buffer.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Create a copy of this buffer, sized to fit the locations it contains.
+	 *
+	 * @return
+	 */
+	public LocationBuffer copy()
+	{
+		LocationBuffer result = new LocationBuffer(size);
+		System.arraycopy(kinds, 0, result.kinds, 0, size);
+		System.arraycopy(offsets, 0, result.offsets, 0, size);
+		System.arraycopy(lines, 0, result.lines, 0, size);
+		System.arraycopy(columns, 0, result.columns, 0, size);
+		if(others != null)
+		{
+			result.others = Arrays.copyOf(others, size);
+		}
+
+		result.size = size;
+		return result;
+	}
+
+	/**
+	 * Remove all locations from this buffer.
+	 */
+	public void clear()
+	{
+		if(others != null)
+		{
+			Arrays.fill(others, 0, size, null);
+		}
+
+		size = 0;
+	}
+
+	/**
+	 * Add a location to this buffer.
+	 *
+	 * @param location
+	 * @return
+	 *   the index of the location
+	 */
+	public int add(Location location)
+	{
+		int index = reserve();
+		set(index, location);
+		return index;
+	}
+
+	/**
+	 * Reserve room for another location and return its index.
+	 */
+	private int reserve()
+	{
+		if(size == kinds.length)
+		{
+			int capacity = Math.max(16, size * 2);
+			kinds = Arrays.copyOf(kinds, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+			lines = Arrays.copyOf(lines, capacity);
+			columns = Arrays.copyOf(columns, capacity);
+			if(others != null)
+			{
+				others = Arrays.copyOf(others, capacity);
+			}
+		}
+
+		int index = size++;
+		if(others != null)
+		{
+			others[index] = null;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Add a location with an offset, line and column, the packed form of a
+	 * {@link TextOffsetLocation}.
+	 *
+	 * @param offset
+	 * @param line
+	 * @param column
+	 * @return
+	 *   the index of the location
+	 */
+	public int addTextOffset(int offset, int line, int column)
+	{
+		int index = reserve();
+		kinds[index] = TEXT_OFFSET;
+		offsets[index] = offset;
+		lines[index] = line;
+		columns[index] = column;
+		return index;
+	}
+
+	/**
+	 * Add a location with only an offset, the packed form of an
+	 * {@link OffsetLocation}.
+	 *
+	 * @param offset
+	 * @return
+	 *   the index of the location
+	 */
+	public int addOffset(int offset)
+	{
+		int index = reserve();
+		kinds[index] = OFFSET;
+		offsets[index] = offset;
+		return index;
+	}
+
+	/**
+	 * Add a location with a line and column, the packed form of a
+	 * {@link TextLocation}.
+	 *
+	 * @param line
+	 * @param column
+	 * @return
+	 *   the index of the location
+	 */
+	public int addText(int line, int column)
+	{
+		int index = reserve();
+		kinds[index] = TEXT;
+		lines[index] = line;
+		columns[index] = column;
+		return index;
+	}
+
+	/**
+	 * Replace the location at the given index.
+	 *
+	 * @param index
+	 * @param location
+	 */
+	public void set(int index, Location location)
+	{
+		if(index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " is outside of buffer with size " + size);
+		}
+
+		if(others != null)
+		{
+			others[index] = null;
+		}
+
+		if(location instanceof TextOffsetLocation)
+		{
+			TextOffsetLocation l = (TextOffsetLocation) location;
+			kinds[index] = TEXT_OFFSET;
+			offsets[index] = l.get();
+			lines[index] = l.getLine();
+			columns[index] = l.getColumn();
+		}
+		else if(location instanceof OffsetLocation)
+		{
+			kinds[index] = OFFSET;
+			offsets[index] = ((OffsetLocation) location).get();
+		}
+		else if(location instanceof TextLocation)
+		{
+			TextLocation l = (TextLocation) location;
+			kinds[index] = TEXT;
+			lines[index] = l.getLine();
+			columns[index] = l.getColumn();
+		}
+		else
+		{
+			if(others == null)
+			{
+				others = new Location[kinds.length];
+			}
+
+			kinds[index] = OTHER;
+			others[index] = location.copy();
+		}
+	}
+
+	/**
+	 * Get if the location at the given index has an offset.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public boolean hasOffset(int index)
+	{
+		byte kind = kinds[index];
+		return kind == TEXT_OFFSET || kind == OFFSET;
+	}
+
+	/**
+	 * Get if the location at the given index has a line and column.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public boolean hasLineAndColumn(int index)
+	{
+		byte kind = kinds[index];
+		return kind == TEXT_OFFSET || kind == TEXT;
+	}
+
+	/**
+	 * Get the offset of the location at the given index. Only valid if
+	 * {@link #hasOffset(int)} returns {@code true}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getOffset(int index)
+	{
+		return offsets[index];
+	}
+
+	/**
+	 * Get the line of the location at the given index. Only valid if
+	 * {@link #hasLineAndColumn(int)} returns {@code true}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getLine(int index)
+	{
+		return lines[index];
+	}
+
+	/**
+	 * Get the column of the location at the given index. Only valid if
+	 * {@link #hasLineAndColumn(int)} returns {@code true}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getColumn(int index)
+	{
+		return columns[index];
+	}
+
+	/**
+	 * Get the location at the given index as a new {@link Location}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public Location get(int index)
+	{
+		Location location = view(index, null);
+		return kinds[index] == OTHER ? location.copy() : location;
+	}
+
+	/**
+	 * Get the location at the given index, reusing the given location if it
+	 * is mutable and of the same type. Used to view locations without
+	 * creating a new instance for every one of them.
+	 *
+	 * @param index
+	 *   the index of the location
+	 * @param reuse
+	 *   location to reuse, may be {@code null}
+	 * @return
+	 *   the reused location or a new location
+	 */
+	public Location view(int index, Location reuse)
+	{
+		if(index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " is outside of buffer with size " + size);
+		}
+
+		switch(kinds[index])
+		{
+			case TEXT_OFFSET:
+				if(reuse instanceof MutableTextOffsetLocation)
+				{
+					return ((MutableTextOffsetLocation) reuse).moveTo(offsets[index], lines[index], columns[index]);
+				}
+
+				return new MutableTextOffsetLocation(offsets[index], lines[index], columns[index]);
+			case OFFSET:
+				if(reuse instanceof MutableOffsetLocation)
+				{
+					((MutableOffsetLocation) reuse).set(offsets[index]);
+					return reuse;
+				}
+
+				return new MutableOffsetLocation(offsets[index]);
+			case TEXT:
+				if(reuse instanceof MutableTextLocation)
+				{
+					return ((MutableTextLocation) reuse).moveTo(lines[index], columns[index]);
+				}
+
+				return new MutableTextLocation(lines[index], columns[index]);
+			default:
+				return others[index];
+		}
+	}
+}
@@ -57,6 +57,18 @@ public class MutableOffsetLocation
 		return new MutableOffsetLocation(index);
 	}
 
+	@Override
+	public Location copyInto(Location target)
+	{
+		if(target instanceof MutableOffsetLocation)
+		{
+			((MutableOffsetLocation) target).set(index);
+			return target;
+		}
+
+		return copy();
+	}
+
 	@Override
 	public int compareTo(Location o)
 	{
@@ -60,6 +60,17 @@ public class MutableTextLocation
 		return new MutableTextLocation(line, column);
 	}
 
+	@Override
+	public Location copyInto(Location target)
+	{
+		if(target instanceof MutableTextLocation)
+		{
+			return ((MutableTextLocation) target).copyFrom(this);
+		}
+
+		return copy();
+	}
+
 	@Override
 	public MutableTextLocation moveTextIndex(CharSequence sequence)
 	{
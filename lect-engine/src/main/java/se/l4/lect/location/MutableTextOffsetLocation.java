@@ -76,6 +76,17 @@ public class MutableTextOffsetLocation
 		return new MutableTextOffsetLocation(offset, line, column);
 	}
 
+	@Override
+	public Location copyInto(Location target)
+	{
+		if(target instanceof MutableTextOffsetLocation)
+		{
+			return ((MutableTextOffsetLocation) target).copyFrom(this);
+		}
+
+		return copy();
+	}
+
 	@Override
 	public MutableTextOffsetLocation moveTextIndex(int amount)
 	{
@@ -0,0 +1,292 @@
+package se.l4.lect.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link PipelineMetrics} that keeps counters and histograms in memory. Can
+ * be shared between pipelines and read at any time, such as from a status
+ * page or a scheduled task that exports the values elsewhere.
+ *
+ * <p>
+ * The following metrics are kept:
+ *
+ * <ul>
+ *   <li>Counters {@value #DOCUMENTS}, {@value #STAGES}, {@value #PARAGRAPHS},
+ *     {@value #SENTENCES}, {@value #TOKENS} and {@value #CHARACTERS}</li>
+ *   <li>Histograms {@value #DOCUMENT_NANOS}, {@value #SOURCE_NANOS} and
+ *     {@value #LANGUAGE_NANOS}, with the time for each run</li>
+ *   <li>A histogram for every handler, named {@value #HANDLER_NANOS} followed
+ *     by the name of the handler, with the time spent in the handler for
+ *     each run</li>
+ * </ul>
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class MetricsRegistry
+	implements PipelineMetrics
+{
+	public static final String DOCUMENTS = "documents";
+	public static final String STAGES = "stages";
+	public static final String PARAGRAPHS = "paragraphs";
+	public static final String SENTENCES = "sentences";
+	public static final String TOKENS = "tokens";
+	public static final String CHARACTERS = "characters";
+
+	public static final String DOCUMENT_NANOS = "document.nanos";
+	public static final String SOURCE_NANOS = "source.nanos";
+	public static final String LANGUAGE_NANOS = "language.nanos";
+	public static final String HANDLER_NANOS = "handler.nanos.";
+
+	private final Map<String, Counter> counters;
+	private final Map<String, Histogram> histograms;
+
+	public MetricsRegistry()
+	{
+		counters = new ConcurrentHashMap<>();
+		histograms = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public void record(PipelineRun run)
+	{
+		counter(DOCUMENTS).increment(1);
+		counter(STAGES).increment(run.getStages());
+		counter(PARAGRAPHS).increment(run.getParagraphs());
+		counter(SENTENCES).increment(run.getSentences());
+		counter(TOKENS).increment(run.getTokens());
+		counter(CHARACTERS).increment(run.getCharacters());
+
+		histogram(DOCUMENT_NANOS).record(run.getNanos());
+		histogram(SOURCE_NANOS).record(run.getSourceNanos());
+		histogram(LANGUAGE_NANOS).record(run.getLanguageNanos());
+
+		for(int i=0, n=run.getHandlerCount(); i<n; i++)
+		{
+			histogram(HANDLER_NANOS + run.getHandlerName(i)).record(run.getHandlerNanos(i));
+		}
+	}
+
+	/**
+	 * Get a counter, creating it if it does not exist.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public Counter counter(String name)
+	{
+		return counters.computeIfAbsent(name, key -> new Counter());
+	}
+
+	/**
+	 * Get a histogram, creating it if it does not exist.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public Histogram histogram(String name)
+	{
+		return histograms.computeIfAbsent(name, key -> new Histogram());
+	}
+
+	/**
+	 * Get all of the counters sorted by name.
+	 *
+	 * @return
+	 */
+	public Map<String, Counter> getCounters()
+	{
+		return Collections.unmodifiableMap(new TreeMap<>(counters));
+	}
+
+	/**
+	 * Get all of the histograms sorted by name.
+	 *
+	 * @return
+	 */
+	public Map<String, Histogram> getHistograms()
+	{
+		return Collections.unmodifiableMap(new TreeMap<>(histograms));
+	}
+
+	/**
+	 * Counter that can be incremented from several threads.
+	 */
+	public static class Counter
+	{
+		private final LongAdder value;
+
+		private Counter()
+		{
+			value = new LongAdder();
+		}
+
+		/**
+		 * Increment this counter.
+		 *
+		 * @param amount
+		 */
+		public void increment(long amount)
+		{
+			value.add(amount);
+		}
+
+		/**
+		 * Get the current value.
+		 *
+		 * @return
+		 */
+		public long get()
+		{
+			return value.sum();
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Counter{" + get() + "}";
+		}
+	}
+
+	/**
+	 * Histogram of values, such as times, that can be recorded from several
+	 * threads. Values are counted in buckets where every bucket is twice as
+	 * large as the previous one, so percentiles are approximate.
+	 */
+	public static class Histogram
+	{
+		private final LongAdder count;
+		private final LongAdder sum;
+		private final AtomicLong min;
+		private final AtomicLong max;
+		private final AtomicLongArray buckets;
+
+		private Histogram()
+		{
+			count = new LongAdder();
+			sum = new LongAdder();
+			min = new AtomicLong(Long.MAX_VALUE);
+			max = new AtomicLong(Long.MIN_VALUE);
+			buckets = new AtomicLongArray(64);
+		}
+
+		/**
+		 * Record a value, negative values are recorded as zero.
+		 *
+		 * @param value
+		 */
+		public void record(long value)
+		{
+			if(value < 0)
+			{
+				value = 0;
+			}
+
+			count.increment();
+			sum.add(value);
+			buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+
+			long current;
+			while(value < (current = min.get()) && ! min.compareAndSet(current, value));
+			while(value > (current = max.get()) && ! max.compareAndSet(current, value));
+		}
+
+		/**
+		 * Get the number of recorded values.
+		 *
+		 * @return
+		 */
+		public long getCount()
+		{
+			return count.sum();
+		}
+
+		/**
+		 * Get the sum of all recorded values.
+		 *
+		 * @return
+		 */
+		public long getSum()
+		{
+			return sum.sum();
+		}
+
+		/**
+		 * Get the smallest recorded value, {@code 0} if nothing has been
+		 * recorded.
+		 *
+		 * @return
+		 */
+		public long getMin()
+		{
+			long value = min.get();
+			return value == Long.MAX_VALUE ? 0 : value;
+		}
+
+		/**
+		 * Get the largest recorded value, {@code 0} if nothing has been
+		 * recorded.
+		 *
+		 * @return
+		 */
+		public long getMax()
+		{
+			long value = max.get();
+			return value == Long.MIN_VALUE ? 0 : value;
+		}
+
+		/**
+		 * Get the mean of the recorded values.
+		 *
+		 * @return
+		 */
+		public double getMean()
+		{
+			long count = getCount();
+			return count == 0 ? 0 : (double) getSum() / count;
+		}
+
+		/**
+		 * Get an approximation of a percentile, the upper bound of the bucket
+		 * that contains it.
+		 *
+		 * @param percentile
+		 *   the percentile to get, between {@code 0} and {@code 1}
+		 * @return
+		 */
+		public long getPercentile(double percentile)
+		{
+			long total = 0;
+			for(int i=0; i<64; i++)
+			{
+				total += buckets.get(i);
+			}
+
+			long target = (long) Math.ceil(total * percentile);
+			long seen = 0;
+			for(int i=0; i<64; i++)
+			{
+				seen += buckets.get(i);
+				if(seen >= target && seen > 0)
+				{
+					long upper = i == 63 ? Long.MAX_VALUE : (1L << i) - 1;
+					return Math.min(upper, getMax());
+				}
+			}
+
+			return 0;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Histogram{count=" + getCount() + ", mean=" + getMean() + ", min=" + getMin() + ", max=" + getMax() + "}";
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package se.l4.lect.metrics;
+
+/**
+ * Receiver of metrics about pipeline runs, registered via
+ * {@link se.l4.lect.PipelineAssembly#metrics(PipelineMetrics)}. Pipelines
+ * without metrics do not measure anything.
+ *
+ * <p>
+ * Metrics are reported from the thread that ran the pipeline and
+ * implementations must be thread-safe if a pipeline runs several sources at
+ * once. See {@link MetricsRegistry} for an implementation that keeps
+ * counters and histograms in memory.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface PipelineMetrics
+{
+	/**
+	 * A pipeline has finished running over a source.
+	 *
+	 * @param run
+	 *   metrics for the run
+	 */
+	void record(PipelineRun run);
+}
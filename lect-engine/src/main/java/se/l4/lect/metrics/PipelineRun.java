@@ -0,0 +1,191 @@
+package se.l4.lect.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Metrics for a single run of a pipeline over a source, including all of
+ * the stages needed by {@link se.l4.lect.handlers.MultiStageHandler}s.
+ *
+ * <p>
+ * Time is split into the time spent in the language, the time spent in each
+ * handler and the time spent in the source, which is the remaining time of
+ * the first stage. Times are measured by the thread running the pipeline,
+ * when paragraphs are parsed in parallel the language time is the time spent
+ * waiting for results.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class PipelineRun
+{
+	private final long nanos;
+	private final long sourceNanos;
+	private final long languageNanos;
+	private final String[] handlers;
+	private final long[] handlerNanos;
+	private final int stages;
+	private final long paragraphs;
+	private final long sentences;
+	private final long tokens;
+	private final long characters;
+
+	public PipelineRun(
+		long nanos,
+		long sourceNanos,
+		long languageNanos,
+		String[] handlers,
+		long[] handlerNanos,
+		int stages,
+		long paragraphs,
+		long sentences,
+		long tokens,
+		long characters)
+	{
+		if(handlers.length != handlerNanos.length)
+		{
+			throw new IllegalArgumentException("Handlers and handler times must have the same length");
+		}
+
+		this.nanos = nanos;
+		this.sourceNanos = sourceNanos;
+		this.languageNanos = languageNanos;
+		this.handlers = handlers.clone();
+		this.handlerNanos = handlerNanos.clone();
+		this.stages = stages;
+		this.paragraphs = paragraphs;
+		this.sentences = sentences;
+		this.tokens = tokens;
+		this.characters = characters;
+	}
+
+	/**
+	 * Get the total time of the run in nanoseconds.
+	 *
+	 * @return
+	 */
+	public long getNanos()
+	{
+		return nanos;
+	}
+
+	/**
+	 * Get the time spent parsing the source in nanoseconds.
+	 *
+	 * @return
+	 */
+	public long getSourceNanos()
+	{
+		return sourceNanos;
+	}
+
+	/**
+	 * Get the time spent in the language parser in nanoseconds.
+	 *
+	 * @return
+	 */
+	public long getLanguageNanos()
+	{
+		return languageNanos;
+	}
+
+	/**
+	 * Get the number of handlers in the pipeline.
+	 *
+	 * @return
+	 */
+	public int getHandlerCount()
+	{
+		return handlers.length;
+	}
+
+	/**
+	 * Get the name of the handler at the given index, the name of its class.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getHandlerName(int index)
+	{
+		return handlers[index];
+	}
+
+	/**
+	 * Get the time spent in the handler at the given index in nanoseconds,
+	 * summed over all stages.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public long getHandlerNanos(int index)
+	{
+		return handlerNanos[index];
+	}
+
+	/**
+	 * Get the number of passes over the source, {@code 1} unless
+	 * {@link se.l4.lect.handlers.MultiStageHandler}s requested more stages.
+	 *
+	 * @return
+	 */
+	public int getStages()
+	{
+		return stages;
+	}
+
+	/**
+	 * Get the number of paragraphs found in the source.
+	 *
+	 * @return
+	 */
+	public long getParagraphs()
+	{
+		return paragraphs;
+	}
+
+	/**
+	 * Get the number of sentences found in the source.
+	 *
+	 * @return
+	 */
+	public long getSentences()
+	{
+		return sentences;
+	}
+
+	/**
+	 * Get the number of tokens found in the source, including whitespace.
+	 *
+	 * @return
+	 */
+	public long getTokens()
+	{
+		return tokens;
+	}
+
+	/**
+	 * Get the number of characters of text read from the source, the
+	 * combined length of all tokens.
+	 *
+	 * @return
+	 */
+	public long getCharacters()
+	{
+		return characters;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PipelineRun{nanos=" + nanos
+			+ ", sourceNanos=" + sourceNanos
+			+ ", languageNanos=" + languageNanos
+			+ ", handlers=" + Arrays.toString(handlers)
+			+ ", handlerNanos=" + Arrays.toString(handlerNanos)
+			+ ", stages=" + stages
+			+ ", paragraphs=" + paragraphs
+			+ ", sentences=" + sentences
+			+ ", tokens=" + tokens
+			+ ", characters=" + characters
+			+ "}";
+	}
+}
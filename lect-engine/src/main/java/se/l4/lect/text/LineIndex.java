@@ -0,0 +1,160 @@
+package se.l4.lect.text;
+
+import java.util.Arrays;
+
+import se.l4.lect.location.MutableTextOffsetLocation;
+import se.l4.lect.location.TextOffsetLocation;
+
+/**
+ * Index of where lines start in a text, used to map between offset and line
+ * and column. Text is added in order via {@link #track(CharSequence, int, int)}
+ * or by reading it through an {@link OffsetTrackingReader}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class LineIndex
+{
+	private int offset;
+	private int line;
+	private int firstLine;
+	private int[] lineStartOffsets;
+	private boolean lastWasCarriageReturn;
+
+	public LineIndex()
+	{
+		line = 0;
+		lineStartOffsets = new int[64];
+	}
+
+	private void ensureCapacity(int c)
+	{
+		if(c < lineStartOffsets.length) return;
+
+		int length = lineStartOffsets.length;
+		int newSize = length + (length >> 1);
+
+		lineStartOffsets = Arrays.copyOf(lineStartOffsets, newSize);
+	}
+
+	/**
+	 * Track a single character.
+	 *
+	 * @param c
+	 */
+	public void track(char c)
+	{
+		if(c == '\r' || c == '\n' || c == '\u2028' || c == '\u2029' || c == '\u0085')
+		{
+			if(c == '\n' && lastWasCarriageReturn)
+			{
+				// \n following \r is still the same break, update the previous index
+				lineStartOffsets[line - firstLine] = offset + 1;
+			}
+			else
+			{
+				line++;
+				ensureCapacity(line - firstLine);
+				lineStartOffsets[line - firstLine] = offset + 1;
+			}
+		}
+
+		lastWasCarriageReturn = c == '\r';
+		offset++;
+	}
+
+	/**
+	 * Track the characters in the given array.
+	 *
+	 * @param cbuf
+	 * @param off
+	 * @param len
+	 */
+	public void track(char[] cbuf, int off, int len)
+	{
+		for(int i=off, n=off+len; i<n; i++)
+		{
+			track(cbuf[i]);
+		}
+	}
+
+	/**
+	 * Track the characters in the given sequence.
+	 *
+	 * @param text
+	 * @param from
+	 *   the index to start at, inclusive
+	 * @param to
+	 *   the index to stop at, exclusive
+	 */
+	public void track(CharSequence text, int from, int to)
+	{
+		for(int i=from; i<to; i++)
+		{
+			track(text.charAt(i));
+		}
+	}
+
+	/**
+	 * Resolve the {@link MutableTextOffsetLocation} of a character offset.
+	 *
+	 * @param offset
+	 * @return
+	 */
+	public TextOffsetLocation offsetToLocation(int offset)
+	{
+		TextOffsetLocation loc = new MutableTextOffsetLocation(0, 0, 0);
+		offsetToLocation(offset, loc);
+		return loc;
+	}
+
+	/**
+	 * Resolve the {@link MutableTextOffsetLocation} of a character offset and
+	 * store it in the given target.
+	 *
+	 * @param offset
+	 * @param target
+	 */
+	public void offsetToLocation(int offset, TextOffsetLocation target)
+	{
+		int index = lineIndex(offset);
+		target.moveTo(offset, firstLine + index, offset - lineStartOffsets[index]);
+	}
+
+	/**
+	 * Get the index in {@link #lineStartOffsets} of the line that contains
+	 * the given offset.
+	 */
+	private int lineIndex(int offset)
+	{
+		int index = Arrays.binarySearch(lineStartOffsets, 0, line - firstLine + 1, offset);
+		if(index < 0)
+		{
+			/*
+			 * The offset was not exactly the start of a line, so figure out
+			 * the nearest line
+			 */
+			index = -(index + 1) - 1;
+		}
+
+		// Offsets before discarded lines resolve to the first known line
+		return Math.max(index, 0);
+	}
+
+	/**
+	 * Discard the information about lines that end before the given offset.
+	 * Used when the text is handled in parts, so that only the lines of the
+	 * current part are kept. Offsets before the given offset can not be
+	 * resolved after this call.
+	 *
+	 * @param offset
+	 */
+	public void discardBefore(int offset)
+	{
+		int index = lineIndex(offset);
+		if(index == 0) return;
+
+		System.arraycopy(lineStartOffsets, index, lineStartOffsets, 0, line - firstLine + 1 - index);
+		firstLine += index;
+	}
+}
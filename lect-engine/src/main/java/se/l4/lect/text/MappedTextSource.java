@@ -0,0 +1,133 @@
+package se.l4.lect.text;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import se.l4.lect.TextSource;
+import se.l4.lect.TextSourceEncounter;
+
+/**
+ * Source for plain text stored in a file. The file is memory-mapped and
+ * decoded in large blocks that are parsed directly, avoiding the copying done
+ * when reading through a {@link java.io.Reader}. Parses text in the same way
+ * as {@link PlainTextSource}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class MappedTextSource
+	implements TextSource
+{
+	/**
+	 * The maximum number of bytes to map at a time.
+	 */
+	private static final int MAP_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * The number of characters to decode at a time.
+	 */
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	private final Path path;
+	private final Charset charset;
+
+	private MappedTextSource(Path path, Charset charset)
+	{
+		this.path = path;
+		this.charset = charset;
+	}
+
+	/**
+	 * Create a new source for the file at the given {@link Path}, using the
+	 * specified character set to decode it.
+	 *
+	 * @param path
+	 * @param charset
+	 * @return
+	 */
+	public static TextSource forPath(Path path, Charset charset)
+	{
+		return new MappedTextSource(path, charset);
+	}
+
+	@Override
+	public void parse(TextSourceEncounter encounter)
+		throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			PlainTextParser parser = new PlainTextParser(encounter);
+
+			CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+			CharBuffer chars = CharBuffer.allocate(BLOCK_SIZE);
+
+			long size = channel.size();
+			long position = 0;
+			boolean last = false;
+			while(! last)
+			{
+				long remaining = size - position;
+				last = remaining <= MAP_SIZE;
+
+				MappedByteBuffer bytes = channel.map(
+					FileChannel.MapMode.READ_ONLY,
+					position,
+					Math.min(remaining, MAP_SIZE)
+				);
+
+				while(true)
+				{
+					CoderResult result = decoder.decode(bytes, chars, last);
+					if(result.isError())
+					{
+						result.throwException();
+					}
+
+					feed(parser, chars);
+
+					if(result.isUnderflow())
+					{
+						/*
+						 * All input in the mapped region has been decoded,
+						 * bytes of a character that continues in the next
+						 * region are left and will be mapped again.
+						 */
+						break;
+					}
+				}
+
+				position += bytes.position();
+			}
+
+			while(decoder.flush(chars).isOverflow())
+			{
+				feed(parser, chars);
+			}
+
+			feed(parser, chars);
+
+			parser.finish();
+		}
+	}
+
+	/**
+	 * Feed the decoded characters to the parser and clear the buffer.
+	 */
+	private static void feed(PlainTextParser parser, CharBuffer chars)
+	{
+		chars.flip();
+		parser.feed(chars, 0, chars.limit());
+		chars.clear();
+	}
+}
@@ -3,14 +3,13 @@ package se.l4.lect.text;
 import java.io.FilterReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.Arrays;
 
 import se.l4.lect.location.MutableTextOffsetLocation;
 import se.l4.lect.location.TextOffsetLocation;
 
 /**
  * {@link Reader} that tracks offsets and allows mapping between offset and
- * line and column.
+ * line and column. The lines are kept in a {@link LineIndex}.
  *
  * @author Andreas Holstenson
  *
@@ -18,27 +17,23 @@ import se.l4.lect.location.TextOffsetLocation;
 public class OffsetTrackingReader
 	extends FilterReader
 {
-	private int offset;
-	private int line;
-	private int[] lineStartOffsets;
-	private boolean lastWasCarriageReturn;
+	private final LineIndex lines;
 
 	public OffsetTrackingReader(Reader in)
 	{
 		super(in);
 
-		line = 0;
-		lineStartOffsets = new int[64];
+		lines = new LineIndex();
 	}
 
-	private void ensureCapacity(int c)
+	/**
+	 * Get the index of the lines read so far.
+	 *
+	 * @return
+	 */
+	public LineIndex getLines()
 	{
-		if(c < lineStartOffsets.length) return;
-
-		int length = lineStartOffsets.length;
-		int newSize = length + (length >> 1);
-
-		lineStartOffsets = Arrays.copyOf(lineStartOffsets, newSize);
+		return lines;
 	}
 
 	@Override
@@ -46,7 +41,11 @@ public class OffsetTrackingReader
 		throws IOException
 	{
 		int result = super.read();
-		track(result);
+		if(result != -1)
+		{
+			lines.track((char) result);
+		}
+
 		return result;
 	}
 
@@ -55,43 +54,12 @@ public class OffsetTrackingReader
 		throws IOException
 	{
 		int result = super.read(cbuf, off, len);
-		track(cbuf, off, result);
-		return result;
-	}
-
-	private void track(int c)
-	{
-		if(c == -1) return;
-
-		if(c == '\r' || c == '\n' || c == '\u2028' || c == '\u2029' || c == '\u0085')
+		if(result > 0)
 		{
-			if(c == '\n' && lastWasCarriageReturn)
-			{
-				// \n following \r is still the same break, update the previous index
-				lineStartOffsets[line] = offset + 1;
-			}
-			else
-			{
-				if(c == '\r')
-				{
-					lastWasCarriageReturn = true;
-				}
-
-				line++;
-				ensureCapacity(line);
-				lineStartOffsets[line] = offset + 1;
-			}
+			lines.track(cbuf, off, result);
 		}
 
-		offset++;
-	}
-
-	private void track(char[] cbuf, int off, int len)
-	{
-		for(int i=off, n=off+len; i<n; i++)
-		{
-			track(cbuf[i]);
-		}
+		return result;
 	}
 
 	/**
@@ -102,9 +70,7 @@ public class OffsetTrackingReader
 	 */
 	public TextOffsetLocation offsetToLocation(int offset)
 	{
-		TextOffsetLocation loc = new MutableTextOffsetLocation(0, 0, 0);
-		offsetToLocation(offset, loc);
-		return loc;
+		return lines.offsetToLocation(offset);
 	}
 
 	/**
@@ -116,18 +82,17 @@ public class OffsetTrackingReader
 	 */
 	public void offsetToLocation(int offset, TextOffsetLocation target)
 	{
-		int line = Arrays.binarySearch(lineStartOffsets, 0, this.line + 1, offset);
-		int column = 0;
-		if(line < 0)
-		{
-			/*
-			 * The offset was not exactly the start of a line, so figure out
-			 * the nearest line and then the column
-			 */
-			line = -(line + 1) - 1;
-			column = offset - lineStartOffsets[line];
-		}
+		lines.offsetToLocation(offset, target);
+	}
 
-		target.moveTo(offset, line, column);
+	/**
+	 * Discard the information about lines that end before the given offset,
+	 * see {@link LineIndex#discardBefore(int)}.
+	 *
+	 * @param offset
+	 */
+	public void discardBefore(int offset)
+	{
+		lines.discardBefore(offset);
 	}
 }
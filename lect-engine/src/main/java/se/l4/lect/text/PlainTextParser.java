@@ -0,0 +1,355 @@
+package se.l4.lect.text;
+
+import se.l4.lect.TextSourceEncounter;
+import se.l4.lect.location.MutableTextOffsetLocation;
+
+/**
+ * Parser for plain text that splits text into paragraphs on empty lines.
+ * Text is fed to the parser in blocks via {@link #feed(CharSequence, int, int)}
+ * and passed on to the encounter as views of the block, characters are only
+ * copied when a line continues into the next block.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class PlainTextParser
+{
+	/**
+	 * The state of the plain-text parser.
+	 */
+	private enum State
+	{
+		TEXT,
+		LINE_BREAK,
+		PENDING_PARAGRAPH
+	}
+
+	private static final byte TYPE_TEXT = 0;
+	private static final byte TYPE_WHITESPACE = 1;
+	private static final byte TYPE_BREAK = 2;
+
+	/**
+	 * Type of the characters in the Latin-1 range, used to avoid calling
+	 * {@link Character#isWhitespace(char)} for most characters.
+	 */
+	private static final byte[] TYPES = new byte[256];
+
+	static
+	{
+		for(char c=0; c<256; c++)
+		{
+			if(c == '\r' || c == '\n' || c == '\u0085')
+			{
+				TYPES[c] = TYPE_BREAK;
+			}
+			else if(Character.isWhitespace(c))
+			{
+				TYPES[c] = TYPE_WHITESPACE;
+			}
+			else
+			{
+				TYPES[c] = TYPE_TEXT;
+			}
+		}
+	}
+
+	private final TextSourceEncounter encounter;
+
+	private int index;
+	private int line;
+	private int column;
+
+	private MutableTextOffsetLocation location;
+	private MutableTextOffsetLocation lastLocation;
+
+	private State state;
+	private boolean lastWasCarriageReturn;
+
+	/*
+	 * The pending text is the contents of the builder followed by the
+	 * characters between segmentStart and position in the current block. The
+	 * builder is only used when the pending text spans several blocks.
+	 */
+	private CharSequence block;
+	private int segmentStart;
+	private int position;
+	private final StringBuilder builder;
+	private final SubSequence view;
+
+	public PlainTextParser(TextSourceEncounter encounter)
+	{
+		this.encounter = encounter;
+
+		state = State.LINE_BREAK;
+		builder = new StringBuilder();
+		view = new SubSequence();
+		block = "";
+
+		location = new MutableTextOffsetLocation(0, 0, 0);
+		lastLocation = new MutableTextOffsetLocation(0, 0, 0);
+		encounter.location(location);
+	}
+
+	/**
+	 * Parse a block of text. The block is only used during this call, any
+	 * text that is still pending at the end of the block is copied.
+	 *
+	 * @param block
+	 *   the sequence containing the text
+	 * @param from
+	 *   the index to start at, inclusive
+	 * @param to
+	 *   the index to stop at, exclusive
+	 */
+	public void feed(CharSequence block, int from, int to)
+	{
+		this.block = block;
+		segmentStart = from;
+
+		position = from;
+		while(position < to)
+		{
+			/*
+			 * Skip runs of characters that do not change the state, text and
+			 * whitespace while in text and whitespace between lines. Only
+			 * the position needs to be updated for these.
+			 */
+			int run = position;
+			if(state == State.TEXT)
+			{
+				while(run < to && type(block.charAt(run)) != TYPE_BREAK)
+				{
+					run++;
+				}
+			}
+			else
+			{
+				while(run < to && type(block.charAt(run)) == TYPE_WHITESPACE)
+				{
+					run++;
+				}
+			}
+
+			if(run > position)
+			{
+				lastWasCarriageReturn = false;
+				column += run - position;
+				index += run - position;
+				position = run;
+
+				if(run == to) break;
+			}
+
+			char c = block.charAt(position);
+			if(type(c) == TYPE_BREAK)
+			{
+				// This some form of line break
+				if(c == '\r')
+				{
+					lastWasCarriageReturn = true;
+				}
+				else if(c == '\n' && lastWasCarriageReturn)
+				{
+					// Newline after carriage return should just be added to the pending text
+					lastWasCarriageReturn = false;
+					index++;
+					position++;
+					continue;
+				}
+				else
+				{
+					lastWasCarriageReturn = false;
+				}
+
+				if(state == State.LINE_BREAK)
+				{
+					// Already in a line break, we are going to create a new paragraph
+					state = State.PENDING_PARAGRAPH;
+				}
+				else
+				{
+					flush();
+					state = State.LINE_BREAK;
+				}
+
+				// Set the current position
+				line++;
+				column = 0;
+				index++;
+			}
+			else
+			{
+				// Start of text after whitespace, create a paragraph if needed
+				lastWasCarriageReturn = false;
+
+				flush();
+				state = State.TEXT;
+
+				if(! encounter.inParagraph())
+				{
+					encounter.startParagraph();
+				}
+
+				column++;
+				index++;
+			}
+
+			position++;
+		}
+
+		// Keep whatever is pending as the block is not valid after this call
+		if(position > segmentStart)
+		{
+			builder.append(block, segmentStart, position);
+		}
+
+		this.block = "";
+		segmentStart = 0;
+		position = 0;
+	}
+
+	/**
+	 * Finish parsing, flushing any pending text and ending the current
+	 * paragraph.
+	 */
+	public void finish()
+	{
+		CharSequence pending = pending();
+		if(isWhitespace(pending))
+		{
+			// If all we have left is whitespace, end any paragraphs and flush
+			flush();
+		}
+		else
+		{
+			if(state != State.TEXT)
+			{
+				flush();
+				state = State.TEXT;
+			}
+
+			if(! encounter.inParagraph())
+			{
+				encounter.startParagraph();
+			}
+
+			flush();
+		}
+
+		if(encounter.inParagraph())
+		{
+			encounter.endParagraph();
+		}
+
+		encounter.done();
+	}
+
+	/**
+	 * Get the text that has been consumed but not yet flushed.
+	 */
+	private CharSequence pending()
+	{
+		if(builder.length() > 0)
+		{
+			if(position > segmentStart)
+			{
+				builder.append(block, segmentStart, position);
+				segmentStart = position;
+			}
+
+			return builder;
+		}
+
+		return view.update(block, segmentStart, position);
+	}
+
+	private void flushLocation()
+	{
+		location.moveTo(index, line, column);
+		lastLocation.copyFrom(location);
+		encounter.location(location);
+	}
+
+	private void flush()
+	{
+		CharSequence text = pending();
+		if(state == State.PENDING_PARAGRAPH && encounter.inParagraph())
+		{
+			/*
+			 * Pending paragraphs need some special handling as the first
+			 * newline should be part of the previous paragraph and
+			 * anything else should be outside of the paragraph.
+			 */
+			int offset = 1;
+			char c = text.charAt(0);
+			if(c == '\r' && text.length() > 1 && text.charAt(1) == '\n')
+			{
+				// Pair or carriage return + newline
+				offset = 2;
+			}
+
+			MutableTextOffsetLocation end = location.copy().moveTo(
+				lastLocation.get() + offset,
+				lastLocation.getLine() + 1,
+				0
+			);
+			encounter.text(text.subSequence(0, offset), end);
+
+			// Update the location and end the paragraph
+			location.moveTo(lastLocation.get() + offset, lastLocation.getLine() + 1, 0);
+			encounter.location(location);
+			encounter.endParagraph();
+
+			if(text.length() > offset)
+			{
+				encounter.text(
+					text.subSequence(offset, text.length()),
+					new MutableTextOffsetLocation(index, line, column)
+				);
+			}
+		}
+		else if(text.length() > 0)
+		{
+			encounter.text(text, new MutableTextOffsetLocation(index, line, column));
+		}
+
+		builder.setLength(0);
+		segmentStart = position;
+
+		flushLocation();
+	}
+
+	/**
+	 * Get the type of a character, characters outside of Latin-1 are only
+	 * line breaks if they are line or paragraph separators.
+	 */
+	private static int type(char c)
+	{
+		if(c < 256)
+		{
+			return TYPES[c];
+		}
+		else if(c == '\u2028' || c == '\u2029')
+		{
+			return TYPE_BREAK;
+		}
+
+		return Character.isWhitespace(c) ? TYPE_WHITESPACE : TYPE_TEXT;
+	}
+
+	/**
+	 * Check if the sequence only contains whitespace.
+	 */
+	private static boolean isWhitespace(CharSequence text)
+	{
+		for(int i=0, n=text.length(); i<n; i++)
+		{
+			if(! Character.isWhitespace(text.charAt(i)))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -4,15 +4,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 
 import se.l4.commons.io.Bytes;
 import se.l4.commons.io.IOSupplier;
 import se.l4.lect.TextSource;
 import se.l4.lect.TextSourceEncounter;
-import se.l4.lect.location.MutableTextOffsetLocation;
 
 /**
  * Source that parses plain text into a syntax tree.
@@ -23,11 +22,25 @@ import se.l4.lect.location.MutableTextOffsetLocation;
 public class PlainTextSource
 	implements TextSource
 {
+	private static final int BUFFER_SIZE = 8192;
+
 	private final IOSupplier<Reader> supplier;
+	/**
+	 * Text that is already in memory, parsed directly instead of via a
+	 * {@link Reader}.
+	 */
+	private final CharSequence text;
 
 	private PlainTextSource(IOSupplier<Reader> supplier)
 	{
 		this.supplier = supplier;
+		this.text = null;
+	}
+
+	private PlainTextSource(CharSequence text)
+	{
+		this.supplier = null;
+		this.text = text;
 	}
 
 	/**
@@ -88,253 +101,78 @@ public class PlainTextSource
 	 */
 	public static TextSource forString(String text)
 	{
-		return forReader(() -> new StringReader(text));
+		return new PlainTextSource(text);
 	}
 
 	/**
-	 * Create a new source using the given {@link Bytes} to resolve the text
-	 * content. The given {@link Charset} will be used to decode the content.
+	 * Create a new source for a range of the given array. The characters are
+	 * not copied, so the array must not be modified while the source is
+	 * being parsed.
 	 *
-	 * @param bytes
-	 * @param charset
+	 * @param chars
+	 * @param offset
+	 * @param length
 	 * @return
 	 */
-	public static TextSource forBytes(Bytes bytes, Charset charset)
+	public static TextSource forChars(char[] chars, int offset, int length)
 	{
-		return forStream(bytes::asInputStream, charset);
-	}
-
-	@Override
-	public void parse(TextSourceEncounter encounter)
-		throws IOException
-	{
-		try(Reader reader = supplier.get())
-		{
-			new Parser(reader, encounter).parse();
-		}
+		return new PlainTextSource(CharBuffer.wrap(chars, offset, length));
 	}
 
 	/**
-	 * Check if the builder only contains whitespace.
+	 * Create a new source for the file at the given {@link Path}. The file
+	 * will be memory-mapped and decoded using the given {@link Charset}, see
+	 * {@link MappedTextSource}.
+	 *
+	 * @param path
+	 * @param charset
+	 * @return
 	 */
-	private static boolean isWhitespace(StringBuilder builder)
+	public static TextSource forPath(Path path, Charset charset)
 	{
-		for(int i=0, n=builder.length(); i<n; i++)
-		{
-			if(! Character.isWhitespace(builder.charAt(i)))
-			{
-				return false;
-			}
-		}
-
-		return true;
+		return MappedTextSource.forPath(path, charset);
 	}
 
 	/**
-	 * The state of the plain-text parser.
+	 * Create a new source using the given {@link Bytes} to resolve the text
+	 * content. The given {@link Charset} will be used to decode the content.
+	 *
+	 * @param bytes
+	 * @param charset
+	 * @return
 	 */
-	private enum State
+	public static TextSource forBytes(Bytes bytes, Charset charset)
 	{
-		TEXT,
-		LINE_BREAK,
-		PENDING_PARAGRAPH
+		return forStream(bytes::asInputStream, charset);
 	}
 
-	/**
-	 * Inner parser used to perform the actual parsing of the {@link Readable}.
-	 */
-	private static class Parser
+	@Override
+	public void parse(TextSourceEncounter encounter)
+		throws IOException
 	{
-		private final Readable readable;
-		private final TextSourceEncounter encounter;
-
-		private int index;
-		private int line;
-		private int column;
-
-		private MutableTextOffsetLocation location;
-		private MutableTextOffsetLocation lastLocation;
-
-		private State state;
-		private StringBuilder builder;
-
-		public Parser(Readable readable, TextSourceEncounter encounter)
+		if(text != null)
 		{
-			this.readable = readable;
-			this.encounter = encounter;
-
-			state = State.LINE_BREAK;
-			builder = new StringBuilder();
+			// The text is fed as a single block and passed on as views of it
+			PlainTextParser parser = new PlainTextParser(encounter);
+			parser.feed(text, 0, text.length());
+			parser.finish();
+			return;
 		}
 
-		public void parse()
-			throws IOException
+		try(Reader reader = supplier.get())
 		{
-			boolean lastWasCarriageReturn = false;
+			PlainTextParser parser = new PlainTextParser(encounter);
 
-			location = new MutableTextOffsetLocation(0, 0, 0);
-			lastLocation = new MutableTextOffsetLocation(0, 0, 0);
-			encounter.location(location);
+			char[] buffer = new char[BUFFER_SIZE];
+			CharBuffer sequence = CharBuffer.wrap(buffer);
 
 			int length;
-			CharBuffer buffer = CharBuffer.allocate(1024);
-			while((length = readable.read(buffer)) != -1)
-			{
-				buffer.flip();
-				for(int i=0; i<length; i++)
-				{
-					char c = buffer.charAt(i);
-					if(c == '\r' || c == '\n' || c == '\u2028' || c == '\u2029' || c == '\u0085')
-					{
-						// This some form of line break
-						if(c == '\r')
-						{
-							lastWasCarriageReturn = true;
-						}
-						else if(c == '\n' && lastWasCarriageReturn)
-						{
-							// Newline after carriage return should just be added to the buffer
-							lastWasCarriageReturn = false;
-							index++;
-							builder.append(c);
-							continue;
-						}
-						else
-						{
-							lastWasCarriageReturn = false;
-						}
-
-						if(state == State.LINE_BREAK)
-						{
-							// Already in a line break, we are going to create a new paragraph
-							state = State.PENDING_PARAGRAPH;
-						}
-						else
-						{
-							flush();
-							state = State.LINE_BREAK;
-						}
-
-						// Set the current position
-						line++;
-						column = 0;
-						index++;
-
-						// Append to the buffer
-						builder.append(c);
-					}
-					else if(Character.isWhitespace(c))
-					{
-						// This is some whitespace, always append to the buffer and do not switch state
-						builder.append(c);
-						column++;
-						index++;
-					}
-					else
-					{
-						// Anything else is appended to the buffer while creating a paragraph if needed
-						if(state != State.TEXT)
-						{
-							flush();
-							state = State.TEXT;
-						}
-
-						if(! encounter.inParagraph())
-						{
-							encounter.startParagraph();
-						}
-
-						column++;
-						index++;
-						builder.append(c);
-					}
-				}
-			}
-
-			if(isWhitespace(builder))
-			{
-				// If all we have left is whitespace, end any paragraphs and flush
-				flush();
-			}
-			else if(builder.length() > 0)
-			{
-				if(state != State.TEXT)
-				{
-					flush();
-					state = State.TEXT;
-				}
-
-				if(! encounter.inParagraph())
-				{
-					encounter.startParagraph();
-				}
-
-				flush();
-
-			}
-
-			if(encounter.inParagraph())
-			{
-				encounter.endParagraph();
-			}
-
-			encounter.done();
-		}
-
-		private void flushLocation()
-		{
-			location.moveTo(index, line, column);
-			lastLocation.copyFrom(location);
-			encounter.location(location);
-		}
-
-		private void flush()
-		{
-			if(state == State.PENDING_PARAGRAPH && encounter.inParagraph())
-			{
-				/*
-				 * Pending paragraphs need some special handling as the first
-				 * newline should be part of the previous paragraph and
-				 * anything else should be outside of the paragraph.
-				 */
-				int offset = 1;
-				char c = builder.charAt(0);
-				if(c == '\r' && builder.length() > 1 && builder.charAt(1) == '\n')
-				{
-					// Pair or carriage return + newline
-					offset = 2;
-				}
-
-				String text = builder.substring(0, offset);
-				MutableTextOffsetLocation end = location.copy().moveTo(
-					lastLocation.get() + offset,
-					lastLocation.getLine() + 1,
-					0
-				);
-				encounter.text(text, end);
-
-				// Update the location and end the paragraph
-				location.moveTo(lastLocation.get() + offset, lastLocation.getLine() + 1, 0);
-				encounter.location(location);
-				encounter.endParagraph();
-
-				if(builder.length() > offset)
-				{
-					text = builder.substring(offset);
-
-					encounter.text(text, lastLocation.copy().moveTextIndex(builder));
-				}
-
-				builder.setLength(0);
-			}
-			else if(builder.length() > 0)
+			while((length = reader.read(buffer)) != -1)
 			{
-				String text = builder.toString();
-				encounter.text(text, lastLocation.copy().moveTextIndex(builder));
-				builder.setLength(0);
+				parser.feed(sequence, 0, length);
 			}
 
-			flushLocation();
+			parser.finish();
 		}
 	}
 }
@@ -0,0 +1,140 @@
+package se.l4.lect.text;
+
+/**
+ * {@link CharSequence} that is a view of a part of another sequence. The
+ * view does not copy any characters, changes to the underlying sequence will
+ * be visible through the view. Views are mutable and can be pointed at a new
+ * range via {@link #update(CharSequence, int, int)} to avoid creating new
+ * objects in tight loops.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class SubSequence
+	implements CharSequence
+{
+	private CharSequence source;
+	private int start;
+	private int end;
+
+	/**
+	 * Create a new empty view.
+	 */
+	public SubSequence()
+	{
+		this("", 0, 0);
+	}
+
+	/**
+	 * Create a new view of the given sequence.
+	 *
+	 * @param source
+	 *   the sequence to view
+	 * @param start
+	 *   the start index, inclusive
+	 * @param end
+	 *   the end index, exclusive
+	 */
+	public SubSequence(CharSequence source, int start, int end)
+	{
+		update(source, start, end);
+	}
+
+	/**
+	 * Update this view to point to a new range.
+	 *
+	 * @param source
+	 *   the sequence to view
+	 * @param start
+	 *   the start index, inclusive
+	 * @param end
+	 *   the end index, exclusive
+	 * @return
+	 *   this instance
+	 */
+	public SubSequence update(CharSequence source, int start, int end)
+	{
+		if(start < 0 || end < start || end > source.length())
+		{
+			throw new IndexOutOfBoundsException("Invalid range " + start + " to " + end + " for sequence with length " + source.length());
+		}
+
+		this.source = source;
+		this.start = start;
+		this.end = end;
+		return this;
+	}
+
+	/**
+	 * Get the sequence this is a view of.
+	 *
+	 * @return
+	 */
+	public CharSequence getSource()
+	{
+		return source;
+	}
+
+	/**
+	 * Get the index in the source where this view starts.
+	 *
+	 * @return
+	 */
+	public int getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * Get the index in the source where this view ends.
+	 *
+	 * @return
+	 */
+	public int getEnd()
+	{
+		return end;
+	}
+
+	@Override
+	public int length()
+	{
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index)
+	{
+		if(index < 0 || index >= end - start)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for length " + (end - start));
+		}
+
+		return source.charAt(start + index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end)
+	{
+		if(start < 0 || end < start || end > this.end - this.start)
+		{
+			throw new IndexOutOfBoundsException("Invalid range " + start + " to " + end + " for sequence with length " + length());
+		}
+
+		return new SubSequence(source, this.start + start, this.start + end);
+	}
+
+	@Override
+	public String toString()
+	{
+		if(source instanceof String)
+		{
+			return ((String) source).substring(start, end);
+		}
+		else if(source instanceof StringBuilder)
+		{
+			return ((StringBuilder) source).substring(start, end);
+		}
+
+		return source.subSequence(start, end).toString();
+	}
+}
@@ -18,7 +18,7 @@ public class ImmutableToken
 	private final String text;
 	private final Location start;
 	private final Location end;
-	private final Map<String, Object> properties;
+	private final PropertyValues properties;
 
 	public ImmutableToken(
 		TokenType type,
@@ -26,6 +26,34 @@ public class ImmutableToken
 		Location end,
 		CharSequence text,
 		Map<String, Object> properties)
+	{
+		this(type, start, end, text, new PropertyValues());
+
+		if(properties != null)
+		{
+			this.properties.putAll(properties);
+		}
+	}
+
+	/**
+	 * Create a token that takes ownership of the given properties.
+	 */
+	static ImmutableToken withProperties(
+		TokenType type,
+		Location start,
+		Location end,
+		CharSequence text,
+		PropertyValues properties)
+	{
+		return new ImmutableToken(type, start, end, text, properties);
+	}
+
+	private ImmutableToken(
+		TokenType type,
+		Location start,
+		Location end,
+		CharSequence text,
+		PropertyValues properties)
 	{
 		this.type = type;
 		this.properties = properties;
@@ -67,21 +95,25 @@ public class ImmutableToken
 	@Override
 	public <T> T get(TokenProperty<T> property)
 	{
-		if(properties == null)
-		{
-			return null;
-		}
-		return property.cast(properties.get(property.getId()));
+		return property.cast(properties.get(property.getIndex()));
 	}
 
 	@Override
 	public boolean has(TokenProperty<?> property)
 	{
-		return properties.containsKey(property.getId());
+		return properties.has(property.getIndex());
 	}
 
 	@Override
 	public Map<String, Object> getProperties()
+	{
+		return properties.toMap();
+	}
+
+	/**
+	 * Get the properties of this token without creating a {@link Map}.
+	 */
+	PropertyValues properties()
 	{
 		return properties;
 	}
@@ -89,6 +121,6 @@ public class ImmutableToken
 	@Override
 	public String toString()
 	{
-		return type + ": " + text + " (" + start + "-" + end + ")" + (properties == null ? "" : " " + properties);
+		return type + ": " + text + " (" + start + "-" + end + ")" + (properties.isEmpty() ? "" : " " + properties);
 	}
 }
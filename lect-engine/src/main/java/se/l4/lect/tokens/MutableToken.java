@@ -1,14 +1,20 @@
 package se.l4.lect.tokens;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import se.l4.lect.location.Location;
+import se.l4.lect.text.SubSequence;
 
 /**
  * Implementation of {@link Token} that is mutable. Mutable tokens can be
  * modified and are commonly used by {@link se.l4.lect.LanguageParser}s to 
  * reduce memory usage during parsing.
+ *
+ * <p>
+ * Mutable tokens can also be updated with a view of some text via
+ * {@link #update(TokenType, Location, Location, CharSequence, int, int, Map)}.
+ * In that case the text is not copied and a {@link String} is only created
+ * if {@link #getText()} is called.
  * 
  * @author Andreas Holstenson
  */
@@ -17,16 +23,19 @@ public class MutableToken
 {
 	private TokenType type;
 	private String text;
+	private CharSequence textSequence;
+	private SubSequence textView;
 	private Location start;
 	private Location end;
 
-	private Map<String, Object> properties;
+	private final PropertyValues properties;
 
 	/**
 	 * Create a new empty token.
 	 */
 	public MutableToken()
 	{
+		properties = new PropertyValues();
 	}
 
 	/**
@@ -43,6 +52,7 @@ public class MutableToken
 	 */
 	public MutableToken(TokenType type, Location start, Location end, CharSequence text)
 	{
+		this();
 		this.update(type, start, end, text);
 	}
 
@@ -81,21 +91,56 @@ public class MutableToken
 	{
 		this.type = type;
 		this.text = text == null ? null : text.toString();
+		this.textSequence = this.text;
 		this.start = start;
 		this.end = end;
 
-		if(properties != null)
+		updateProperties(otherProperties);
+	}
+
+	/**
+	 * Update the data within the token using a part of the given sequence as
+	 * the text. The text is not copied, instead the token keeps a view of the
+	 * sequence and only creates a {@link String} when {@link #getText()} is
+	 * called. The sequence must not be modified while the token is in use.
+	 *
+	 * @param type
+	 *   the type of the token
+	 * @param start
+	 *   the start of the token
+	 * @param end
+	 *   the end of the token
+	 * @param source
+	 *   the sequence containing the text of the token
+	 * @param offset
+	 *   the index in the sequence where the text starts
+	 * @param length
+	 *   the length of the text
+	 * @param otherProperties
+	 *   properties for the token
+	 */
+	public void update(TokenType type, Location start, Location end, CharSequence source, int offset, int length, Map<String, Object> otherProperties)
+	{
+		if(textView == null)
 		{
-			properties.clear();
+			textView = new SubSequence();
 		}
 
+		this.type = type;
+		this.text = null;
+		this.textSequence = textView.update(source, offset, offset + length);
+		this.start = start;
+		this.end = end;
+
+		updateProperties(otherProperties);
+	}
+
+	private void updateProperties(Map<String, Object> otherProperties)
+	{
+		properties.clear();
+
 		if(otherProperties != null)
 		{
-			if(properties == null)
-			{
-				properties = new HashMap<>();
-			}
-
 			properties.putAll(otherProperties);
 		}
 	}
@@ -111,21 +156,19 @@ public class MutableToken
 		this.start = other.getStart();
 		this.end = other.getEnd();
 		this.text = other.getText();
+		this.textSequence = this.text;
 
-		if(properties != null)
+		if(other instanceof MutableToken)
 		{
-			properties.clear();
+			properties.copyFrom(((MutableToken) other).properties);
 		}
-
-		Map<String, Object> otherProperties = other.getProperties();
-		if(otherProperties != null)
+		else if(other instanceof ImmutableToken)
 		{
-			if(properties == null)
-			{
-				properties = new HashMap<>();
-			}
-
-			properties.putAll(otherProperties);
+			properties.copyFrom(((ImmutableToken) other).properties());
+		}
+		else
+		{
+			updateProperties(other.getProperties());
 		}
 	}
 
@@ -144,12 +187,25 @@ public class MutableToken
 	@Override
 	public String getText()
 	{
+		if(text == null && textSequence != null)
+		{
+			// Text is a view, materialize it
+			text = textSequence.toString();
+		}
+
 		return text;
 	}
 
+	@Override
+	public CharSequence getTextSequence()
+	{
+		return textSequence;
+	}
+
 	public MutableToken setText(CharSequence text)
 	{
 		this.text = text.toString();
+		this.textSequence = this.text;
 		return this;
 	}
 
@@ -180,17 +236,13 @@ public class MutableToken
 	@Override
 	public <T> T get(TokenProperty<T> property)
 	{
-		if(properties == null)
-		{
-			return null;
-		}
-		return property.cast(properties.get(property.getId()));
+		return property.cast(properties.get(property.getIndex()));
 	}
 
 	@Override
 	public boolean has(TokenProperty<?> property)
 	{
-		return properties.containsKey(property.getId());
+		return properties.has(property.getIndex());
 	}
 
 	/**
@@ -205,11 +257,7 @@ public class MutableToken
 	 */
 	public <T> MutableToken set(TokenProperty<T> property, T value)
 	{
-		if(properties == null)
-		{
-			properties = new HashMap<>();
-		}
-		properties.put(property.getId(), value);
+		properties.set(property.getIndex(), value);
 
 		return this;
 	}
@@ -217,19 +265,27 @@ public class MutableToken
 	@Override
 	public Map<String, Object> getProperties()
 	{
-		return properties;
+		return properties.toMap();
 	}
 
 	@Override
 	public Token copy()
 	{
-		return new ImmutableToken(type, start, end, text, properties == null ? null : new HashMap<>(properties));
+		return ImmutableToken.withProperties(type, start, end, getText(), properties.copy());
+	}
+
+	/**
+	 * Get the properties of this token without creating a {@link Map}.
+	 */
+	PropertyValues properties()
+	{
+		return properties;
 	}
 
 	@Override
 	public String toString()
 	{
-		return type + ": " + text + " (" + start + "-" + end + ")" + (properties == null ? "" : " " + properties);
+		return type + ": " + getText() + " (" + start + "-" + end + ")" + (properties.isEmpty() ? "" : " " + properties);
 	}
 
 	public static MutableToken ofType(TokenType type)
@@ -109,6 +109,34 @@ public abstract class OffsetTokenizer
 		pendingToken.update(type, this.pendingStart, this.pendingEnd, text);
 	}
 
+	/**
+	 * Set the next token using a range of the given sequence, which is
+	 * usually the text being tokenized. The text of the token will be a view
+	 * of the sequence so no copy of the text is made. Should be called by
+	 * {@link #findNextToken(int)} to update information about the token that
+	 * has been found.
+	 *
+	 * @param type
+	 *   the type of token
+	 * @param source
+	 *   the sequence containing the text of the token
+	 * @param start
+	 *   the start offset of the token, inclusive
+	 * @param end
+	 *   the end offset of the token, exclusive
+	 */
+	protected void setNextToken(TokenType type, CharSequence source, int start, int end)
+	{
+		if(start == end)
+		{
+			throw new IllegalStateException("Empty token encountered at @" + start);
+		}
+
+		this.pendingStart.set(start);
+		this.pendingEnd.set(end);
+		pendingToken.update(type, this.pendingStart, this.pendingEnd, source, start, end - start, null);
+	}
+
 	/**
 	 * Enhance the next token. Can be called after
 	 * {@link #setNextToken(TokenType, int, CharSequence)} to enhance the token
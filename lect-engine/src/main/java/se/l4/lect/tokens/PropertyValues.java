@@ -0,0 +1,261 @@
+package se.l4.lect.tokens;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Values of the properties of a token, stored in an array indexed by
+ * {@link TokenProperty#getIndex()} together with a bitmask of the properties
+ * that are set. Values with ids that have not been
+ * {@link TokenProperty#define(String, Class) defined}, such as keys of maps
+ * given to tokens, are kept in a map. Used by {@link MutableToken} and
+ * {@link ImmutableToken}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+final class PropertyValues
+{
+	private static final Object[] NO_VALUES = new Object[0];
+	private static final long[] NO_BITS = new long[0];
+
+	private Object[] values;
+	private long[] present;
+	private int size;
+
+	/**
+	 * Values with ids that have no index, {@code null} if there are none.
+	 */
+	private Map<String, Object> others;
+
+	PropertyValues()
+	{
+		values = NO_VALUES;
+		present = NO_BITS;
+	}
+
+	/**
+	 * Get the number of properties that are set.
+	 */
+	int size()
+	{
+		return others == null ? size : size + others.size();
+	}
+
+	boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	boolean has(int index)
+	{
+		int word = index >>> 6;
+		if(word < present.length && (present[word] & (1L << index)) != 0)
+		{
+			return true;
+		}
+
+		// The property may have been defined after the value was set
+		return others != null && others.containsKey(TokenProperty.idOf(index));
+	}
+
+	Object get(int index)
+	{
+		Object value = index < values.length ? values[index] : null;
+		if(value == null && others != null)
+		{
+			return others.get(TokenProperty.idOf(index));
+		}
+
+		return value;
+	}
+
+	/**
+	 * Get the values with ids that have no index.
+	 *
+	 * @return
+	 *   the values or {@code null} if there are none
+	 */
+	Map<String, Object> others()
+	{
+		return others == null || others.isEmpty() ? null : others;
+	}
+
+	void set(int index, Object value)
+	{
+		if(index >= values.length)
+		{
+			values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+		}
+
+		int word = index >>> 6;
+		if(word >= present.length)
+		{
+			present = Arrays.copyOf(present, word + 1);
+		}
+
+		long bit = 1L << index;
+		if((present[word] & bit) == 0)
+		{
+			present[word] |= bit;
+			size++;
+		}
+
+		values[index] = value;
+	}
+
+	/**
+	 * Get the index of the next property that is set, starting at the given
+	 * index.
+	 *
+	 * @return
+	 *   the index of the property or {@code -1} if no more properties are set
+	 */
+	int next(int from)
+	{
+		int word = from >>> 6;
+		if(word >= present.length)
+		{
+			return -1;
+		}
+
+		long bits = present[word] & (-1L << from);
+		while(true)
+		{
+			if(bits != 0)
+			{
+				return (word << 6) + Long.numberOfTrailingZeros(bits);
+			}
+
+			if(++word == present.length)
+			{
+				return -1;
+			}
+
+			bits = present[word];
+		}
+	}
+
+	void clear()
+	{
+		if(others != null)
+		{
+			others.clear();
+		}
+
+		if(size == 0)
+		{
+			return;
+		}
+
+		for(int i=next(0); i>=0; i=next(i + 1))
+		{
+			values[i] = null;
+		}
+
+		Arrays.fill(present, 0);
+		size = 0;
+	}
+
+	void copyFrom(PropertyValues other)
+	{
+		clear();
+
+		for(int i=other.next(0); i>=0; i=other.next(i + 1))
+		{
+			set(i, other.values[i]);
+		}
+
+		if(other.others() != null)
+		{
+			putOthers(other.others);
+		}
+	}
+
+	void putAll(Map<String, Object> map)
+	{
+		for(Map.Entry<String, Object> e : map.entrySet())
+		{
+			int index = TokenProperty.findIndex(e.getKey());
+			if(index >= 0)
+			{
+				set(index, e.getValue());
+			}
+			else
+			{
+				putOther(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Set a value with an id that has no index.
+	 */
+	void putOther(String id, Object value)
+	{
+		if(others == null)
+		{
+			others = new HashMap<>();
+		}
+
+		others.put(id, value);
+	}
+
+	private void putOthers(Map<String, Object> map)
+	{
+		if(others == null)
+		{
+			others = new HashMap<>(map);
+		}
+		else
+		{
+			others.putAll(map);
+		}
+	}
+
+	PropertyValues copy()
+	{
+		PropertyValues result = new PropertyValues();
+		if(size > 0)
+		{
+			result.values = Arrays.copyOf(values, values.length);
+			result.present = Arrays.copyOf(present, present.length);
+			result.size = size;
+		}
+
+		if(others() != null)
+		{
+			result.others = new HashMap<>(others);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Create a {@link Map} with the properties that are set, or {@code null}
+	 * if no properties are set.
+	 */
+	Map<String, Object> toMap()
+	{
+		if(isEmpty())
+		{
+			return null;
+		}
+
+		Map<String, Object> result = others() == null ? new HashMap<>() : new HashMap<>(others);
+		for(int i=next(0); i>=0; i=next(i + 1))
+		{
+			result.put(TokenProperty.idOf(i), values[i]);
+		}
+
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		Map<String, Object> map = toMap();
+		return map == null ? "{}" : map.toString();
+	}
+}
@@ -10,6 +10,31 @@ import se.l4.lect.CharPredicate;
  */
 public class TextTokenization
 {
+	/*
+	 * Classification of every char, used instead of calling Character for
+	 * every char when finding the type of a token.
+	 */
+	private static final byte WHITESPACE = 1;
+	private static final byte LETTER_OR_DIGIT = 2;
+
+	private static final byte[] CLASSES = new byte[Character.MAX_VALUE + 1];
+
+	static
+	{
+		for(int i=0; i<=Character.MAX_VALUE; i++)
+		{
+			char c = (char) i;
+			if(Character.isWhitespace(c) || c == '\u00A0' /* Non-breaking space */)
+			{
+				CLASSES[i] = WHITESPACE;
+			}
+			else if(Character.isLetterOrDigit(c))
+			{
+				CLASSES[i] = LETTER_OR_DIGIT;
+			}
+		}
+	}
+
 	private TextTokenization()
 	{
 	}
@@ -21,21 +46,47 @@ public class TextTokenization
 	 * @return
 	 */
 	public static TokenType findBestTokenType(CharSequence text)
+	{
+		return findBestTokenType(text, 0, text.length());
+	}
+
+	/**
+	 * Find the best token type for a part of the given text. Can be used to
+	 * classify tokens directly in a larger text without creating a
+	 * {@link String} for them.
+	 *
+	 * @param text
+	 *   the text containing the token
+	 * @param offset
+	 *   the index where the token starts
+	 * @param length
+	 *   the length of the token
+	 * @return
+	 */
+	public static TokenType findBestTokenType(CharSequence text, int offset, int length)
 	{
 		boolean allSymbols = true;
 		boolean allWhitespace = true;
-		for(int i=0, n=text.length(); i<n; i++)
+		for(int i=offset, n=offset + length; i<n; i++)
 		{
-			char c = text.charAt(i);
-			boolean isWhitespace = Character.isWhitespace(c) || c == '\u00A0' /* Non-breaking space */;
-			if(allWhitespace && ! isWhitespace)
+			byte c = CLASSES[text.charAt(i)];
+			if(c == WHITESPACE)
+			{
+				allSymbols = false;
+			}
+			else
 			{
 				allWhitespace = false;
+				if(c == LETTER_OR_DIGIT)
+				{
+					allSymbols = false;
+				}
 			}
 
-			if(allSymbols && (Character.isLetterOrDigit(c) || isWhitespace))
+			if(! allSymbols && ! allWhitespace)
 			{
-				allSymbols = false;
+				// Neither symbols or whitespace, the rest of the text can not change that
+				return TokenType.WORD;
 			}
 		}
 
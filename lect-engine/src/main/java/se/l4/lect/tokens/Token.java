@@ -26,6 +26,19 @@ public interface Token
 	 */
 	String getText();
 
+	/**
+	 * Get the text of the token as a {@link CharSequence}. Unlike
+	 * {@link #getText()} this will never create a new {@link String}, but the
+	 * returned sequence may be a view that is only valid as long as the token
+	 * is. Use {@link #getText()} if the text needs to be kept.
+	 *
+	 * @return
+	 */
+	default CharSequence getTextSequence()
+	{
+		return getText();
+	}
+
 	/**
 	 * Get where this token starts.
 	 *
@@ -56,9 +69,13 @@ public interface Token
 	boolean has(TokenProperty<?> property);
 
 	/**
-	 * Get properties as a {@link Map}.
+	 * Get properties as a {@link Map}. The map is created when this method is
+	 * called and changes to it are not reflected in the token, use
+	 * {@link #get(TokenProperty)} to read a single property.
 	 *
 	 * @return
+	 *   map with the properties, or {@code null} if the token has no
+	 *   properties
 	 */
 	Map<String, Object> getProperties();
 
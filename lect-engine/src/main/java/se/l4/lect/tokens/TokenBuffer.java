@@ -0,0 +1,551 @@
+package se.l4.lect.tokens;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import se.l4.lect.location.Location;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.text.SubSequence;
+
+/**
+ * Buffer of tokens stored in columns instead of as separate objects. Useful
+ * for handlers that need to keep all of the tokens of a sentence or
+ * paragraph, as tokens can be added directly from
+ * {@link se.l4.lect.Handler#token(Token)} without calling {@link Token#copy()}.
+ *
+ * <p>
+ * The type of every token is stored in a single array, the text in a shared
+ * character buffer, locations in a {@link LocationBuffer} and properties in
+ * one array per property, indexed by {@link TokenProperty#getIndex()}.
+ * Properties with ids that have not been
+ * {@link TokenProperty#define(String, Class) defined} are kept per token.
+ * Tokens are read via flyweight views returned by {@link #view(int)} and
+ * {@link #view(int, Token)}, which are only valid until the buffer is
+ * modified. Buffers are intended to be reused via {@link #clear()}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class TokenBuffer
+{
+	private static final TokenType[] TYPES = TokenType.values();
+
+	/**
+	 * Marker for properties that are set but have a {@code null} value.
+	 */
+	private static final Object NULL = new Object();
+
+	private byte[] types;
+	private int[] textEnds;
+	private final StringBuilder text;
+	private final LocationBuffer locations;
+
+	/*
+	 * Columns of property values indexed by TokenProperty#getIndex(), null
+	 * for properties that no token in the buffer has.
+	 */
+	private Object[][] properties;
+
+	/*
+	 * Properties with ids that have no index, per token. Null if no token in
+	 * the buffer has such properties.
+	 */
+	private PropertyValues[] others;
+
+	private int size;
+
+	private View view;
+
+	public TokenBuffer()
+	{
+		this(64);
+	}
+
+	public TokenBuffer(int capacity)
+	{
+		types = new byte[capacity];
+		textEnds = new int[capacity];
+		text = new StringBuilder(capacity * 8);
+		locations = new LocationBuffer(capacity * 2);
+
+		properties = new Object[0][];
+	}
+
+	/**
+	 * Get the number of tokens in this buffer.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Get if this buffer is empty.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Remove all tokens from this buffer, keeping the allocated space so
+	 * that the buffer can be reused.
+	 */
+	public void clear()
+	{
+		for(Object[] column : properties)
+		{
+			if(column != null)
+			{
+				Arrays.fill(column, 0, size, null);
+			}
+		}
+
+		if(others != null)
+		{
+			Arrays.fill(others, 0, size, null);
+		}
+
+		text.setLength(0);
+		locations.clear();
+		size = 0;
+	}
+
+	/**
+	 * Add a token to this buffer. The data of the token is copied into the
+	 * buffer, so shared tokens can be added directly.
+	 *
+	 * @param token
+	 * @return
+	 *   the index of the token
+	 */
+	public int add(Token token)
+	{
+		if(size == types.length)
+		{
+			int capacity = Math.max(16, size * 2);
+			types = Arrays.copyOf(types, capacity);
+			textEnds = Arrays.copyOf(textEnds, capacity);
+
+			for(int i=0; i<properties.length; i++)
+			{
+				if(properties[i] != null)
+				{
+					properties[i] = Arrays.copyOf(properties[i], capacity);
+				}
+			}
+
+			if(others != null)
+			{
+				others = Arrays.copyOf(others, capacity);
+			}
+		}
+
+		int index = size++;
+		types[index] = (byte) token.getType().ordinal();
+
+		CharSequence tokenText = token.getTextSequence();
+		if(tokenText != null)
+		{
+			text.append(tokenText);
+		}
+		textEnds[index] = text.length();
+
+		locations.add(token.getStart());
+		locations.add(token.getEnd());
+
+		// Read properties directly from the built-in tokens to avoid creating a map
+		PropertyValues values = null;
+		if(token instanceof MutableToken)
+		{
+			values = ((MutableToken) token).properties();
+		}
+		else if(token instanceof ImmutableToken)
+		{
+			values = ((ImmutableToken) token).properties();
+		}
+
+		if(values != null)
+		{
+			for(int i=values.next(0); i>=0; i=values.next(i + 1))
+			{
+				setProperty(index, i, values.get(i));
+			}
+
+			Map<String, Object> undefined = values.others();
+			if(undefined != null)
+			{
+				for(Map.Entry<String, Object> e : undefined.entrySet())
+				{
+					setOther(index, e.getKey(), e.getValue());
+				}
+			}
+		}
+		else
+		{
+			Map<String, Object> tokenProperties = token.getProperties();
+			if(tokenProperties != null)
+			{
+				for(Map.Entry<String, Object> e : tokenProperties.entrySet())
+				{
+					int property = TokenProperty.findIndex(e.getKey());
+					if(property >= 0)
+					{
+						setProperty(index, property, e.getValue());
+					}
+					else
+					{
+						setOther(index, e.getKey(), e.getValue());
+					}
+				}
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Set the value of a property for a token, creating the column of the
+	 * property if needed.
+	 */
+	private void setProperty(int token, int property, Object value)
+	{
+		if(property >= properties.length)
+		{
+			properties = Arrays.copyOf(properties, property + 1);
+		}
+
+		Object[] column = properties[property];
+		if(column == null)
+		{
+			column = properties[property] = new Object[types.length];
+		}
+
+		column[token] = value == null ? NULL : value;
+	}
+
+	/**
+	 * Set the value of a property with an id that has no index.
+	 */
+	private void setOther(int token, String id, Object value)
+	{
+		if(others == null)
+		{
+			others = new PropertyValues[types.length];
+		}
+
+		PropertyValues values = others[token];
+		if(values == null)
+		{
+			values = others[token] = new PropertyValues();
+		}
+
+		values.putOther(id, value);
+	}
+
+	/**
+	 * Get the value stored for a property, {@code null} if not set.
+	 */
+	private Object rawProperty(int token, int property)
+	{
+		if(property >= properties.length)
+		{
+			return null;
+		}
+
+		Object[] column = properties[property];
+		return column == null ? null : column[token];
+	}
+
+	/**
+	 * Get the type of the token at the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public TokenType getType(int index)
+	{
+		checkIndex(index);
+		return TYPES[types[index]];
+	}
+
+	/**
+	 * Get the index in {@link #getText()} where the text of the token at the
+	 * given index starts.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getTextStart(int index)
+	{
+		checkIndex(index);
+		return index == 0 ? 0 : textEnds[index - 1];
+	}
+
+	/**
+	 * Get the index in {@link #getText()} where the text of the token at the
+	 * given index ends.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getTextEnd(int index)
+	{
+		checkIndex(index);
+		return textEnds[index];
+	}
+
+	/**
+	 * Get the text of all tokens in this buffer. The text of a single token
+	 * can be found via {@link #getTextStart(int)} and {@link #getTextEnd(int)}.
+	 * The returned sequence is only valid until the buffer is modified.
+	 *
+	 * @return
+	 */
+	public CharSequence getText()
+	{
+		return text;
+	}
+
+	/**
+	 * Get the buffer holding the locations of the tokens. The start of a
+	 * token is at index {@code token * 2} and the end at index
+	 * {@code token * 2 + 1}.
+	 *
+	 * @return
+	 */
+	public LocationBuffer getLocations()
+	{
+		return locations;
+	}
+
+	/**
+	 * Get the value of a property for the token at the given index.
+	 *
+	 * @param index
+	 * @param property
+	 * @return
+	 */
+	public <T> T get(int index, TokenProperty<T> property)
+	{
+		checkIndex(index);
+
+		Object value = rawProperty(index, property.getIndex());
+		if(value == null && others != null && others[index] != null)
+		{
+			// The property may have been defined after the token was added
+			return property.cast(others[index].get(property.getIndex()));
+		}
+
+		return value == NULL ? null : property.cast(value);
+	}
+
+	/**
+	 * Get if the token at the given index has a value for the given property.
+	 *
+	 * @param index
+	 * @param property
+	 * @return
+	 */
+	public boolean has(int index, TokenProperty<?> property)
+	{
+		checkIndex(index);
+
+		return rawProperty(index, property.getIndex()) != null
+			|| (others != null && others[index] != null && others[index].has(property.getIndex()));
+	}
+
+	/**
+	 * Get a view of the token at the given index. The view is shared by all
+	 * calls to this method and is only valid until the next call or until
+	 * the buffer is modified. Use {@link Token#copy()} to keep the token.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public Token view(int index)
+	{
+		if(view == null)
+		{
+			view = new View();
+		}
+
+		return view.moveTo(index);
+	}
+
+	/**
+	 * Get a view of the token at the given index, reusing the given token if
+	 * it is a view of this buffer. Used when several tokens need to be viewed
+	 * at the same time.
+	 *
+	 * @param index
+	 * @param reuse
+	 *   token to reuse, may be {@code null}
+	 * @return
+	 */
+	public Token view(int index, Token reuse)
+	{
+		if(reuse instanceof View && ((View) reuse).buffer() == this)
+		{
+			return ((View) reuse).moveTo(index);
+		}
+
+		return new View().moveTo(index);
+	}
+
+	/**
+	 * Get an immutable copy of the token at the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public Token copy(int index)
+	{
+		return view(index, null).copy();
+	}
+
+	private void checkIndex(int index)
+	{
+		if(index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " is outside of buffer with size " + size);
+		}
+	}
+
+	/**
+	 * Flyweight {@link Token} that reads from the columns of the buffer.
+	 */
+	private class View
+		implements Token
+	{
+		private final SubSequence textView;
+
+		private int index;
+		private Location start;
+		private Location end;
+
+		public View()
+		{
+			textView = new SubSequence();
+		}
+
+		private TokenBuffer buffer()
+		{
+			return TokenBuffer.this;
+		}
+
+		private View moveTo(int index)
+		{
+			checkIndex(index);
+
+			this.index = index;
+			this.start = locations.view(index * 2, start);
+			this.end = locations.view(index * 2 + 1, end);
+			return this;
+		}
+
+		@Override
+		public TokenType getType()
+		{
+			return TYPES[types[index]];
+		}
+
+		@Override
+		public String getText()
+		{
+			return text.substring(getTextStart(index), textEnds[index]);
+		}
+
+		@Override
+		public CharSequence getTextSequence()
+		{
+			return textView.update(text, getTextStart(index), textEnds[index]);
+		}
+
+		@Override
+		public Location getStart()
+		{
+			return start;
+		}
+
+		@Override
+		public Location getEnd()
+		{
+			return end;
+		}
+
+		@Override
+		public <T> T get(TokenProperty<T> property)
+		{
+			return TokenBuffer.this.get(index, property);
+		}
+
+		@Override
+		public boolean has(TokenProperty<?> property)
+		{
+			return TokenBuffer.this.has(index, property);
+		}
+
+		@Override
+		public Map<String, Object> getProperties()
+		{
+			PropertyValues values = values();
+			return values == null ? null : values.toMap();
+		}
+
+		/**
+		 * Collect the properties of the current token.
+		 */
+		private PropertyValues values()
+		{
+			PropertyValues result = null;
+			for(int i=0; i<properties.length; i++)
+			{
+				Object value = rawProperty(index, i);
+				if(value != null)
+				{
+					if(result == null)
+					{
+						result = new PropertyValues();
+					}
+
+					result.set(i, value == NULL ? null : value);
+				}
+			}
+
+			Map<String, Object> undefined = others == null || others[index] == null ? null : others[index].others();
+			if(undefined != null)
+			{
+				if(result == null)
+				{
+					result = new PropertyValues();
+				}
+
+				for(Map.Entry<String, Object> e : undefined.entrySet())
+				{
+					result.putOther(e.getKey(), e.getValue());
+				}
+			}
+
+			return result;
+		}
+
+		@Override
+		public Token copy()
+		{
+			PropertyValues values = values();
+			return ImmutableToken.withProperties(getType(), start, end, getText(), values == null ? new PropertyValues() : values);
+		}
+
+		@Override
+		public String toString()
+		{
+			Map<String, Object> properties = getProperties();
+			return getType() + ": " + getText() + " (" + start + "-" + end + ")" + (properties == null ? "" : " " + properties);
+		}
+	}
+}
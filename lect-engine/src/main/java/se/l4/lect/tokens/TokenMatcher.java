@@ -24,6 +24,11 @@ import se.l4.lect.Handler;
  * }
  * </pre>
  *
+ * <p>
+ * Matchers do not keep any tokens, instead {@link #getMatchStart()} and
+ * {@link #getMatchEnd()} can be used to find which of the added tokens that
+ * are part of a match.
+ *
  * @author Andreas Holstenson
  *
  */
@@ -62,4 +67,59 @@ public interface TokenMatcher
 	 * @return
 	 */
 	boolean isMatch();
+
+	/**
+	 * Get the index of the first token in the current match. Tokens are
+	 * indexed in the order they are {@link #add(Token) added}, starting from
+	 * zero when the matcher is created or {@link #reset()}. Ignored
+	 * whitespace tokens are also counted.
+	 *
+	 * @return
+	 *   index of the first token, inclusive
+	 * @throws IndexOutOfBoundsException
+	 *   if there is no current match
+	 */
+	int getMatchStart();
+
+	/**
+	 * Get the index after the last token in the current match.
+	 *
+	 * @return
+	 *   index of the last token, exclusive
+	 * @throws IndexOutOfBoundsException
+	 *   if there is no current match
+	 */
+	int getMatchEnd();
+
+	/**
+	 * Get the index of the first token in a named group of the current match.
+	 * Groups are defined in patterns using {@code (?<name> ...)}.
+	 *
+	 * @param group
+	 *   the name of the group
+	 * @return
+	 *   index of the first token, inclusive, or {@code -1} if the group was
+	 *   not part of the match
+	 * @throws IndexOutOfBoundsException
+	 *   if there is no current match
+	 * @throws IllegalArgumentException
+	 *   if the pattern has no such group
+	 */
+	int getGroupStart(String group);
+
+	/**
+	 * Get the index after the last token in a named group of the current
+	 * match.
+	 *
+	 * @param group
+	 *   the name of the group
+	 * @return
+	 *   index of the last token, exclusive, or {@code -1} if the group was
+	 *   not part of the match
+	 * @throws IndexOutOfBoundsException
+	 *   if there is no current match
+	 * @throws IllegalArgumentException
+	 *   if the pattern has no such group
+	 */
+	int getGroupEnd(String group);
 }
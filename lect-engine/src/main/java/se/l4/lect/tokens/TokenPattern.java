@@ -30,6 +30,12 @@ import se.l4.lect.internal.tokens.TokenPatternImpl;
  * TokenPattern.compile("'Test'");
  * // Match against TokenProperty.NORMALIZED
  * TokenPattern.compile("word,normalized='test'");
+ * // Match against a regular expression on TokenProperty.LEMMA
+ * TokenPattern.compile("word,lemma=/walk(s|ed|ing)?/");
+ * // Match against a custom property defined with TokenProperty.define("sentiment", ...)
+ * TokenPattern.compile("word,sentiment='positive'");
+ * // Match if a property is set and not false
+ * TokenPattern.compile("symbol,continuation");
  * // Match word followed by symbol
  * TokenPattern.compile("word symbol")
  * // Match against regular expression
@@ -78,6 +84,15 @@ import se.l4.lect.internal.tokens.TokenPatternImpl;
  * TokenPattern.compile("[word,normalized='mrs' word,normalized='mr'] symbol,text='.',continuation?");
  * </pre>
  *
+ * <p>
+ * Groups can be named to find out which tokens they matched via
+ * {@link TokenMatcher#getGroupStart(String)} and
+ * {@link TokenMatcher#getGroupEnd(String)}:
+ *
+ * <pre>
+ * TokenPattern.compile("word='Mr' symbol='.'? (?&lt;name&gt; word)");
+ * </pre>
+ *
  * @author Andreas Holstenson
  *
  */
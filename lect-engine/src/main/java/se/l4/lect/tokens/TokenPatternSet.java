@@ -0,0 +1,71 @@
+package se.l4.lect.tokens;
+
+import java.util.Arrays;
+import java.util.List;
+
+import se.l4.lect.internal.tokens.TokenPatternSetImpl;
+
+/**
+ * Set of {@link TokenPattern patterns} that are matched together. All of the
+ * patterns in a set are compiled into a single automaton, so tokens only
+ * need to be added to a single {@link TokenPatternSetMatcher} and predicates
+ * that are shared between patterns are only evaluated once per token.
+ *
+ * <p>
+ * Patterns in the set are identified by their index in the list they were
+ * compiled from:
+ *
+ * <pre>
+ * TokenPatternSet set = TokenPatternSet.compile("word symbol", "symbol word");
+ * TokenPatternSetMatcher matcher = set.matcher();
+ *
+ * if(matcher.add(token)) {
+ *   for(int i=0; i&lt;matcher.getMatchCount(); i++) {
+ *     int pattern = matcher.getMatch(i);
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface TokenPatternSet
+{
+	/**
+	 * Get the number of patterns in this set.
+	 *
+	 * @return
+	 */
+	int size();
+
+	/**
+	 * Create a new matcher for streaming matching.
+	 *
+	 * @return
+	 */
+	TokenPatternSetMatcher matcher();
+
+	/**
+	 * Compile a set of patterns.
+	 *
+	 * @param patterns
+	 * @return
+	 */
+	static TokenPatternSet compile(String... patterns)
+	{
+		return compile(Arrays.asList(patterns), 0);
+	}
+
+	/**
+	 * Compile a set of patterns.
+	 *
+	 * @param patterns
+	 * @param flags
+	 *   flags as used by {@link TokenPattern}, applied to all of the patterns
+	 * @return
+	 */
+	static TokenPatternSet compile(List<String> patterns, int flags)
+	{
+		return TokenPatternSetImpl.compile(patterns, flags);
+	}
+}
@@ -0,0 +1,79 @@
+package se.l4.lect.tokens;
+
+/**
+ * Matcher created from a {@link TokenPatternSet}. Works like a
+ * {@link TokenMatcher} that matches if any of the patterns in the set
+ * matches, and also keeps track of which patterns matched the last token.
+ *
+ * <p>
+ * Every pattern resets individually after it has matched, so a match of one
+ * pattern does not affect the matching of the other patterns.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface TokenPatternSetMatcher
+	extends TokenMatcher
+{
+	/**
+	 * Get the number of patterns that matched the last token.
+	 *
+	 * @return
+	 */
+	int getMatchCount();
+
+	/**
+	 * Get the identifier of a pattern that matched the last token. Identifiers
+	 * are returned in ascending order.
+	 *
+	 * @param index
+	 *   index between zero and {@link #getMatchCount()}
+	 * @return
+	 *   the index of the pattern in the set
+	 */
+	int getMatch(int index);
+
+	/**
+	 * Get the index of the first token in a match of the last token.
+	 *
+	 * @param index
+	 *   index between zero and {@link #getMatchCount()}
+	 * @return
+	 * @see #getMatchStart()
+	 */
+	int getMatchStart(int index);
+
+	/**
+	 * Get the index after the last token in a match of the last token.
+	 *
+	 * @param index
+	 *   index between zero and {@link #getMatchCount()}
+	 * @return
+	 * @see #getMatchEnd()
+	 */
+	int getMatchEnd(int index);
+
+	/**
+	 * Get the index of the first token in a named group of a match.
+	 *
+	 * @param index
+	 *   index between zero and {@link #getMatchCount()}
+	 * @param group
+	 *   the name of the group
+	 * @return
+	 * @see #getGroupStart(String)
+	 */
+	int getGroupStart(int index, String group);
+
+	/**
+	 * Get the index after the last token in a named group of a match.
+	 *
+	 * @param index
+	 *   index between zero and {@link #getMatchCount()}
+	 * @param group
+	 *   the name of the group
+	 * @return
+	 * @see #getGroupEnd(String)
+	 */
+	int getGroupEnd(int index, String group);
+}
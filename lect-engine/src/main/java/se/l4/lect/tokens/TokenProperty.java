@@ -1,5 +1,9 @@
 package se.l4.lect.tokens;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import se.l4.lect.Handler;
 import se.l4.lect.LanguageParser;
 
@@ -14,6 +18,15 @@ import se.l4.lect.LanguageParser;
  */
 public class TokenProperty<T>
 {
+	/*
+	 * Every id is given a dense index the first time it is defined, so that
+	 * tokens can store properties in arrays. Ids are kept in a copy-on-write
+	 * array so that they can be looked up by index without locking. Only
+	 * define assigns indexes, ids that are never defined are not kept.
+	 */
+	private static final Map<String, Integer> INDEXES = new ConcurrentHashMap<>();
+	private static volatile String[] IDS = new String[0];
+
 	/**
 	 * Normalized form of the token.
 	 */
@@ -35,11 +48,13 @@ public class TokenProperty<T>
 	public static final TokenProperty<String> EXTENDED_TYPE = define("extendedType", String.class);
 
 	private final String id;
+	private final int index;
 	private final Class<T> dataType;
 
 	private TokenProperty(String id, Class<T> dataType)
 	{
 		this.id = id;
+		this.index = assignIndex(id);
 		this.dataType = dataType;
 	}
 
@@ -60,6 +75,80 @@ public class TokenProperty<T>
 		return id;
 	}
 
+	/**
+	 * Get the index of this property. Indexes are dense and shared by all
+	 * properties with the same id, which allows properties to be stored in
+	 * arrays.
+	 *
+	 * @return
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the index of the given id, assigning a new index if the id has not
+	 * been defined before.
+	 *
+	 * @param id
+	 * @return
+	 */
+	private static int assignIndex(String id)
+	{
+		Integer index = INDEXES.get(id);
+		if(index != null)
+		{
+			return index;
+		}
+
+		synchronized(INDEXES)
+		{
+			index = INDEXES.get(id);
+			if(index != null)
+			{
+				return index;
+			}
+
+			String[] ids = Arrays.copyOf(IDS, IDS.length + 1);
+			ids[ids.length - 1] = id;
+			IDS = ids;
+
+			INDEXES.put(id, ids.length - 1);
+			return ids.length - 1;
+		}
+	}
+
+	/**
+	 * Get the index of the given id if a property with the id has been
+	 * defined.
+	 *
+	 * @param id
+	 * @return
+	 *   the index or {@code -1} if no property with the id is defined
+	 */
+	static int findIndex(String id)
+	{
+		if(id == null)
+		{
+			return -1;
+		}
+
+		Integer index = INDEXES.get(id);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Get the id of the property with the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	static String idOf(int index)
+	{
+		return IDS[index];
+	}
+
 	/**
 	 * Cast an object to the data type of this token.
 	 *
@@ -0,0 +1,79 @@
+package se.l4.lect;
+
+import java.util.List;
+
+import se.l4.lect.location.Location;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenProperty;
+
+/**
+ * Handler that records all events as strings into a list used as the
+ * collector.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class EventRecordingHandler
+	implements Handler
+{
+	private final List<String> events;
+
+	public EventRecordingHandler(Encounter<? extends List<String>> encounter)
+	{
+		events = encounter.collector();
+	}
+
+	@Override
+	public void start()
+	{
+		events.add("start");
+	}
+
+	@Override
+	public void startParagraph(Location location)
+	{
+		events.add("startParagraph " + location);
+	}
+
+	@Override
+	public void endParagraph(Location location)
+	{
+		events.add("endParagraph " + location);
+	}
+
+	@Override
+	public void startSentence(Location location)
+	{
+		events.add("startSentence " + location);
+	}
+
+	@Override
+	public void endSentence(Location location)
+	{
+		events.add("endSentence " + location);
+	}
+
+	@Override
+	public void startAttribute(Location location, TokenProperty<?> property, Object value)
+	{
+		events.add("startAttribute " + location + " " + property.getId());
+	}
+
+	@Override
+	public void endAttribute(Location location, TokenProperty<?> property)
+	{
+		events.add("endAttribute " + location + " " + property.getId());
+	}
+
+	@Override
+	public void token(Token token)
+	{
+		events.add("token " + token);
+	}
+
+	@Override
+	public void done()
+	{
+		events.add("done");
+	}
+}
@@ -233,4 +233,26 @@ public class ICULanguageParserTest
 		encounter.verifyToken(TokenType.SYMBOL, Location.text(13, 0, 13), Location.text(14, 0, 14),  ".");
 		encounter.verifySentenceEnd(Location.text(14, 0, 14));
 	}
+
+	@Test
+	public void testMultipleFlushes()
+	{
+		VerifyingLanguageEncounter encounter = new VerifyingLanguageEncounter();
+		ICULanguage parser = new ICULanguage(Locale.ENGLISH, encounter);
+		parser.text("Hello world!", "Hello world!", Location.text(0, 0, 0));
+		parser.flush();
+		parser.text("Cookies.", "Cookies.", Location.text(14, 2, 0));
+		parser.flush();
+
+		encounter.verifySentenceStart(Location.text(0, 0, 0));
+		encounter.verifyToken(TokenType.WORD, Location.text(0, 0, 0), Location.text(5, 0, 5), "Hello");
+		encounter.verifyToken(TokenType.WHITESPACE, Location.text(5, 0, 5), Location.text(6, 0, 6), " ");
+		encounter.verifyToken(TokenType.WORD, Location.text(6, 0, 6), Location.text(11, 0, 11), "world");
+		encounter.verifyToken(TokenType.SYMBOL, Location.text(11, 0, 11), Location.text(12, 0, 12),  "!");
+		encounter.verifySentenceEnd(Location.text(12, 0, 12));
+		encounter.verifySentenceStart(Location.text(14, 2, 0));
+		encounter.verifyToken(TokenType.WORD, Location.text(14, 2, 0), Location.text(21, 2, 7), "Cookies");
+		encounter.verifyToken(TokenType.SYMBOL, Location.text(21, 2, 7), Location.text(22, 2, 8),  ".");
+		encounter.verifySentenceEnd(Location.text(22, 2, 8));
+	}
 }
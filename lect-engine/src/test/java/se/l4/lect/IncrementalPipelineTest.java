@@ -0,0 +1,151 @@
+package se.l4.lect;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.l4.lect.location.Location;
+import se.l4.lect.text.PlainTextSource;
+
+public class IncrementalPipelineTest
+{
+	private int parsed;
+	private IncrementalPipeline<PipelineTestCollector> pipeline;
+
+	@Before
+	public void setup()
+	{
+		LanguageFactory language = ICULanguage.forLocale(Locale.ENGLISH);
+		pipeline = Pipeline.<PipelineTestCollector>newBuilder()
+			.language(encounter -> {
+				// Count the number of times text is actually parsed
+				LanguageParser parser = language.create(encounter);
+				return new LanguageParser()
+				{
+					private boolean hasText;
+
+					@Override
+					public Locale locale()
+					{
+						return parser.locale();
+					}
+
+					@Override
+					public void text(CharSequence text, Location start, Location end)
+					{
+						hasText = true;
+						parser.text(text, start, end);
+					}
+
+					@Override
+					public void flush()
+					{
+						if(hasText)
+						{
+							parsed++;
+							hasText = false;
+						}
+
+						parser.flush();
+					}
+				};
+			})
+			.with(WordCountHandler::new)
+			.buildIncremental();
+	}
+
+	private Object run(String text)
+		throws IOException
+	{
+		parsed = 0;
+		PipelineTestCollector collector = new PipelineTestCollectorImpl();
+		pipeline.run(PlainTextSource.forString(text), collector);
+		return collector.get();
+	}
+
+	@Test
+	public void testUnchangedSource()
+		throws IOException
+	{
+		String text = "Hello world.\n\nSecond paragraph here.\n\nThird one.";
+		assertThat(run(text), is(7));
+
+		// The whitespace between the paragraphs is the same, so it is only parsed once
+		assertThat(parsed, is(4));
+
+		assertThat(run(text), is(7));
+		assertThat(parsed, is(0));
+	}
+
+	@Test
+	public void testChangedParagraph()
+		throws IOException
+	{
+		run("Hello world.\n\nSecond paragraph here.\n\nThird one.");
+
+		assertThat(run("Hello world.\n\nSecond paragraph here.\n\nThird one changed."), is(8));
+		assertThat(parsed, is(1));
+
+		// The old version of the paragraph is no longer cached
+		assertThat(run("Hello world.\n\nSecond paragraph here.\n\nThird one."), is(7));
+		assertThat(parsed, is(1));
+	}
+
+	@Test
+	public void testInvalidateRange()
+		throws IOException
+	{
+		String text = "Hello world.\n\nSecond paragraph here.";
+		run(text);
+
+		pipeline.invalidate(Location.text(2, 0, 2), Location.text(3, 0, 3));
+		assertThat(run(text), is(5));
+		assertThat(parsed, is(1));
+
+		pipeline.invalidate();
+		assertThat(run(text), is(5));
+		assertThat(parsed, is(3));
+	}
+
+	@Test
+	public void testEditBeforeParagraphs()
+		throws IOException
+	{
+		run("Hello world.\n\nSecond paragraph here.\n\nThird one.");
+
+		// Later paragraphs have moved but their text is the same
+		assertThat(run("Hello there, world.\nMore text.\n\nSecond paragraph here.\n\nThird one."), is(10));
+		assertThat(parsed, is(1));
+	}
+
+	@Test
+	public void testMovedParagraphsHaveNewLocations()
+		throws IOException
+	{
+		IncrementalPipeline<List<String>> incremental = Pipeline.<List<String>>newBuilder()
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(EventRecordingHandler::new)
+			.buildIncremental();
+
+		incremental.run(PlainTextSource.forString("Hello world.\n\nSecond paragraph here.\n\nThird one."), new ArrayList<>());
+
+		TextSource edited = PlainTextSource.forString("Hello there, world.\nMore text.\n\nSecond paragraph here.\n\nThird one.");
+		List<String> events = new ArrayList<>();
+		incremental.run(edited, events);
+
+		List<String> expected = Pipeline.over(edited)
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.collector(new ArrayList<String>())
+			.with(EventRecordingHandler::new)
+			.run();
+
+		assertThat(events, is(expected));
+	}
+}
@@ -5,12 +5,18 @@ import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import se.l4.lect.handlers.DefaultHandler;
+import se.l4.lect.handlers.MultiStageHandler;
 import se.l4.lect.text.PlainTextSource;
 import se.l4.lect.tokens.Token;
 
@@ -30,6 +36,61 @@ public class PipelineTest
 		assertThat(result.get(), is(2));
 	}
 
+	@Test
+	public void testRunAll()
+		throws IOException
+	{
+		Pipeline<PipelineTestCollector> pipeline = Pipeline.<PipelineTestCollector>newBuilder()
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(WordCountHandler::new)
+			.build();
+
+		List<PipelineTestCollector> result = pipeline.runAll(
+			Arrays.asList(
+				PlainTextSource.forString("Hello world!"),
+				PlainTextSource.forString("One"),
+				PlainTextSource.forString("This has four words.")
+			),
+			source -> new PipelineTestCollectorImpl()
+		);
+
+		assertThat(result.size(), is(3));
+		assertThat(result.get(0).get(), is(2));
+		assertThat(result.get(1).get(), is(1));
+		assertThat(result.get(2).get(), is(4));
+	}
+
+	@Test(timeout = 10000)
+	public void testRunAllParallelOnSameExecutor()
+		throws IOException
+	{
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Pipeline<PipelineTestCollector> pipeline = Pipeline.<PipelineTestCollector>newBuilder()
+				.language(ICULanguage.forLocale(Locale.ENGLISH))
+				.with(WordCountHandler::new)
+				.parallel(executor)
+				.build();
+
+			List<PipelineTestCollector> result = pipeline.runAll(
+				Arrays.asList(
+					PlainTextSource.forString("Hello world!\n\nOne"),
+					PlainTextSource.forString("This has four words.")
+				),
+				source -> new PipelineTestCollectorImpl(),
+				executor
+			);
+
+			assertThat(result.get(0).get(), is(3));
+			assertThat(result.get(1).get(), is(4));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testExampleFromReadme()
 		throws IOException
@@ -56,4 +117,64 @@ public class PipelineTest
 
 		System.out.println(wordCount + " words");
 	}
+
+	@Test
+	public void testParallel()
+		throws IOException
+	{
+		StringBuilder text = new StringBuilder();
+		for(int i=0; i<300; i++)
+		{
+			text.append("Paragraph number ").append(i).append(" is here. It has two sentences.\n\n");
+		}
+
+		TextSource source = PlainTextSource.forString(text.toString());
+
+		List<String> serial = Pipeline.over(source)
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.collector(new ArrayList<String>())
+			.with(EventRecordingHandler::new)
+			.run();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<String> parallel = Pipeline.over(source)
+				.language(ICULanguage.forLocale(Locale.ENGLISH))
+				.collector(new ArrayList<String>())
+				.with(EventRecordingHandler::new)
+				.parallel(executor)
+				.run();
+
+			assertThat(parallel, is(serial));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testMultiStageParsesSourceOnce()
+		throws IOException
+	{
+		AtomicInteger parses = new AtomicInteger();
+		TextSource text = PlainTextSource.forString("Hello world! This is a second sentence.\n\nAnd a paragraph.");
+		TextSource source = encounter -> {
+			parses.incrementAndGet();
+			text.parse(encounter);
+		};
+
+		List<String> events = Pipeline.over(source)
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.collector(new ArrayList<String>())
+			.with(encounter -> MultiStageHandler.withStages(new EventRecordingHandler(encounter), new EventRecordingHandler(encounter)))
+			.run();
+
+		assertThat(parses.get(), is(1));
+
+		// The second stage should see the same events as the first one
+		int half = events.size() / 2;
+		assertThat(events.subList(half, events.size()), is(events.subList(0, half)));
+	}
 }
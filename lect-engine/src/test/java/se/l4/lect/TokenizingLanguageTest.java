@@ -8,6 +8,7 @@ import se.l4.lect.location.Location;
 import se.l4.lect.tokens.SentenceTestTokenizer;
 import se.l4.lect.tokens.TokenType;
 import se.l4.lect.tokens.WhitespaceTokenizer;
+import se.l4.lect.tokens.WhitespaceViewTokenizer;
 
 /**
  * Tests for {@link TokenizingLanguage}.
@@ -57,4 +58,25 @@ public class TokenizingLanguageTest
 		encounter.verifyToken(TokenType.UNKNOWN, Location.text(19, 0, 19), Location.text(27, 0, 27), "cookies.");
 		encounter.verifySentenceEnd(Location.text(27, 0, 27));
 	}
+
+	@Test
+	public void testTokensAsViews()
+	{
+		VerifyingLanguageEncounter encounter = new VerifyingLanguageEncounter();
+		TokenizingLanguage parser = (TokenizingLanguage) TokenizingLanguage.create(Locale.ENGLISH, SentenceTestTokenizer::new, WhitespaceViewTokenizer::new, encounter);
+		parser.text("Hello world! Hello cookies.", "Hello world! Hello cookies.", Location.text(0, 0, 0));
+		parser.flush();
+
+		encounter.verifySentenceStart(Location.text(0, 0, 0));
+		encounter.verifyToken(TokenType.UNKNOWN, Location.text(0, 0, 0), Location.text(5, 0, 5), "Hello");
+		encounter.verifyToken(TokenType.WHITESPACE, Location.text(5, 0, 5), Location.text(6, 0, 6), " ");
+		encounter.verifyToken(TokenType.UNKNOWN, Location.text(6, 0, 6), Location.text(12, 0, 12), "world!");
+		encounter.verifySentenceEnd(Location.text(12, 0, 12));
+		encounter.verifyToken(TokenType.WHITESPACE, Location.text(12, 0, 12), Location.text(13, 0, 13), " ");
+		encounter.verifySentenceStart(Location.text(13, 0, 13));
+		encounter.verifyToken(TokenType.UNKNOWN, Location.text(13, 0, 13), Location.text(18, 0, 18), "Hello");
+		encounter.verifyToken(TokenType.WHITESPACE, Location.text(18, 0, 18), Location.text(19, 0, 19), " ");
+		encounter.verifyToken(TokenType.UNKNOWN, Location.text(19, 0, 19), Location.text(27, 0, 27), "cookies.");
+		encounter.verifySentenceEnd(Location.text(27, 0, 27));
+	}
 }
@@ -0,0 +1,198 @@
+package se.l4.lect.events;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.l4.lect.EventRecordingHandler;
+import se.l4.lect.ICULanguage;
+import se.l4.lect.Pipeline;
+import se.l4.lect.TextSource;
+import se.l4.lect.handlers.DefaultHandler;
+import se.l4.lect.handlers.PackedLocationHandler;
+import se.l4.lect.location.Location;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.text.PlainTextSource;
+import se.l4.lect.tokens.MutableToken;
+import se.l4.lect.tokens.Token;
+import se.l4.lect.tokens.TokenProperty;
+import se.l4.lect.tokens.TokenType;
+
+public class EventLogTest
+{
+	private static final TokenProperty<Boolean> BOLD = TokenProperty.define("bold", Boolean.class);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Pipeline<List<String>> pipeline(ByteArrayOutputStream out)
+	{
+		return Pipeline.<List<String>>newBuilder()
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(EventRecordingHandler::new)
+			.with(encounter -> new EventLogWriter(out))
+			.build();
+	}
+
+	private static List<String> replay(EventLog log)
+	{
+		List<String> result = new ArrayList<>();
+		Pipeline.<List<String>>newBuilder()
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(EventRecordingHandler::new)
+			.build()
+			.replay(log, result);
+		return result;
+	}
+
+	@Test
+	public void testReplay()
+		throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		List<String> events = new ArrayList<>();
+		pipeline(out).run(PlainTextSource.forString("Hello world! Second sentence.\n\nNew paragraph\r\nwith two lines."), events);
+
+		assertThat(replay(EventLog.forBytes(out.toByteArray())), is(events));
+	}
+
+	@Test
+	public void testReplayAttributes()
+		throws IOException
+	{
+		TextSource source = encounter -> {
+			encounter.location(Location.text(0, 0, 0));
+			encounter.startParagraph();
+			encounter.text("Hello ", Location.text(6, 0, 6));
+			encounter.location(Location.text(6, 0, 6));
+			encounter.setAttribute(BOLD, true);
+			encounter.text("world", Location.text(11, 0, 11));
+			encounter.location(Location.text(11, 0, 11));
+			encounter.clearAttribute(BOLD);
+			encounter.text("!", Location.text(12, 0, 12));
+			encounter.location(Location.text(12, 0, 12));
+			encounter.endParagraph();
+			encounter.done();
+		};
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		List<String> events = new ArrayList<>();
+		pipeline(out).run(source, events);
+
+		assertThat(replay(EventLog.forBytes(out.toByteArray())), is(events));
+	}
+
+	@Test
+	public void testReplayFromPath()
+		throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		List<String> events = new ArrayList<>();
+		pipeline(out).run(PlainTextSource.forString("Hello world!\n\nThis is a test."), events);
+
+		File file = folder.newFile("events.log");
+		Files.write(file.toPath(), out.toByteArray());
+
+		assertThat(replay(EventLog.forPath(file.toPath())), is(events));
+	}
+
+	@Test
+	public void testTokenProperties()
+	{
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("lemma", "walk");
+		properties.put("count", 3);
+		properties.put("big", 1L << 40);
+		properties.put("score", -1.5);
+		properties.put("flag", true);
+		properties.put("missing", null);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EventLogWriter writer = new EventLogWriter(out);
+		writer.start();
+		writer.token(new MutableToken(TokenType.WORD, Location.offset(0), Location.offset(7), "walking"));
+		MutableToken token = new MutableToken();
+		token.update(TokenType.WORD, Location.offset(8), Location.offset(13), "walks", properties);
+		writer.token(token);
+		writer.done();
+
+		List<Token> tokens = new ArrayList<>();
+		EventLog.forBytes(out.toByteArray()).replay(new DefaultHandler()
+		{
+			@Override
+			public void token(Token token)
+			{
+				tokens.add(token.copy());
+			}
+		});
+
+		assertThat(tokens.size(), is(2));
+		assertThat(tokens.get(0).getText(), is("walking"));
+		assertThat(tokens.get(0).getStart(), is(Location.offset(0)));
+		assertThat(tokens.get(1).getText(), is("walks"));
+		assertThat(tokens.get(1).getEnd(), is(Location.offset(13)));
+		assertThat(tokens.get(1).getProperties(), is(properties));
+	}
+
+	@Test
+	public void testReplayPackedLocations()
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EventLogWriter writer = new EventLogWriter(out);
+		writer.start();
+		writer.startParagraph(Location.text(0, 0, 0));
+		writer.token(new MutableToken(TokenType.WORD, Location.text(0, 0, 0), Location.text(5, 0, 5), "Hello"));
+		writer.endParagraph(Location.text(5, 0, 5));
+		writer.done();
+
+		List<String> events = new ArrayList<>();
+		EventLog.forBytes(out.toByteArray()).replay(new PackedHandler(events));
+
+		assertThat(events.get(0), is("startParagraph 0"));
+		assertThat(events.get(1), is("token Hello 0-5"));
+		assertThat(events.get(2), is("endParagraph 5"));
+	}
+
+	private static class PackedHandler
+		extends DefaultHandler
+		implements PackedLocationHandler
+	{
+		private final List<String> events;
+
+		public PackedHandler(List<String> events)
+		{
+			this.events = events;
+		}
+
+		@Override
+		public void startParagraph(LocationBuffer locations, int location)
+		{
+			events.add("startParagraph " + locations.getOffset(location));
+		}
+
+		@Override
+		public void endParagraph(LocationBuffer locations, int location)
+		{
+			events.add("endParagraph " + locations.getOffset(location));
+		}
+
+		@Override
+		public void token(Token token, LocationBuffer locations, int start, int end)
+		{
+			events.add("token " + token.getText() + " " + locations.getOffset(start) + "-" + locations.getOffset(end));
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package se.l4.lect.location;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LocationBufferTest
+{
+	@Test
+	public void testAddAndGet()
+	{
+		LocationBuffer buffer = new LocationBuffer(1);
+		int a = buffer.add(Location.text(10, 1, 2));
+		int b = buffer.add(Location.offset(20));
+		int c = buffer.add(new MutableTextLocation(3, 4));
+
+		assertThat(buffer.size(), is(3));
+
+		assertThat(buffer.get(a), is((Location) Location.text(10, 1, 2)));
+		assertThat(buffer.getOffset(a), is(10));
+		assertThat(buffer.getLine(a), is(1));
+		assertThat(buffer.getColumn(a), is(2));
+
+		assertThat(buffer.get(b), is((Location) Location.offset(20)));
+		assertThat(buffer.hasOffset(b), is(true));
+		assertThat(buffer.hasLineAndColumn(b), is(false));
+
+		assertThat(buffer.get(c), is((Location) new MutableTextLocation(3, 4)));
+		assertThat(buffer.hasOffset(c), is(false));
+	}
+
+	@Test
+	public void testViewReusesLocation()
+	{
+		LocationBuffer buffer = new LocationBuffer();
+		buffer.addTextOffset(0, 0, 0);
+		buffer.addTextOffset(5, 0, 5);
+		buffer.addOffset(7);
+
+		Location view = buffer.view(0, null);
+		Location second = buffer.view(1, view);
+		assertThat(second, sameInstance(view));
+		assertThat(second, is((Location) Location.text(5, 0, 5)));
+
+		Location third = buffer.view(2, view);
+		assertThat(third, not(sameInstance(view)));
+		assertThat(third, is((Location) Location.offset(7)));
+	}
+
+	@Test
+	public void testCopyAndClear()
+	{
+		LocationBuffer buffer = new LocationBuffer();
+		buffer.addTextOffset(5, 1, 0);
+
+		LocationBuffer copy = buffer.copy();
+		buffer.clear();
+
+		assertThat(buffer.size(), is(0));
+		assertThat(copy.size(), is(1));
+		assertThat(copy.get(0), is((Location) Location.text(5, 1, 0)));
+
+		copy.add(Location.offset(1));
+		assertThat(copy.size(), is(2));
+	}
+}
@@ -0,0 +1,168 @@
+package se.l4.lect.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import se.l4.lect.EventRecordingHandler;
+import se.l4.lect.ICULanguage;
+import se.l4.lect.Pipeline;
+import se.l4.lect.events.EventLog;
+import se.l4.lect.events.EventLogWriter;
+import se.l4.lect.handlers.DefaultHandler;
+import se.l4.lect.handlers.MultiStageHandler;
+import se.l4.lect.handlers.PackedLocationHandler;
+import se.l4.lect.location.LocationBuffer;
+import se.l4.lect.text.PlainTextSource;
+import se.l4.lect.tokens.Token;
+
+public class PipelineMetricsTest
+{
+	private static final String TEXT = "Hello world! This is a second sentence.\n\nAnd a paragraph.";
+
+	@Test
+	public void testRunIsRecorded()
+		throws IOException
+	{
+		List<PipelineRun> runs = new ArrayList<>();
+		List<String> events = Pipeline.over(PlainTextSource.forString(TEXT))
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.collector(new ArrayList<String>())
+			.with(EventRecordingHandler::new)
+			.metrics(runs::add)
+			.run();
+
+		assertThat(runs.size(), is(1));
+
+		PipelineRun run = runs.get(0);
+		assertThat(run.getStages(), is(1));
+		assertThat(run.getParagraphs(), is(count(events, "startParagraph ")));
+		assertThat(run.getSentences(), is(count(events, "startSentence ")));
+		assertThat(run.getTokens(), is(count(events, "token ")));
+		assertThat(run.getCharacters(), is((long) TEXT.length()));
+
+		assertThat(run.getHandlerCount(), is(1));
+		assertThat(run.getHandlerName(0), is(EventRecordingHandler.class.getName()));
+		assertThat(run.getHandlerNanos(0) > 0, is(true));
+		assertThat(run.getNanos() >= run.getLanguageNanos() + run.getHandlerNanos(0), is(true));
+	}
+
+	private static long count(List<String> events, String prefix)
+	{
+		return events.stream().filter(e -> e.startsWith(prefix)).count();
+	}
+
+	@Test
+	public void testStagesAreCounted()
+		throws IOException
+	{
+		List<PipelineRun> runs = new ArrayList<>();
+		List<String> events = Pipeline.over(PlainTextSource.forString(TEXT))
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.collector(new ArrayList<String>())
+			.with(encounter -> MultiStageHandler.withStages(new EventRecordingHandler(encounter), new EventRecordingHandler(encounter)))
+			.metrics(runs::add)
+			.run();
+
+		assertThat(runs.size(), is(1));
+		assertThat(runs.get(0).getStages(), is(2));
+		assertThat(runs.get(0).getParagraphs(), is(2L));
+
+		// Both stages should still see the same events
+		int half = events.size() / 2;
+		assertThat(events.subList(half, events.size()), is(events.subList(0, half)));
+	}
+
+	@Test
+	public void testPackedLocationsWithMetrics()
+		throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Pipeline.over(PlainTextSource.forString(TEXT))
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(encounter -> new EventLogWriter(out))
+			.run();
+
+		List<PipelineRun> runs = new ArrayList<>();
+		List<String> events = new ArrayList<>();
+		Pipeline.<List<String>>newBuilder()
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(encounter -> new PackedHandler(encounter.collector()))
+			.metrics(runs::add)
+			.build()
+			.replay(EventLog.forBytes(out.toByteArray()), events);
+
+		// Handlers still receive packed locations when they are measured
+		assertThat(events.get(0), is("token Hello 0-5"));
+		assertThat(runs.get(0).getHandlerName(0), is(PackedHandler.class.getName()));
+	}
+
+	@Test
+	public void testRegistry()
+		throws IOException
+	{
+		MetricsRegistry registry = new MetricsRegistry();
+		Pipeline<List<String>> pipeline = Pipeline.<List<String>>newBuilder()
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(EventRecordingHandler::new)
+			.metrics(registry)
+			.build();
+
+		pipeline.run(PlainTextSource.forString(TEXT), new ArrayList<>());
+		pipeline.run(PlainTextSource.forString(TEXT), new ArrayList<>());
+
+		assertThat(registry.counter(MetricsRegistry.DOCUMENTS).get(), is(2L));
+		assertThat(registry.counter(MetricsRegistry.PARAGRAPHS).get(), is(4L));
+		assertThat(registry.counter(MetricsRegistry.CHARACTERS).get(), is(2L * TEXT.length()));
+		assertThat(registry.histogram(MetricsRegistry.DOCUMENT_NANOS).getCount(), is(2L));
+		assertThat(registry.getHistograms().containsKey(MetricsRegistry.HANDLER_NANOS + EventRecordingHandler.class.getName()), is(true));
+	}
+
+	@Test
+	public void testHistogram()
+	{
+		MetricsRegistry.Histogram histogram = new MetricsRegistry().histogram("test");
+		for(int i=1; i<=100; i++)
+		{
+			histogram.record(i);
+		}
+
+		assertThat(histogram.getCount(), is(100L));
+		assertThat(histogram.getSum(), is(5050L));
+		assertThat(histogram.getMin(), is(1L));
+		assertThat(histogram.getMax(), is(100L));
+		assertThat(histogram.getPercentile(0.5), is(63L));
+		assertThat(histogram.getPercentile(1), is(100L));
+	}
+
+	private static class PackedHandler
+		extends DefaultHandler
+		implements PackedLocationHandler
+	{
+		private final List<String> events;
+
+		public PackedHandler(List<String> events)
+		{
+			this.events = events;
+		}
+
+		@Override
+		public void token(Token token)
+		{
+			events.add("token " + token.getText());
+		}
+
+		@Override
+		public void token(Token token, LocationBuffer locations, int start, int end)
+		{
+			events.add("token " + token.getText() + " " + locations.getOffset(start) + "-" + locations.getOffset(end));
+		}
+	}
+}
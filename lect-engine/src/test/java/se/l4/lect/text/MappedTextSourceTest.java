@@ -0,0 +1,192 @@
+package se.l4.lect.text;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.l4.lect.TextSource;
+import se.l4.lect.TextSourceEncounter;
+import se.l4.lect.VerifyingSyntaxTreeEncounter;
+import se.l4.lect.location.Location;
+import se.l4.lect.tokens.TokenProperty;
+
+public class MappedTextSourceTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMultipleParagraphs()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		PlainTextSource.forPath(write("Hello\n\nCookies", StandardCharsets.UTF_8), StandardCharsets.UTF_8).parse(mock);
+		mock.verifyParagraph("Hello\n",
+			Location.text(0, 0, 0),
+			Location.text(0, 0, 0), Location.text(5, 0, 5), // After hello
+			Location.text(5, 0, 5), Location.text(6, 1, 0), // After \n
+			Location.text(6, 1, 0)
+		);
+		mock.verifyWhitespace("\n",
+			Location.text(6, 1, 0),
+			Location.text(6, 1, 0), Location.text(7, 2, 0), // After \n
+			Location.text(7, 2, 0)
+		);
+		mock.verifyParagraph("Cookies",
+			Location.text(7, 2, 0),
+			Location.text(7, 2, 0), Location.text(14, 2, 7), // After Cookies
+			Location.text(14, 2, 7)
+		);
+		mock.verifyEmpty();
+	}
+
+	@Test
+	public void testEmptyFile()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		PlainTextSource.forPath(write("", StandardCharsets.UTF_8), StandardCharsets.UTF_8).parse(mock);
+		mock.verifyEmpty();
+	}
+
+	@Test
+	public void testLargeFileMatchesString()
+		throws IOException
+	{
+		// Enough text to span several decoded blocks
+		StringBuilder builder = new StringBuilder();
+		for(int i=0; i<20000; i++)
+		{
+			builder.append("R\u00e4ksm\u00f6rg\u00e5s ").append(i);
+			if(i % 7 == 0)
+			{
+				builder.append("\r\n\r\n");
+			}
+			else if(i % 5 == 0)
+			{
+				builder.append("\n \n");
+			}
+			else if(i % 3 == 0)
+			{
+				builder.append('\u2028');
+			}
+			else
+			{
+				builder.append(' ');
+			}
+		}
+
+		String text = builder.toString();
+		Path path = write(text, StandardCharsets.UTF_8);
+
+		assertThat(
+			events(PlainTextSource.forPath(path, StandardCharsets.UTF_8)),
+			is(events(PlainTextSource.forString(text)))
+		);
+	}
+
+	private Path write(String text, Charset charset)
+		throws IOException
+	{
+		File file = folder.newFile("input.txt");
+		Files.write(file.toPath(), text.getBytes(charset));
+		return file.toPath();
+	}
+
+	/**
+	 * Parse the source and collect the paragraphs with their text and end
+	 * location.
+	 */
+	private static List<String> events(TextSource source)
+		throws IOException
+	{
+		List<String> result = new ArrayList<>();
+		StringBuilder paragraph = new StringBuilder();
+		source.parse(new TextSourceEncounter()
+		{
+			private boolean inParagraph;
+			private Location location;
+			private Location end;
+
+			@Override
+			public Locale locale()
+			{
+				return Locale.ENGLISH;
+			}
+
+			@Override
+			public Location location()
+			{
+				return location;
+			}
+
+			@Override
+			public void location(Location location)
+			{
+				this.location = location.copy();
+			}
+
+			@Override
+			public boolean inParagraph()
+			{
+				return inParagraph;
+			}
+
+			@Override
+			public void startParagraph()
+			{
+				inParagraph = true;
+			}
+
+			@Override
+			public void endParagraph()
+			{
+				inParagraph = false;
+				result.add(paragraph + " @ " + end);
+				paragraph.setLength(0);
+			}
+
+			@Override
+			public void done()
+			{
+				result.add("done @ " + location);
+			}
+
+			@Override
+			public void text(CharSequence text, Location end)
+			{
+				if(inParagraph)
+				{
+					paragraph.append(text);
+				}
+
+				this.end = end.copy();
+			}
+
+			@Override
+			public <T> void setAttribute(TokenProperty<T> attribute, T value)
+			{
+			}
+
+			@Override
+			public void clearAttribute(TokenProperty<?> attribute)
+			{
+			}
+		});
+
+		return result;
+	}
+}
@@ -119,4 +119,29 @@ public class OffsetTrackingReaderTest
 		assertThat(loc.getLine(), is(2));
 		assertThat(loc.getColumn(), is(0));
 	}
+
+	@Test
+	public void testCarriageReturnAndLaterNewLine()
+	{
+		OffsetTrackingReader reader = read("Cookies\rare\ntasty");
+		TextLocation loc = reader.offsetToLocation(12);
+
+		assertThat(loc.getLine(), is(2));
+		assertThat(loc.getColumn(), is(0));
+	}
+
+	@Test
+	public void testDiscardBefore()
+	{
+		OffsetTrackingReader reader = read("Cookies\nare\nvery\ntasty");
+		reader.discardBefore(13);
+
+		TextLocation loc = reader.offsetToLocation(14);
+		assertThat(loc.getLine(), is(2));
+		assertThat(loc.getColumn(), is(2));
+
+		loc = reader.offsetToLocation(18);
+		assertThat(loc.getLine(), is(3));
+		assertThat(loc.getColumn(), is(1));
+	}
 }
@@ -1,6 +1,7 @@
 package se.l4.lect.text;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Locale;
 
 import org.junit.Test;
@@ -53,6 +54,21 @@ public class PlainTextSourceTest
 		);
 	}
 
+	@Test
+	public void testParagraphWithLineSeparator()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		PlainTextSource.forString("Hello\u2028world!").parse(mock);
+		mock.verifyParagraph("Hello\u2028world!",
+			Location.text(0, 0, 0),
+			Location.text(0, 0, 0), Location.text(5, 0, 5), // After Hello
+			Location.text(5, 0, 5), Location.text(6, 1, 0), // After \u2028
+			Location.text(6, 1, 0), Location.text(12, 1, 6), // After world!
+			Location.text(12, 1, 6)
+		);
+	}
+
 	@Test
 	public void testParagraphWithLineBreak3()
 		throws IOException
@@ -229,4 +245,52 @@ public class PlainTextSourceTest
 			Location.text(16, 4, 0)
 		);
 	}
+
+	@Test
+	public void testMultipleParagraphsFromReader()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		PlainTextSource.forReader(new StringReader("Hello\n\nCookies")).parse(mock);
+		mock.verifyParagraph("Hello\n",
+			Location.text(0, 0, 0),
+			Location.text(0, 0, 0), Location.text(5, 0, 5), // After hello
+			Location.text(5, 0, 5), Location.text(6, 1, 0), // Line break after \n
+			Location.text(6, 1, 0)
+		);
+		mock.verifyWhitespace("\n",
+			Location.text(6, 1, 0),
+			Location.text(6, 1, 0), Location.text(7, 2, 0), // After \n
+			Location.text(7, 2, 0)
+		);
+		mock.verifyParagraph("Cookies",
+			Location.text(7, 2, 0),
+			Location.text(7, 2, 0), Location.text(14, 2, 7), // After Cookies
+			Location.text(14, 2, 7)
+		);
+	}
+
+	@Test
+	public void testMultipleParagraphsFromChars()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		PlainTextSource.forChars("--Hello\n\nCookies--".toCharArray(), 2, 14).parse(mock);
+		mock.verifyParagraph("Hello\n",
+			Location.text(0, 0, 0),
+			Location.text(0, 0, 0), Location.text(5, 0, 5), // After hello
+			Location.text(5, 0, 5), Location.text(6, 1, 0), // Line break after \n
+			Location.text(6, 1, 0)
+		);
+		mock.verifyWhitespace("\n",
+			Location.text(6, 1, 0),
+			Location.text(6, 1, 0), Location.text(7, 2, 0), // After \n
+			Location.text(7, 2, 0)
+		);
+		mock.verifyParagraph("Cookies",
+			Location.text(7, 2, 0),
+			Location.text(7, 2, 0), Location.text(14, 2, 7), // After Cookies
+			Location.text(14, 2, 7)
+		);
+	}
 }
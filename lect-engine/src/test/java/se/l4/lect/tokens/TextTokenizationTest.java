@@ -0,0 +1,38 @@
+package se.l4.lect.tokens;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link TextTokenization}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class TextTokenizationTest
+{
+	@Test
+	public void testFindBestTokenType()
+	{
+		assertThat(TextTokenization.findBestTokenType("hello"), is(TokenType.WORD));
+		assertThat(TextTokenization.findBestTokenType("42"), is(TokenType.WORD));
+		assertThat(TextTokenization.findBestTokenType("don't"), is(TokenType.WORD));
+		assertThat(TextTokenization.findBestTokenType(" \t\n"), is(TokenType.WHITESPACE));
+		assertThat(TextTokenization.findBestTokenType(" "), is(TokenType.WHITESPACE));
+		assertThat(TextTokenization.findBestTokenType("?!"), is(TokenType.SYMBOL));
+		assertThat(TextTokenization.findBestTokenType("- "), is(TokenType.WORD));
+		assertThat(TextTokenization.findBestTokenType("åäö"), is(TokenType.WORD));
+	}
+
+	@Test
+	public void testFindBestTokenTypeWithOffset()
+	{
+		String text = "Hello, world";
+		assertThat(TextTokenization.findBestTokenType(text, 0, 5), is(TokenType.WORD));
+		assertThat(TextTokenization.findBestTokenType(text, 5, 1), is(TokenType.SYMBOL));
+		assertThat(TextTokenization.findBestTokenType(text, 6, 1), is(TokenType.WHITESPACE));
+		assertThat(TextTokenization.findBestTokenType(text, 7, 5), is(TokenType.WORD));
+	}
+}
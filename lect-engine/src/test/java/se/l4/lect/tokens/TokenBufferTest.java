@@ -0,0 +1,168 @@
+package se.l4.lect.tokens;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Test;
+
+import se.l4.lect.ICULanguage;
+import se.l4.lect.Pipeline;
+import se.l4.lect.handlers.DefaultHandler;
+import se.l4.lect.location.Location;
+import se.l4.lect.text.PlainTextSource;
+
+/**
+ * Test for {@link TokenBuffer}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class TokenBufferTest
+{
+	@Test
+	public void testAddAndView()
+	{
+		TokenBuffer buffer = new TokenBuffer(1);
+
+		MutableToken token = new MutableToken();
+		token.update(TokenType.WORD, Location.text(0, 0, 0), Location.text(5, 0, 5), "Hello");
+		token.set(TokenProperty.LEMMA, "hello");
+		buffer.add(token);
+
+		token.update(TokenType.WHITESPACE, Location.text(5, 0, 5), Location.text(6, 0, 6), " ");
+		buffer.add(token);
+
+		token.update(TokenType.WORD, Location.text(6, 0, 6), Location.text(11, 0, 11), "world");
+		buffer.add(token);
+
+		assertThat(buffer.size(), is(3));
+
+		Token first = buffer.view(0);
+		assertThat(first.getType(), is(TokenType.WORD));
+		assertThat(first.getText(), is("Hello"));
+		assertThat(first.getStart(), is((Location) Location.text(0, 0, 0)));
+		assertThat(first.getEnd(), is((Location) Location.text(5, 0, 5)));
+		assertThat(first.get(TokenProperty.LEMMA), is("hello"));
+		assertThat(first.has(TokenProperty.LEMMA), is(true));
+
+		Token last = buffer.view(2);
+		assertThat(last, sameInstance(first));
+		assertThat(last.getTextSequence().toString(), is("world"));
+		assertThat(last.getStart(), is((Location) Location.text(6, 0, 6)));
+		assertThat(last.get(TokenProperty.LEMMA), nullValue());
+		assertThat(last.has(TokenProperty.LEMMA), is(false));
+		assertThat(last.getProperties(), nullValue());
+
+		assertThat(buffer.getText().toString(), is("Hello world"));
+		assertThat(buffer.getTextStart(2), is(6));
+		assertThat(buffer.getTextEnd(2), is(11));
+	}
+
+	@Test
+	public void testViewWithReuse()
+	{
+		TokenBuffer buffer = new TokenBuffer();
+		buffer.add(new MutableToken(TokenType.WORD, Location.offset(0), Location.offset(1), "a"));
+		buffer.add(new MutableToken(TokenType.WORD, Location.offset(2), Location.offset(3), "b"));
+
+		Token a = buffer.view(0, null);
+		Token b = buffer.view(1, null);
+		assertThat(a, not(sameInstance(b)));
+		assertThat(a.getText(), is("a"));
+		assertThat(b.getText(), is("b"));
+
+		assertThat(buffer.view(1, a), sameInstance(a));
+		assertThat(a.getText(), is("b"));
+	}
+
+	@Test
+	public void testUndefinedProperties()
+	{
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("pos", "NN");
+		properties.put("test-buffer-undefined", 1);
+
+		TokenBuffer buffer = new TokenBuffer();
+		buffer.add(new MutableToken(TokenType.WORD, Location.offset(0), Location.offset(4), "test"));
+		buffer.add(new ImmutableToken(TokenType.WORD, Location.offset(5), Location.offset(9), "more", properties));
+
+		assertThat(buffer.view(0).getProperties(), nullValue());
+		assertThat(buffer.view(1).getProperties(), is(properties));
+		assertThat(buffer.copy(1).getProperties(), is(properties));
+		assertThat(buffer.get(1, TokenProperty.POS), is("NN"));
+		assertThat(TokenProperty.findIndex("test-buffer-undefined"), is(-1));
+
+		buffer.clear();
+		buffer.add(new MutableToken(TokenType.WORD, Location.offset(0), Location.offset(4), "test"));
+		assertThat(buffer.view(0).getProperties(), nullValue());
+	}
+
+	@Test
+	public void testCopyIsImmutable()
+	{
+		TokenBuffer buffer = new TokenBuffer();
+		MutableToken token = new MutableToken(TokenType.WORD, Location.offset(0), Location.offset(4), "test");
+		token.set(TokenProperty.POS, "NN");
+		buffer.add(token);
+
+		Token copy = buffer.copy(0);
+		buffer.clear();
+
+		assertThat(buffer.isEmpty(), is(true));
+		assertThat(copy.getText(), is("test"));
+		assertThat(copy.getEnd(), is((Location) Location.offset(4)));
+		assertThat(copy.get(TokenProperty.POS), is("NN"));
+	}
+
+	@Test
+	public void testSentenceBuffering()
+		throws Exception
+	{
+		List<String> sentences = new ArrayList<>();
+		Pipeline.<List<String>>newBuilder()
+			.language(ICULanguage.forLocale(Locale.ENGLISH))
+			.with(encounter -> new DefaultHandler()
+			{
+				private final TokenBuffer buffer = new TokenBuffer();
+
+				@Override
+				public void startSentence(Location location)
+				{
+					buffer.clear();
+				}
+
+				@Override
+				public void token(Token token)
+				{
+					buffer.add(token);
+				}
+
+				@Override
+				public void endSentence(Location location)
+				{
+					int words = 0;
+					for(int i=0; i<buffer.size(); i++)
+					{
+						if(buffer.getType(i) == TokenType.WORD) words++;
+					}
+
+					encounter.collector().add(words + ": " + buffer.getText().toString().trim());
+				}
+			})
+			.build()
+			.run(PlainTextSource.forString("Hello world. This is a test."), sentences);
+
+		assertThat(sentences.size(), is(2));
+		assertThat(sentences.get(0), is("2: Hello world."));
+		assertThat(sentences.get(1), is("4: This is a test."));
+	}
+}
@@ -0,0 +1,166 @@
+package se.l4.lect.tokens;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link TokenPatternSet}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class TokenPatternSetTest
+{
+	@Test
+	public void testSize()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("word", "symbol", "word symbol");
+		assertThat(set.size(), is(3));
+	}
+
+	@Test
+	public void testSinglePatternMatch()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("word", "symbol");
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getMatchCount(), is(1));
+		assertThat(matcher.getMatch(0), is(1));
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getMatchCount(), is(1));
+		assertThat(matcher.getMatch(0), is(0));
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SPECIAL)), is(false));
+		assertThat(matcher.getMatchCount(), is(0));
+		assertThat(matcher.isMatch(), is(false));
+	}
+
+	@Test
+	public void testSeveralPatternsMatchSameToken()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("symbol", "word symbol", "special");
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getMatchCount(), is(2));
+		assertThat(matcher.getMatch(0), is(0));
+		assertThat(matcher.getMatch(1), is(1));
+	}
+
+	@Test
+	public void testPatternsResetIndividually()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("word", "word word word");
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+
+		// The first pattern matching should not reset the second pattern
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getMatchCount(), is(2));
+		assertThat(matcher.getMatch(0), is(0));
+		assertThat(matcher.getMatch(1), is(1));
+
+		// But the second pattern should start over after matching
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getMatchCount(), is(1));
+		assertThat(matcher.getMatch(0), is(0));
+	}
+
+	@Test
+	public void testEnd()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("word $", "symbol $");
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(false));
+		assertThat(matcher.end(), is(true));
+		assertThat(matcher.getMatchCount(), is(1));
+		assertThat(matcher.getMatch(0), is(1));
+	}
+
+	@Test
+	public void testReset()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("word symbol");
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.reset();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(false));
+	}
+
+	@Test
+	public void testSharedText()
+	{
+		List<String> patterns = new ArrayList<>();
+		for(int i=0; i<100; i++)
+		{
+			patterns.add("word='w" + i + "' symbol");
+		}
+
+		TokenPatternSet set = TokenPatternSet.compile(patterns, 0);
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		for(int i=0; i<100; i++)
+		{
+			assertThat(matcher.add(new ImmutableToken(TokenType.WORD, null, null, "w" + i, null)), is(false));
+			assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+			assertThat(matcher.getMatchCount(), is(1));
+			assertThat(matcher.getMatch(0), is(i));
+		}
+	}
+
+	@Test
+	public void testLiteralTexts()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("'a'", "word='a'", "symbol='a'", "word 'b'", "word=/a|c/");
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		assertThat(matcher.add(new ImmutableToken(TokenType.WORD, null, null, "a", null)), is(true));
+		assertThat(matcher.getMatchCount(), is(3));
+		assertThat(matcher.getMatch(0), is(0));
+		assertThat(matcher.getMatch(1), is(1));
+		assertThat(matcher.getMatch(2), is(4));
+
+		assertThat(matcher.add(new ImmutableToken(TokenType.SYMBOL, null, null, "b", null)), is(true));
+		assertThat(matcher.getMatchCount(), is(1));
+		assertThat(matcher.getMatch(0), is(3));
+
+		assertThat(matcher.add(new ImmutableToken(TokenType.WORD, null, null, "c", null)), is(true));
+		assertThat(matcher.getMatchCount(), is(1));
+		assertThat(matcher.getMatch(0), is(4));
+
+		assertThat(matcher.add(new ImmutableToken(TokenType.SYMBOL, null, null, "ab", null)), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(false));
+	}
+
+	@Test
+	public void testMatchSpans()
+	{
+		TokenPatternSet set = TokenPatternSet.compile("(?<w> word) symbol", "symbol", "(?<w> special) symbol");
+		TokenPatternSetMatcher matcher = set.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getMatchCount(), is(2));
+
+		assertThat(matcher.getMatchStart(0), is(0));
+		assertThat(matcher.getMatchEnd(0), is(2));
+		assertThat(matcher.getGroupStart(0, "w"), is(0));
+		assertThat(matcher.getGroupEnd(0, "w"), is(1));
+
+		assertThat(matcher.getMatchStart(1), is(1));
+		assertThat(matcher.getMatchEnd(1), is(2));
+	}
+}
@@ -646,4 +646,350 @@ public class TokenPatternTest
 			throw new AssertionError("Invalid sequence");
 		}
 	}
+
+	@Test
+	public void testNegateSingleTokenAfterNegatedToken()
+	{
+		TokenPattern pattern = TokenPattern.compile("!word");
+		TokenMatcher matcher = pattern.matcher();
+
+		if(matcher.add(MutableToken.ofType(TokenType.WORD)))
+		{
+			throw new AssertionError("Shouldn't have matched");
+		}
+
+		if(matcher.add(MutableToken.ofType(TokenType.WORD)))
+		{
+			throw new AssertionError("Shouldn't have matched");
+		}
+
+		if(! matcher.add(MutableToken.ofType(TokenType.SYMBOL)))
+		{
+			throw new AssertionError("Matcher did not match");
+		}
+	}
+
+	@Test
+	public void testNegateFollowedByToken()
+	{
+		TokenPattern pattern = TokenPattern.compile("!symbol word");
+		TokenMatcher matcher = pattern.matcher();
+
+		if(matcher.add(MutableToken.ofType(TokenType.SYMBOL)))
+		{
+			throw new AssertionError("Shouldn't have matched");
+		}
+
+		if(matcher.add(MutableToken.ofType(TokenType.WORD)))
+		{
+			throw new AssertionError("Word preceded by symbol shouldn't have matched");
+		}
+
+		if(! matcher.add(MutableToken.ofType(TokenType.WORD)))
+		{
+			throw new AssertionError("Matcher did not match");
+		}
+	}
+
+	@Test
+	public void testManyRepeats()
+	{
+		TokenPattern pattern = TokenPattern.compile("symbol word+ symbol");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		for(int i=0; i<1000; i++)
+		{
+			if(matcher.add(MutableToken.ofType(TokenType.WORD)))
+			{
+				throw new AssertionError("Shouldn't have matched");
+			}
+		}
+
+		if(! matcher.add(MutableToken.ofType(TokenType.SYMBOL)))
+		{
+			throw new AssertionError("Matcher did not match");
+		}
+	}
+
+	@Test
+	public void testTrailingRepeatMatchesWithoutRepeats()
+	{
+		TokenPattern pattern = TokenPattern.compile("word word*");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getMatchStart(), is(0));
+		assertThat(matcher.getMatchEnd(), is(1));
+	}
+
+	@Test
+	public void testTrailingOptionalMatchesWithoutToken()
+	{
+		TokenPattern pattern = TokenPattern.compile("symbol word?");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(false));
+	}
+
+	@Test
+	public void testOnlyOptionalAfterRepeat()
+	{
+		TokenPattern pattern = TokenPattern.compile("word* symbol?");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getMatchStart(), is(0));
+		assertThat(matcher.getMatchEnd(), is(1));
+	}
+
+	@Test
+	public void testProperty()
+	{
+		TokenPattern pattern = TokenPattern.compile("word,normalized='test'");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD).set(TokenProperty.NORMALIZED, "other")), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD).set(TokenProperty.NORMALIZED, "test")), is(true));
+	}
+
+	@Test
+	public void testPropertyRegex()
+	{
+		TokenPattern pattern = TokenPattern.compile("word,lemma=/walk.*/");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD).set(TokenProperty.LEMMA, "run")), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD).set(TokenProperty.LEMMA, "walking")), is(true));
+	}
+
+	@Test
+	public void testTextAndProperty()
+	{
+		TokenPattern pattern = TokenPattern.compile("word='Walks',pos='VERB'");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(new MutableToken(TokenType.WORD, null, null, "Walks").set(TokenProperty.POS, "NOUN")), is(false));
+		assertThat(matcher.add(new MutableToken(TokenType.WORD, null, null, "Runs").set(TokenProperty.POS, "VERB")), is(false));
+		assertThat(matcher.add(new MutableToken(TokenType.WORD, null, null, "Walks").set(TokenProperty.POS, "VERB")), is(true));
+	}
+
+	@Test
+	public void testCustomProperty()
+	{
+		TokenProperty<Integer> length = TokenProperty.define("length", Integer.class);
+		TokenPattern pattern = TokenPattern.compile("word,length=5");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD).set(length, 4)), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD).set(length, 5)), is(true));
+	}
+
+	@Test
+	public void testPropertyWithoutValue()
+	{
+		TokenProperty<Boolean> continuation = TokenProperty.define("continuation", Boolean.class);
+		TokenPattern pattern = TokenPattern.compile("symbol,continuation");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL).set(continuation, false)), is(false));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL).set(continuation, true)), is(true));
+	}
+
+	@Test
+	public void testMatchSpan()
+	{
+		TokenPattern pattern = TokenPattern.compile("word symbol");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getMatchStart(), is(1));
+		assertThat(matcher.getMatchEnd(), is(3));
+	}
+
+	@Test
+	public void testMatchSpanCountsWhitespace()
+	{
+		TokenPattern pattern = TokenPattern.compile("word symbol");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.WHITESPACE));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.add(MutableToken.ofType(TokenType.WHITESPACE));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getMatchStart(), is(1));
+		assertThat(matcher.getMatchEnd(), is(4));
+	}
+
+	@Test
+	public void testMatchSpanIsLongest()
+	{
+		TokenPattern pattern = TokenPattern.compile("word+ symbol");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getMatchStart(), is(1));
+		assertThat(matcher.getMatchEnd(), is(5));
+	}
+
+	@Test
+	public void testMatchSpanAfterReset()
+	{
+		TokenPattern pattern = TokenPattern.compile("word");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		matcher.reset();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getMatchStart(), is(0));
+		assertThat(matcher.getMatchEnd(), is(1));
+	}
+
+	@Test
+	public void testMatchSpanAfterMatchWithOptionalPrefix()
+	{
+		TokenPattern pattern = TokenPattern.compile("word? word");
+		TokenMatcher matcher = pattern.matcher();
+
+		for(int i=0; i<3; i++)
+		{
+			assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+			assertThat(matcher.getMatchStart(), is(i));
+			assertThat(matcher.getMatchEnd(), is(i + 1));
+		}
+	}
+
+	@Test
+	public void testMatchSpanAfterMatchWithRepeatedPrefix()
+	{
+		TokenPattern pattern = TokenPattern.compile("word* symbol?");
+		TokenMatcher matcher = pattern.matcher();
+
+		for(int i=0; i<3; i++)
+		{
+			assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+			assertThat(matcher.getMatchStart(), is(i));
+			assertThat(matcher.getMatchEnd(), is(i + 1));
+		}
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testMatchSpanWithoutMatch()
+	{
+		TokenPattern pattern = TokenPattern.compile("word");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		matcher.getMatchStart();
+	}
+
+	@Test
+	public void testGroup()
+	{
+		TokenPattern pattern = TokenPattern.compile("word (?<symbols> symbol symbol) word");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getGroupStart("symbols"), is(1));
+		assertThat(matcher.getGroupEnd("symbols"), is(3));
+	}
+
+	@Test
+	public void testGroupAtStart()
+	{
+		TokenPattern pattern = TokenPattern.compile("(?<first> word) symbol");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getGroupStart("first"), is(1));
+		assertThat(matcher.getGroupEnd("first"), is(2));
+	}
+
+	@Test
+	public void testOptionalGroupNotMatched()
+	{
+		TokenPattern pattern = TokenPattern.compile("(?<prefix> symbol)? word");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getGroupStart("prefix"), is(-1));
+		assertThat(matcher.getGroupEnd("prefix"), is(-1));
+
+		matcher.add(MutableToken.ofType(TokenType.SYMBOL));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getGroupStart("prefix"), is(1));
+		assertThat(matcher.getGroupEnd("prefix"), is(2));
+	}
+
+	@Test
+	public void testGroupAfterMatchWithOptionalGroup()
+	{
+		TokenPattern pattern = TokenPattern.compile("(?<a> word)? word");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getGroupStart("a"), is(-1));
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.WORD)), is(true));
+		assertThat(matcher.getMatchStart(), is(1));
+		assertThat(matcher.getMatchEnd(), is(2));
+		assertThat(matcher.getGroupStart("a"), is(-1));
+		assertThat(matcher.getGroupEnd("a"), is(-1));
+	}
+
+	@Test
+	public void testRepeatedGroup()
+	{
+		TokenPattern pattern = TokenPattern.compile("(?<last> word)+ symbol");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getMatchStart(), is(0));
+		assertThat(matcher.getGroupStart("last"), is(1));
+		assertThat(matcher.getGroupEnd("last"), is(2));
+	}
+
+	@Test
+	public void testEmptyGroupInRepeat()
+	{
+		TokenPattern pattern = TokenPattern.compile("(?<a> word?)* symbol");
+		TokenMatcher matcher = pattern.matcher();
+
+		assertThat(matcher.add(MutableToken.ofType(TokenType.SYMBOL)), is(true));
+		assertThat(matcher.getGroupStart("a"), is(0));
+		assertThat(matcher.getGroupEnd("a"), is(0));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownGroup()
+	{
+		TokenPattern pattern = TokenPattern.compile("(?<a> word)");
+		TokenMatcher matcher = pattern.matcher();
+
+		matcher.add(MutableToken.ofType(TokenType.WORD));
+		matcher.getGroupStart("b");
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDuplicateGroup()
+	{
+		TokenPattern.compile("(?<a> word) (?<a> symbol)");
+	}
 }
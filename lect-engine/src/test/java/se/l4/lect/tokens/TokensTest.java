@@ -1,8 +1,14 @@
 package se.l4.lect.tokens;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Test;
 
 import se.l4.lect.location.Location;
@@ -65,4 +71,133 @@ public class TokensTest
 		assertThat(t2.getText(), is(""));
 		assertThat(t2.get(TokenProperty.LEMMA), is("abc"));
 	}
+
+	@Test
+	public void testMutableUpdateWithView()
+	{
+		StringBuilder text = new StringBuilder("abc def");
+		MutableToken token = new MutableToken();
+		token.update(TokenType.WORD, Location.text(4, 0, 4), Location.text(7, 0, 7), text, 4, 3, null);
+
+		assertThat(token.getTextSequence().length(), is(3));
+		assertThat(token.getTextSequence().charAt(0), is('d'));
+		assertThat(token.getText(), is("def"));
+
+		Token t2 = token.copy();
+
+		// Changing the underlying text should not change the copy
+		text.setLength(0);
+		assertThat(t2.getText(), is("def"));
+	}
+
+	@Test
+	public void testPropertyIndexSharedById()
+	{
+		TokenProperty<String> a = TokenProperty.define("test-shared", String.class);
+		TokenProperty<String> b = TokenProperty.define("test-shared", String.class);
+
+		assertThat(a.getIndex(), is(b.getIndex()));
+		assertThat(a.getIndex() == TokenProperty.LEMMA.getIndex(), is(false));
+	}
+
+	@Test
+	public void testPropertyPresence()
+	{
+		MutableToken token = new MutableToken(TokenType.WORD, Location.offset(0), Location.offset(5), "Hello");
+		assertThat(token.has(TokenProperty.LEMMA), is(false));
+		assertThat(token.getProperties(), nullValue());
+
+		token.set(TokenProperty.LEMMA, "hello");
+		token.set(TokenProperty.POS, null);
+
+		assertThat(token.get(TokenProperty.LEMMA), is("hello"));
+		assertThat(token.has(TokenProperty.POS), is(true));
+		assertThat(token.get(TokenProperty.POS), nullValue());
+		assertThat(token.has(TokenProperty.NORMALIZED), is(false));
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put("lemma", "hello");
+		expected.put("pos", null);
+		assertThat(token.getProperties(), is(expected));
+
+		token.update(TokenType.WORD, Location.offset(6), Location.offset(11), "world");
+		assertThat(token.has(TokenProperty.LEMMA), is(false));
+		assertThat(token.getProperties(), nullValue());
+	}
+
+	@Test
+	public void testManyProperties()
+	{
+		MutableToken token = new MutableToken(TokenType.WORD, Location.offset(0), Location.offset(5), "Hello");
+
+		List<TokenProperty<Integer>> properties = new ArrayList<>();
+		for(int i=0; i<100; i++)
+		{
+			TokenProperty<Integer> property = TokenProperty.define("test-many-" + i, Integer.class);
+			properties.add(property);
+			token.set(property, i);
+		}
+
+		Token copy = token.copy();
+		token.update(TokenType.WORD, Location.offset(0), Location.offset(5), "Hello");
+
+		for(int i=0; i<100; i++)
+		{
+			assertThat(copy.get(properties.get(i)), is(i));
+			assertThat(token.has(properties.get(i)), is(false));
+		}
+
+		assertThat(copy.getProperties().size(), is(100));
+	}
+
+	@Test
+	public void testCopyFromKeepsProperties()
+	{
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("lemma", "walk");
+		properties.put("custom-id", 2);
+
+		ImmutableToken original = new ImmutableToken(TokenType.WORD, Location.offset(0), Location.offset(7), "walking", properties);
+
+		MutableToken token = new MutableToken();
+		token.copyFrom(original);
+
+		assertThat(token.get(TokenProperty.LEMMA), is("walk"));
+		assertThat(token.getProperties(), is(properties));
+	}
+
+	@Test
+	public void testUndefinedIdsAreNotIndexed()
+	{
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("lemma", "walk");
+		properties.put("test-undefined", 2);
+		properties.put(null, "no id");
+
+		ImmutableToken original = new ImmutableToken(TokenType.WORD, Location.offset(0), Location.offset(7), "walking", properties);
+		assertThat(TokenProperty.findIndex("test-undefined"), is(-1));
+		assertThat(original.getProperties(), is(properties));
+
+		MutableToken token = new MutableToken();
+		token.copyFrom(original);
+		assertThat(token.getProperties(), is(properties));
+		assertThat(token.copy().getProperties(), is(properties));
+
+		token.update(TokenType.WORD, Location.offset(0), Location.offset(4), "walk", null);
+		assertThat(token.getProperties(), nullValue());
+		assertThat(TokenProperty.findIndex("test-undefined"), is(-1));
+	}
+
+	@Test
+	public void testPropertyDefinedAfterToken()
+	{
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("test-defined-later", "value");
+
+		ImmutableToken token = new ImmutableToken(TokenType.WORD, Location.offset(0), Location.offset(4), "walk", properties);
+
+		TokenProperty<String> property = TokenProperty.define("test-defined-later", String.class);
+		assertThat(token.has(property), is(true));
+		assertThat(token.get(property), is("value"));
+	}
 }
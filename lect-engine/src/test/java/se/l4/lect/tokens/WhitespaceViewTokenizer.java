@@ -0,0 +1,40 @@
+package se.l4.lect.tokens;
+
+/**
+ * Variant of {@link WhitespaceTokenizer} that sets its tokens as views of
+ * the text being tokenized.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class WhitespaceViewTokenizer
+	extends OffsetTokenizer
+{
+	private final CharSequence text;
+
+	public WhitespaceViewTokenizer(CharSequence text)
+	{
+		this.text = text;
+	}
+
+	@Override
+	protected boolean findNextToken(int previousEnd)
+	{
+		if(previousEnd == text.length())
+		{
+			return false;
+		}
+
+		int start = TextTokenization.findNonWhitespace(text, previousEnd);
+		if(start == -1) return false;
+
+		int end = TextTokenization.findWhitespace(text, start);
+		if(end == -1)
+		{
+			end = text.length();
+		}
+
+		setNextToken(TokenType.UNKNOWN, text, start, end);
+		return true;
+	}
+}
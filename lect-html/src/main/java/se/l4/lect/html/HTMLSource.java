@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,14 +17,16 @@ import net.htmlparser.jericho.Attributes;
 import net.htmlparser.jericho.CharacterReference;
 import net.htmlparser.jericho.Config;
 import net.htmlparser.jericho.EndTag;
-import net.htmlparser.jericho.RowColumnVector;
 import net.htmlparser.jericho.Segment;
 import net.htmlparser.jericho.StartTag;
+import net.htmlparser.jericho.StreamedSource;
 import se.l4.commons.io.Bytes;
 import se.l4.commons.io.IOSupplier;
 import se.l4.lect.TextSource;
 import se.l4.lect.TextSourceEncounter;
+import se.l4.lect.location.LocationBuffer;
 import se.l4.lect.location.MutableTextOffsetLocation;
+import se.l4.lect.text.SubSequence;
 
 /**
  * {@link TextSource} that parses HTML.
@@ -42,11 +43,18 @@ public class HTMLSource
 	}
 
 	private final IOSupplier<Reader> supplier;
+	/**
+	 * HTML that is already in memory, parsed directly instead of via a
+	 * {@link Reader}.
+	 */
+	private final CharSequence text;
 	private final Set<String> activeAttributes;
+	private boolean streaming;
 
-	private HTMLSource(IOSupplier<Reader> supplier)
+	private HTMLSource(IOSupplier<Reader> supplier, CharSequence text)
 	{
 		this.supplier = supplier;
+		this.text = text;
 		this.activeAttributes = new HashSet<>();
 	}
 
@@ -70,7 +78,7 @@ public class HTMLSource
 	 */
 	public static HTMLSource forReader(IOSupplier<Reader> supplier)
 	{
-		return new HTMLSource(supplier);
+		return new HTMLSource(supplier, null);
 	}
 
 	/**
@@ -108,7 +116,7 @@ public class HTMLSource
 	 */
 	public static HTMLSource forString(String text)
 	{
-		return forReader(new StringReader(text));
+		return new HTMLSource(null, text);
 	}
 
 	/**
@@ -162,6 +170,21 @@ public class HTMLSource
 		return this;
 	}
 
+	/**
+	 * Parse the HTML while it is being read instead of reading the entire
+	 * document into memory first. Memory use stays the same regardless of the
+	 * size of the document and paragraphs are emitted as soon as they are
+	 * found, which is useful for large documents.
+	 *
+	 * @return
+	 *   this instance
+	 */
+	public HTMLSource withStreaming()
+	{
+		streaming = true;
+		return this;
+	}
+
 	@Override
 	public void parse(TextSourceEncounter encounter)
 		throws IOException
@@ -184,7 +207,7 @@ public class HTMLSource
 	{
 		private final Set<String> activeAttributes;
 		private final TextSourceEncounter encounter;
-		private net.htmlparser.jericho.Source source;
+		private PositionTracker tracker;
 
 		private int depth;
 
@@ -194,8 +217,17 @@ public class HTMLSource
 
 		private MutableTextOffsetLocation start;
 		private MutableTextOffsetLocation end;
+		private MutableTextOffsetLocation segmentStart;
 
-		private final List<Attribute> attributes;
+		/*
+		 * Values of attributes to flush, with the start of the attribute,
+		 * start and end of the value and end of the attribute stored as four
+		 * locations per attribute.
+		 */
+		private final List<String> attributes;
+		private final LocationBuffer attributeLocations;
+
+		private final SubSequence textView;
 
 		public Handler(Set<String> activeAttributes, TextSourceEncounter encounter)
 		{
@@ -206,6 +238,7 @@ public class HTMLSource
 
 			start = new MutableTextOffsetLocation(0, 0, 0);
 			end = new MutableTextOffsetLocation(0, 0, 0);
+			segmentStart = new MutableTextOffsetLocation(0, 0, 0);
 
 			encounter.location(start);
 
@@ -213,26 +246,57 @@ public class HTMLSource
 			stateHistory[0] = state;
 
 			attributes = new ArrayList<>();
+			attributeLocations = new LocationBuffer();
+
+			tracker = new PositionTracker();
+			textView = new SubSequence();
 		}
 
 		public void parse()
 			throws IOException
 		{
-			try(Reader reader = supplier.get())
+			// Jericho uses text that is already in memory without copying it
+			if(streaming)
 			{
-				source = new net.htmlparser.jericho.Source(reader);
-				parse0();
+				try(StreamedSource streamed = text != null ? new StreamedSource(text) : new StreamedSource(supplier.get()))
+				{
+					parse0(streamed.iterator());
+				}
+			}
+			else
+			{
+				net.htmlparser.jericho.Source source;
+				if(text != null)
+				{
+					source = new net.htmlparser.jericho.Source(text);
+				}
+				else
+				{
+					try(Reader reader = supplier.get())
+					{
+						source = new net.htmlparser.jericho.Source(reader);
+					}
+				}
+
+				parse0(source.getNodeIterator());
 			}
 		}
 
-		private void parse0()
+		private void parse0(Iterator<Segment> it)
 			throws IOException
 		{
-			Iterator<Segment> it = source.getNodeIterator();
 			StringBuilder buffer = new StringBuilder();
 			while(it.hasNext())
 			{
 				Segment segment = it.next();
+
+				/*
+				 * Locations are tracked while moving through the segments,
+				 * as the segments of a streamed source are only valid until
+				 * the next one is read
+				 */
+				locate(segment, segment.getBegin(), segmentStart);
+
 				if(segment instanceof StartTag)
 				{
 					// Handle all the attributes on the start tag
@@ -255,7 +319,7 @@ public class HTMLSource
 								case "h6":
 									// Start of an explicit paragraph
 									state = State.EXPLICIT;
-									updateStart(segment);
+									updateStart();
 									startParagraph();
 									lastWasSpace = true;
 									break;
@@ -271,7 +335,7 @@ public class HTMLSource
 									// Breaks create a paragraph
 									state = State.IMPLICIT;
 
-									updateStart(segment);
+									updateStart();
 									startParagraph();
 
 									// Update the end location and emit a line break
@@ -295,7 +359,7 @@ public class HTMLSource
 							// Explicit <br> creates a line break
 							if("br".equals(name))
 							{
-								updateStart(segment);
+								updateStart();
 								startParagraph();
 
 								// Update the end location and emit a line break
@@ -334,7 +398,7 @@ public class HTMLSource
 					if(! isSingle && state != oldState && (oldState == State.EXPLICIT || oldState == State.IMPLICIT))
 					{
 						// Switched from explicit or implicit paragraph
-						updateStart(segment);
+						updateStart();
 						updateEnd(segment);
 						endParagraph();
 					}
@@ -352,7 +416,7 @@ public class HTMLSource
 
 					// TODO: Collapse white-space
 					CharacterReference ref = (CharacterReference) segment;
-					updateStart(ref);
+					updateStart();
 					updateEnd(ref);
 
 					buffer.setLength(0);
@@ -362,21 +426,21 @@ public class HTMLSource
 				}
 				else
 				{
-					updateStart(segment);
+					updateStart();
 					this.end.copyFrom(this.start);
 
-					buffer.setLength(0);
-					CharSequence chars = source.subSequence(segment.getBegin(), segment.getEnd());
-					for(int i=0, n=chars.length(); i<n; i++)
+					// Text is passed on as views of the segment, starting at textStart
+					int textStart = -1;
+					for(int i=0, n=segment.length(); i<n; i++)
 					{
-						char c = chars.charAt(i);
+						char c = segment.charAt(i);
 						if(c == '\u0020' || c == '\u0009' || c == '\n' || c == '\u000c' || c == '\r')
 						{
-							if(! lastWasSpace && buffer.length() > 0)
+							if(textStart >= 0)
 							{
 								encounter.location(this.start);
-								encounter.text(buffer, end);
-								buffer.setLength(0);
+								encounter.text(textView.update(segment, textStart, i), end);
+								textStart = -1;
 								this.start.copyFrom(end);
 							}
 
@@ -386,7 +450,7 @@ public class HTMLSource
 								this.end.moveTo(this.end.get() + 1, this.end.getLine() + 1, 0);
 
 								// Carriage return needs to consume any following \n and move the location
-								if(i + 1 < n && chars.charAt(i+1) == '\n')
+								if(i + 1 < n && segment.charAt(i+1) == '\n')
 								{
 									// Consume \n after \r
 									i++;
@@ -427,19 +491,25 @@ public class HTMLSource
 							}
 
 							this.end.moveTextIndex(1);
-							buffer.append(c);
+							if(textStart < 0)
+							{
+								textStart = i;
+							}
 						}
 					}
 
-					if(buffer.length() > 0)
+					if(textStart >= 0)
 					{
 						encounter.location(this.start);
-						encounter.text(buffer, end);
+						encounter.text(textView.update(segment, textStart, segment.length()), end);
 					}
 
 					// Set the start location so the end of paragraph is correct for implicit paragraphs
 					this.start.copyFrom(end);
 				}
+
+				// Move past the segment while its text is still available
+				tracker.moveTo(segment, segment.getBegin(), segment.getEnd());
 			}
 
 			done();
@@ -486,21 +556,29 @@ public class HTMLSource
 			encounter.done();
 		}
 
-		private void updateStart(Segment s)
+		/**
+		 * Resolve the location of an offset within the current segment.
+		 * Offsets must be resolved in order.
+		 */
+		private void locate(Segment segment, int offset, MutableTextOffsetLocation target)
+		{
+			tracker.moveTo(segment, segment.getBegin(), offset);
+			tracker.update(target);
+		}
+
+		private void updateStart()
 		{
-			RowColumnVector rv = source.getRowColumnVector(s.getBegin());
-			start.moveTo(s.getBegin(), rv.getRow() - 1, rv.getColumn() - 1);
+			start.copyFrom(segmentStart);
 		}
 
 		private void updateEnd(Segment s)
 		{
-			RowColumnVector rv = source.getRowColumnVector(s.getEnd());
-			end.moveTo(s.getEnd(), rv.getRow() - 1, rv.getColumn() - 1);
+			locate(s, s.getEnd(), end);
 		}
 
 		/**
 		 * Handle the attributes on the start tag. Will go through and copy
-		 * the tags for flushing later.
+		 * the values and locations of the attributes for flushing later.
 		 */
 		private void handleAttributes(StartTag s)
 		{
@@ -509,13 +587,34 @@ public class HTMLSource
 
 			for(Attribute attr : attrs)
 			{
-				if(activeAttributes.contains(attr.getName()))
+				Segment value = attr.getValueSegment();
+				if(value != null && activeAttributes.contains(attr.getName()))
 				{
-					attributes.add(attr);
+					attributes.add(attr.getValue());
+
+					addLocation(s, attr.getBegin());
+					addLocation(s, value.getBegin());
+					addLocation(s, value.getEnd());
+					addLocation(s, attr.getEnd());
 				}
 			}
 		}
 
+		private void addLocation(Segment segment, int offset)
+		{
+			locate(segment, offset, end);
+			attributeLocations.addTextOffset(end.get(), end.getLine(), end.getColumn());
+		}
+
+		private void restoreLocation(MutableTextOffsetLocation target, int index)
+		{
+			target.moveTo(
+				attributeLocations.getOffset(index),
+				attributeLocations.getLine(index),
+				attributeLocations.getColumn(index)
+			);
+		}
+
 		/**
 		 * Flush all of the attributes in their own paragraphs.
 		 */
@@ -526,31 +625,31 @@ public class HTMLSource
 			MutableTextOffsetLocation startTemp = start.copy();
 			MutableTextOffsetLocation endTemp = end.copy();
 
-			for(Attribute attr : attributes)
+			for(int i=0, n=attributes.size(); i<n; i++)
 			{
+				int location = i * 4;
+
 				// Create a mini-paragraph for the attribute
-				updateStart(attr);
+				restoreLocation(start, location);
 				encounter.location(start);
 				encounter.startParagraph();
 
-				// Extract the value
-				Segment value = attr.getValueSegment();
-
 				// Set the start location of the attribute value
-				updateStart(value);
+				restoreLocation(start, location + 1);
 				encounter.location(start);
 
 				// Fetch the end location and add the text value
-				updateEnd(value);
-				encounter.text(attr.getValue(), end);
+				restoreLocation(end, location + 2);
+				encounter.text(attributes.get(i), end);
 
 				// End the mini-paragraph
-				updateEnd(attr);
+				restoreLocation(end, location + 3);
 				encounter.location(end);
 				encounter.endParagraph();
 			}
 
 			attributes.clear();
+			attributeLocations.clear();
 
 			start.copyFrom(startTemp);
 			end.copyFrom(endTemp);
@@ -0,0 +1,89 @@
+package se.l4.lect.html;
+
+import se.l4.lect.location.MutableTextOffsetLocation;
+
+/**
+ * Tracker for the line and column of an offset that is moved forward while
+ * a document is being read. Used instead of looking up the line and column
+ * of every offset, which requires the entire document to be available.
+ *
+ * <p>
+ * Line breaks are counted in the same way as Jericho does it, both
+ * {@code \n}, {@code \r} and {@code \r\n} start a new line.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class PositionTracker
+{
+	private int offset;
+	private int line;
+	private int column;
+
+	private boolean lastWasCarriageReturn;
+
+	/**
+	 * Move forward to the given offset, reading the characters passed over
+	 * from the given text.
+	 *
+	 * @param text
+	 *   text that contains the characters between the current offset and
+	 *   the new offset
+	 * @param textOffset
+	 *   the offset of the first character in the text
+	 * @param offset
+	 *   the offset to move to, offsets before the current offset are ignored
+	 */
+	public void moveTo(CharSequence text, int textOffset, int offset)
+	{
+		int from = this.offset - textOffset;
+		if(from < 0)
+		{
+			// Characters before the text are not known, count them as columns
+			column -= from;
+			lastWasCarriageReturn = false;
+			from = 0;
+		}
+
+		for(int i=from, n=offset - textOffset; i<n; i++)
+		{
+			char c = text.charAt(i);
+			if(c == '\n')
+			{
+				if(! lastWasCarriageReturn)
+				{
+					line++;
+				}
+
+				column = 0;
+				lastWasCarriageReturn = false;
+			}
+			else if(c == '\r')
+			{
+				line++;
+				column = 0;
+				lastWasCarriageReturn = true;
+			}
+			else
+			{
+				column++;
+				lastWasCarriageReturn = false;
+			}
+		}
+
+		if(offset > this.offset)
+		{
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Update the given location to the current position.
+	 *
+	 * @param target
+	 */
+	public void update(MutableTextOffsetLocation target)
+	{
+		target.moveTo(offset, line, column);
+	}
+}
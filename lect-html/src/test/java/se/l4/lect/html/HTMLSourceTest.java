@@ -1,6 +1,7 @@
 package se.l4.lect.html;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Locale;
 
 import org.junit.Test;
@@ -387,4 +388,103 @@ public class HTMLSourceTest
 			Location.text(27, 1, 6)
 		);
 	}
+
+	@Test
+	public void testStreamedSingleParagraphWithEntity()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		HTMLSource.forString("<p>Hell&ouml; world!</p>")
+			.withStreaming()
+			.parse(mock);
+		mock.verifyParagraph("Hellö world!",
+			Location.text(0, 0, 0),
+			Location.text(3, 0, 3), Location.text(7, 0, 7), // After Hell,
+			Location.text(7, 0, 7), Location.text(13, 0, 13), // After &ouml;
+			Location.text(13, 0, 13), Location.text(14, 0, 14), // After space,
+			Location.text(14, 0, 14), Location.text(20, 0, 20), // After world!
+			Location.text(20, 0, 20)
+		);
+	}
+
+	@Test
+	public void testStreamedSingleParagraphWithLineBreakAndIndent()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		HTMLSource.forString("<p>\n  Hello world!\n</p>")
+			.withStreaming()
+			.parse(mock);
+		mock.verifyParagraph("Hello world! ",
+			Location.text(0, 0, 0),
+			Location.text(6, 1, 2), Location.text(11, 1, 7), // After Hello
+			Location.text(11, 1, 7), Location.text(12, 1, 8), // After space,
+			Location.text(12, 1, 8), Location.text(18, 1, 14), // After world!
+			Location.text(18, 1, 14), Location.text(19, 2, 0), // After \n
+			Location.text(19, 2, 0)
+		);
+	}
+
+	@Test
+	public void testStreamedParagraphWithCarriageReturns()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		HTMLSource.forString("<p\r\n>Hello\rworld!</p>")
+			.withStreaming()
+			.parse(mock);
+		mock.verifyParagraph("Hello world!",
+			Location.text(0, 0, 0),
+			Location.text(5, 1, 1), Location.text(10, 1, 6), // After Hello
+			Location.text(10, 1, 6), Location.text(11, 2, 0), // After \r
+			Location.text(11, 2, 0), Location.text(17, 2, 6), // After world!
+			Location.text(17, 2, 6)
+		);
+	}
+
+	@Test
+	public void testStreamedAttributeInParagraphStartTagWithBreaks()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		HTMLSource.forString("<span title=\"Hello\">\nworld!</span>")
+			.withStandardAttributes()
+			.withStreaming()
+			.parse(mock);
+
+		mock.verifyWhitespace(" ",
+			Location.text(20, 0, 20),
+			Location.text(20, 0, 20),
+			Location.text(21, 1, 0),
+			Location.text(6, 0, 6)
+		);
+
+		mock.verifyParagraph("Hello",
+			Location.text(6, 0, 6),
+			Location.text(13, 0, 13), Location.text(18, 0, 18), // After Hello
+			Location.text(19, 0, 19)
+		);
+
+		mock.verifyParagraph("world!",
+			Location.text(20, 0, 20),
+			Location.text(21, 1, 0), Location.text(27, 1, 6), // After world!
+			Location.text(27, 1, 6)
+		);
+	}
+
+	@Test
+	public void testSingleParagraphFromReader()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		HTMLSource.forReader(new StringReader("<p>Hell&ouml; world!</p>")).parse(mock);
+		mock.verifyParagraph("Hellö world!",
+			Location.text(0, 0, 0),
+			Location.text(3, 0, 3), Location.text(7, 0, 7), // After Hell,
+			Location.text(7, 0, 7), Location.text(13, 0, 13), // After &ouml;
+			Location.text(13, 0, 13), Location.text(14, 0, 14), // After space,
+			Location.text(14, 0, 14), Location.text(20, 0, 20), // After world!
+			Location.text(20, 0, 20)
+		);
+	}
 }
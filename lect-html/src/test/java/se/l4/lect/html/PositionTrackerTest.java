@@ -0,0 +1,56 @@
+package se.l4.lect.html;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import net.htmlparser.jericho.RowColumnVector;
+import net.htmlparser.jericho.Segment;
+import net.htmlparser.jericho.Source;
+import se.l4.lect.location.MutableTextOffsetLocation;
+
+public class PositionTrackerTest
+{
+	private static void verifyMatchesJericho(String html)
+	{
+		Source source = new Source(html);
+		PositionTracker tracker = new PositionTracker();
+		MutableTextOffsetLocation location = new MutableTextOffsetLocation(0, 0, 0);
+
+		Iterator<Segment> it = source.getNodeIterator();
+		while(it.hasNext())
+		{
+			Segment segment = it.next();
+			for(int offset : new int[] { segment.getBegin(), segment.getEnd() })
+			{
+				tracker.moveTo(segment, segment.getBegin(), offset);
+				tracker.update(location);
+
+				RowColumnVector rv = source.getRowColumnVector(offset);
+				assertThat("line at " + offset, location.getLine(), is(rv.getRow() - 1));
+				assertThat("column at " + offset, location.getColumn(), is(rv.getColumn() - 1));
+			}
+		}
+	}
+
+	@Test
+	public void testSingleLine()
+	{
+		verifyMatchesJericho("<p>Hello <b>world</b>!</p>");
+	}
+
+	@Test
+	public void testLineBreaks()
+	{
+		verifyMatchesJericho("<p>\n  Hello\r\n  world\r!\n</p>\r\n");
+	}
+
+	@Test
+	public void testLineBreaksInTags()
+	{
+		verifyMatchesJericho("<!DOCTYPE html>\n<p\r\ntitle=\"a\nb\">Hello</p\n><!-- a\r\nb -->\n<script>\nx < y\n</script>&amp;\n");
+	}
+}
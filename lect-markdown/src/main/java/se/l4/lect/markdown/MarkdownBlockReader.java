@@ -0,0 +1,329 @@
+package se.l4.lect.markdown;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader that splits Markdown into parts that can be parsed on their own.
+ * Parts are split before a line that starts a new top-level block, which
+ * is a line that follows a blank line and is not indented. Blank lines
+ * within fenced code blocks and HTML blocks that may contain blank lines do
+ * not split the text.
+ *
+ * <p>
+ * Parts are only split when they are at least the minimum size, to avoid
+ * parsing many tiny parts.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class MarkdownBlockReader
+{
+	private static final String[] HTML_BLOCK_STARTS = { "<script", "<pre", "<style" };
+	private static final String[] HTML_BLOCK_ENDS = { "</script>", "</pre>", "</style>" };
+
+	private final Reader reader;
+	private final int minSize;
+
+	private final char[] buffer;
+	private int position;
+	private int limit;
+
+	private final StringBuilder block;
+	private final StringBuilder line;
+
+	private int blockOffset;
+	private int nextOffset;
+
+	private boolean lastWasBlank;
+	private boolean lastWasCarriageReturn;
+
+	private char fenceChar;
+	private int fenceLength;
+	private String htmlBlockEnd;
+
+	public MarkdownBlockReader(Reader reader, int minSize)
+	{
+		this.reader = reader;
+		this.minSize = minSize;
+
+		buffer = new char[8192];
+		block = new StringBuilder();
+		line = new StringBuilder();
+	}
+
+	/**
+	 * Get the offset of the part last returned by {@link #next()}.
+	 *
+	 * @return
+	 */
+	public int getOffset()
+	{
+		return blockOffset;
+	}
+
+	/**
+	 * Read the next part.
+	 *
+	 * @return
+	 *   the text of the part or {@code null} if all text has been read
+	 * @throws IOException
+	 */
+	public String next()
+		throws IOException
+	{
+		block.setLength(0);
+		blockOffset = nextOffset;
+
+		// A line read for the previous part starts this part
+		if(line.length() > 0)
+		{
+			block.append(line);
+			update();
+		}
+
+		while(readLine())
+		{
+			if(lastWasBlank && block.length() >= minSize && startsBlock())
+			{
+				nextOffset = blockOffset + block.length();
+				return block.toString();
+			}
+
+			block.append(line);
+			update();
+		}
+
+		line.setLength(0);
+		nextOffset = blockOffset + block.length();
+		return block.length() == 0 ? null : block.toString();
+	}
+
+	/**
+	 * Read the next line, including its line break, into {@link #line}.
+	 */
+	private boolean readLine()
+		throws IOException
+	{
+		line.setLength(0);
+
+		while(true)
+		{
+			if(position == limit)
+			{
+				limit = reader.read(buffer, 0, buffer.length);
+				position = 0;
+
+				if(limit <= 0)
+				{
+					limit = 0;
+					return line.length() > 0;
+				}
+			}
+
+			char c = buffer[position];
+			if(lastWasCarriageReturn)
+			{
+				lastWasCarriageReturn = false;
+				if(c != '\n')
+				{
+					// Line ended with a single \r
+					return true;
+				}
+			}
+
+			position++;
+			line.append(c);
+
+			if(c == '\n')
+			{
+				return true;
+			}
+			else if(c == '\r')
+			{
+				// Check if the next character is \n before ending the line
+				lastWasCarriageReturn = true;
+			}
+		}
+	}
+
+	/**
+	 * Get if the current line can start a new block.
+	 */
+	private boolean startsBlock()
+	{
+		return fenceChar == 0
+			&& htmlBlockEnd == null
+			&& line.length() > 0
+			&& ! Character.isWhitespace(line.charAt(0));
+	}
+
+	/**
+	 * Update the state after the current line has been added to the block.
+	 */
+	private void update()
+	{
+		int indent = indent();
+		lastWasBlank = indent == line.length();
+
+		if(fenceChar != 0)
+		{
+			// Look for the end of the fenced code block
+			if(indent < 4 && fenceLength(indent) >= fenceLength && isBlank(indent + fenceLength(indent)))
+			{
+				fenceChar = 0;
+			}
+
+			return;
+		}
+
+		if(htmlBlockEnd != null)
+		{
+			if(contains(0, htmlBlockEnd))
+			{
+				htmlBlockEnd = null;
+			}
+
+			return;
+		}
+
+		if(indent >= 4 || lastWasBlank)
+		{
+			return;
+		}
+
+		char c = line.charAt(indent);
+		if(c == '`' || c == '~')
+		{
+			fenceChar = c;
+			int length = fenceLength(indent);
+			if(length >= 3)
+			{
+				fenceLength = length;
+			}
+			else
+			{
+				fenceChar = 0;
+			}
+		}
+		else if(c == '<')
+		{
+			htmlBlockEnd = htmlBlockEnd(indent);
+			if(htmlBlockEnd != null && contains(indent + 1, htmlBlockEnd))
+			{
+				// Block ends on the same line
+				htmlBlockEnd = null;
+			}
+		}
+	}
+
+	private int indent()
+	{
+		int i = 0;
+		for(int n=line.length(); i<n; i++)
+		{
+			char c = line.charAt(i);
+			if(c != ' ' && c != '\t' && c != '\n' && c != '\r')
+			{
+				break;
+			}
+		}
+
+		return i;
+	}
+
+	private int fenceLength(int from)
+	{
+		int i = from;
+		while(i < line.length() && line.charAt(i) == fenceChar)
+		{
+			i++;
+		}
+
+		return i - from;
+	}
+
+	private boolean isBlank(int from)
+	{
+		for(int i=from, n=line.length(); i<n; i++)
+		{
+			if(! Character.isWhitespace(line.charAt(i)))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Get the text that ends the HTML block started at the given index, if
+	 * the block is of a type that may contain blank lines.
+	 */
+	private String htmlBlockEnd(int from)
+	{
+		if(startsWithIgnoreCase(from, "<!--"))
+		{
+			return "-->";
+		}
+		else if(startsWithIgnoreCase(from, "<![cdata["))
+		{
+			return "]]>";
+		}
+		else if(startsWithIgnoreCase(from, "<?"))
+		{
+			return "?>";
+		}
+		else if(startsWithIgnoreCase(from, "<!") && from + 2 < line.length()
+			&& Character.isLetter(line.charAt(from + 2)))
+		{
+			return ">";
+		}
+
+		for(int i=0; i<HTML_BLOCK_STARTS.length; i++)
+		{
+			String start = HTML_BLOCK_STARTS[i];
+			if(startsWithIgnoreCase(from, start))
+			{
+				int next = from + start.length();
+				if(next == line.length() || line.charAt(next) == '>' || Character.isWhitespace(line.charAt(next)))
+				{
+					return HTML_BLOCK_ENDS[i];
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private boolean contains(int from, String text)
+	{
+		for(int i=from, n=line.length() - text.length(); i<=n; i++)
+		{
+			if(startsWithIgnoreCase(i, text))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean startsWithIgnoreCase(int from, String prefix)
+	{
+		if(line.length() - from < prefix.length())
+		{
+			return false;
+		}
+
+		for(int i=0, n=prefix.length(); i<n; i++)
+		{
+			if(Character.toLowerCase(line.charAt(from + i)) != prefix.charAt(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
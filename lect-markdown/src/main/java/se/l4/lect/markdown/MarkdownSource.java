@@ -6,6 +6,9 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import com.vladsch.flexmark.ast.AutoLink;
 import com.vladsch.flexmark.ast.BlockQuote;
@@ -38,6 +41,7 @@ import se.l4.lect.TextSource;
 import se.l4.lect.TextSourceEncounter;
 import se.l4.lect.location.MutableTextOffsetLocation;
 import se.l4.lect.location.TextOffsetLocation;
+import se.l4.lect.text.LineIndex;
 import se.l4.lect.text.OffsetTrackingReader;
 
 /**
@@ -49,12 +53,32 @@ import se.l4.lect.text.OffsetTrackingReader;
 public class MarkdownSource
 	implements TextSource
 {
+	/**
+	 * The smallest number of characters parsed at once when streaming.
+	 */
+	private static final int STREAMING_BLOCK_SIZE = 8192;
+
+	/**
+	 * Parsers per flavor. Building a parser applies the options and creates
+	 * the extensions of the flavor, which can cost more than parsing short
+	 * texts. Parsers are immutable and thread-safe once built. Weak keys
+	 * let custom flavors be garbage collected together with their parser.
+	 */
+	private static final Map<CustomMarkdownFlavor, Parser> PARSERS = Collections.synchronizedMap(new WeakHashMap<>());
+
 	private final IOSupplier<Reader> supplier;
+	/**
+	 * Text that is already in memory, parsed directly instead of via a
+	 * {@link Reader} when not streaming.
+	 */
+	private final String text;
 	private CustomMarkdownFlavor flavor;
+	private int streamingBlockSize;
 
-	private MarkdownSource(IOSupplier<Reader> supplier)
+	private MarkdownSource(IOSupplier<Reader> supplier, String text)
 	{
 		this.supplier = supplier;
+		this.text = text;
 		flavor = MarkdownFlavor.COMMONMARK;
 	}
 
@@ -78,7 +102,7 @@ public class MarkdownSource
 	 */
 	public static MarkdownSource forReader(IOSupplier<Reader> supplier)
 	{
-		return new MarkdownSource(supplier);
+		return new MarkdownSource(supplier, null);
 	}
 
 	/**
@@ -116,7 +140,7 @@ public class MarkdownSource
 	 */
 	public static MarkdownSource forString(String text)
 	{
-		return forReader(new StringReader(text));
+		return new MarkdownSource(() -> new StringReader(text), text);
 	}
 
 	/**
@@ -132,6 +156,33 @@ public class MarkdownSource
 		return forStream(bytes::asInputStream, charset);
 	}
 
+	/**
+	 * Build the parsers for the given flavors ahead of time, so that the
+	 * first source parsed with one of them does not have to. Useful to call
+	 * during startup.
+	 *
+	 * @param flavors
+	 */
+	public static void prepare(CustomMarkdownFlavor... flavors)
+	{
+		for(CustomMarkdownFlavor flavor : flavors)
+		{
+			parser(flavor);
+		}
+	}
+
+	/**
+	 * Get the parser for the given flavor, building it if needed.
+	 */
+	private static Parser parser(CustomMarkdownFlavor flavor)
+	{
+		return PARSERS.computeIfAbsent(flavor, f -> {
+			MutableDataSet options = new MutableDataSet();
+			f.applyMarkdownOptions(options);
+			return Parser.builder(options).build();
+		});
+	}
+
 	/**
 	 * Set the flavor to use when parsing.
 	 *
@@ -155,53 +206,117 @@ public class MarkdownSource
 		return this;
 	}
 
+	/**
+	 * Parse the Markdown in parts while it is being read instead of parsing
+	 * the entire document at once. Parts are split between top-level blocks,
+	 * which keeps memory use down and emits the first paragraphs earlier for
+	 * large documents.
+	 *
+	 * <p>
+	 * Parts are parsed separately, so link references and similar
+	 * definitions only apply within the part they are found in.
+	 *
+	 * @return
+	 *   this instance
+	 */
+	public MarkdownSource withStreaming()
+	{
+		return withStreaming(STREAMING_BLOCK_SIZE);
+	}
+
+	/**
+	 * Parse the Markdown in parts with at least the given number of
+	 * characters.
+	 *
+	 * @param blockSize
+	 * @return
+	 */
+	MarkdownSource withStreaming(int blockSize)
+	{
+		this.streamingBlockSize = blockSize;
+		return this;
+	}
+
 	@Override
 	public void parse(TextSourceEncounter encounter)
 		throws IOException
 	{
-		try(Reader reader = supplier.get())
+		if(text != null && streamingBlockSize == 0)
+		{
+			// Flexmark uses the text directly, only the lines need to be indexed
+			LineIndex lines = new LineIndex();
+			lines.track(text, 0, text.length());
+
+			new Handler(lines, encounter).parse(text);
+			return;
+		}
+
+		try(OffsetTrackingReader reader = new OffsetTrackingReader(supplier.get()))
 		{
-			new Handler(reader, encounter).parse();
+			new Handler(reader.getLines(), encounter).parse(reader);
 		}
 	}
 
 	private class Handler
 	{
 		private final TextSourceEncounter encounter;
-		private OffsetTrackingReader reader;
+		private final LineIndex lines;
 
 		private MutableTextOffsetLocation start;
 		private MutableTextOffsetLocation end;
 
-		public Handler(Reader reader, TextSourceEncounter encounter)
+		/*
+		 * Offset of the text being parsed, node offsets are relative to it
+		 */
+		private int base;
+
+		public Handler(LineIndex lines, TextSourceEncounter encounter)
 		{
 			this.encounter = encounter;
+			this.lines = lines;
 
 			start = new MutableTextOffsetLocation(0, 0, 0);
 			end = new MutableTextOffsetLocation(0, 0, 0);
 
 			encounter.location(start);
+		}
+
+		public void parse(String text)
+		{
+			handleChildren(parser(flavor).parse(text));
 
-			this.reader = new OffsetTrackingReader(reader);
+			encounter.done();
 		}
 
-		public void parse()
+		public void parse(OffsetTrackingReader reader)
 			throws IOException
 		{
-			MutableDataSet options = new MutableDataSet();
-			flavor.applyMarkdownOptions(options);
-
-			Parser parser = Parser.builder(options).build();
-			Document doc = parser.parseReader(reader);
+			Parser parser = parser(flavor);
+			if(streamingBlockSize > 0)
+			{
+				MarkdownBlockReader blocks = new MarkdownBlockReader(reader, streamingBlockSize);
+				String block;
+				while((block = blocks.next()) != null)
+				{
+					base = blocks.getOffset();
+					handleChildren(parser.parse(block));
 
-			handleChildren(doc);
+					// Lines before the next block are no longer needed
+					lines.discardBefore(base + block.length());
+				}
+			}
+			else
+			{
+				Document doc = parser.parseReader(reader);
+				handleChildren(doc);
+			}
 
 			encounter.done();
 		}
 
 		private void updateLocation(TextOffsetLocation target, int offset)
 		{
-			reader.offsetToLocation(offset, target);
+			lines.offsetToLocation(base + offset, target);
 		}
 
 		private void updateAndSetStartLocation(Node node)
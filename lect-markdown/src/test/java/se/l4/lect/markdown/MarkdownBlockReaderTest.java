@@ -0,0 +1,84 @@
+package se.l4.lect.markdown;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MarkdownBlockReaderTest
+{
+	private static List<String> read(String text, int minSize)
+		throws IOException
+	{
+		MarkdownBlockReader reader = new MarkdownBlockReader(new StringReader(text), minSize);
+		List<String> result = new ArrayList<>();
+		int offset = 0;
+		String block;
+		while((block = reader.next()) != null)
+		{
+			assertThat(reader.getOffset(), is(offset));
+			offset += block.length();
+			result.add(block);
+		}
+
+		return result;
+	}
+
+	@Test
+	public void testSplitsBetweenParagraphs()
+		throws IOException
+	{
+		assertThat(read("Hello\nworld\n\nCookies\r\n\r\nare\r\rtasty", 1), is(Arrays.asList(
+			"Hello\nworld\n\n",
+			"Cookies\r\n\r\n",
+			"are\r\r",
+			"tasty"
+		)));
+	}
+
+	@Test
+	public void testMinimumSize()
+		throws IOException
+	{
+		assertThat(read("Hello\n\nworld\n\nCookies", 10), is(Arrays.asList(
+			"Hello\n\nworld\n\n",
+			"Cookies"
+		)));
+	}
+
+	@Test
+	public void testIndentedLinesDoNotSplit()
+		throws IOException
+	{
+		assertThat(read("* Hello\n\n  world\n\n    code", 1), is(Arrays.asList(
+			"* Hello\n\n  world\n\n    code"
+		)));
+	}
+
+	@Test
+	public void testFencedCodeDoesNotSplit()
+		throws IOException
+	{
+		assertThat(read("~~~~\nHello\n\n~~~\nworld\n~~~~\n\nCookies", 1), is(Arrays.asList(
+			"~~~~\nHello\n\n~~~\nworld\n~~~~\n\n",
+			"Cookies"
+		)));
+	}
+
+	@Test
+	public void testHtmlBlockDoesNotSplit()
+		throws IOException
+	{
+		assertThat(read("<!-- Hello\n\nworld -->\n\n<PRE>\n\nCookies\n</pre>\n\ntasty", 1), is(Arrays.asList(
+			"<!-- Hello\n\nworld -->\n\n",
+			"<PRE>\n\nCookies\n</pre>\n\n",
+			"tasty"
+		)));
+	}
+}
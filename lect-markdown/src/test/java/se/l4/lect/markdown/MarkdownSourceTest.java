@@ -1,7 +1,11 @@
 package se.l4.lect.markdown;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
 import java.io.IOException;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -327,4 +331,86 @@ public class MarkdownSourceTest
 			Location.text(14, 0, 14)
 		);
 	}
+
+	@Test
+	public void testStreamedMultipleParagraphs()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		MarkdownSource.forString("Hello world!\n\nWith cookies")
+			.withStreaming(1)
+			.parse(mock);
+		mock.verifyParagraph("Hello world!",
+			Location.text(0, 0, 0),
+			Location.text(0, 0, 0), Location.text(12, 0, 12),
+			Location.text(13, 1, 0)
+		);
+		mock.verifyParagraph("With cookies",
+			Location.text(14, 2, 0),
+			Location.text(14, 2, 0), Location.text(26, 2, 12),
+			Location.text(26, 2, 12)
+		);
+	}
+
+	@Test
+	public void testStreamedListMultipleItems()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		MarkdownSource.forString("* Hello world!\n\n* With cookies")
+			.withStreaming(1)
+			.parse(mock);
+		mock.verifyParagraph("Hello world!",
+			Location.text(2, 0, 2),
+			Location.text(2, 0, 2), Location.text(14, 0, 14),
+			Location.text(15, 1, 0)
+		);
+		mock.verifyParagraph("With cookies",
+			Location.text(18, 2, 2),
+			Location.text(18, 2, 2), Location.text(30, 2, 14),
+			Location.text(30, 2, 14)
+		);
+	}
+
+	@Test
+	public void testStreamedFencedCode()
+		throws IOException
+	{
+		VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+		MarkdownSource.forString("```\nHello\n\nworld\n```\n\nWith cookies")
+			.withStreaming(1)
+			.parse(mock);
+		mock.verifyParagraph("With cookies",
+			Location.text(22, 6, 0),
+			Location.text(22, 6, 0), Location.text(34, 6, 12),
+			Location.text(34, 6, 12)
+		);
+		mock.verifyEmpty();
+	}
+
+	@Test
+	public void testCustomFlavorParserIsReused()
+		throws IOException
+	{
+		AtomicInteger builds = new AtomicInteger();
+		CustomMarkdownFlavor flavor = options -> {
+			builds.incrementAndGet();
+			MarkdownFlavor.GITHUB.applyMarkdownOptions(options);
+		};
+
+		MarkdownSource.prepare(flavor);
+
+		for(int i=0; i<2; i++)
+		{
+			VerifyingSyntaxTreeEncounter mock = new VerifyingSyntaxTreeEncounter(Locale.ENGLISH);
+			MarkdownSource.forString("~~Hello world!~~").withFlavor(flavor).parse(mock);
+			mock.verifyParagraph("Hello world!",
+				Location.text(0, 0, 0),
+				Location.text(2, 0, 2), Location.text(14, 0, 14),
+				Location.text(16, 0, 16)
+			);
+		}
+
+		assertThat(builds.get(), is(1));
+	}
 }